@@ -0,0 +1,153 @@
+package ru.clevertec.news.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import ru.clevertec.news.cache.Cache;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLfu;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLru;
+import ru.clevertec.news.cache.impl.CacheLfu;
+import ru.clevertec.news.cache.impl.CacheLru;
+import ru.clevertec.news.cache.offheap.OffHeapCache;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.service.cache.CommentDtoCodec;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность кэшей комментариев при конкурентном доступе.
+ * <p>
+ * Ключи выбираются с перекосом в сторону небольших значений, чтобы часть ключей была «горячей».
+ * {@code CacheLru} и {@code CacheLfu} из cache-lib не потокобезопасны, поэтому измеряются за одной общей блокировкой.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class CacheBenchmark {
+
+    private static final int KEY_SPACE = 1 << 16;
+    private static final int KEYS_PER_THREAD = 1 << 12;
+
+    @Param({"LRU", "LFU", "CONCURRENT_LRU", "CONCURRENT_LFU", "OFFHEAP"})
+    private String implementation;
+
+    @Param({"10000"})
+    private int capacity;
+
+    private Cache<Long, CommentDto> cache;
+    private CommentDto value;
+
+    /**
+     * Последовательность ключей потока.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private final Long[] keys = new Long[KEYS_PER_THREAD];
+        private int next;
+
+        @Setup
+        public void setUp() {
+            var random = new Random(Thread.currentThread().getId());
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (long) (KEY_SPACE * Math.pow(random.nextDouble(), 3));
+            }
+        }
+
+        Long next() {
+            next = (next + 1) & (KEYS_PER_THREAD - 1);
+            return keys[next];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        cache = create(implementation);
+        cache.capacity(capacity);
+        value = new CommentDto(1L, LocalDateTime.now(), "Comment text of an average length for the benchmark", "username", 1L);
+        for (long key = 0; key < capacity; key++) {
+            cache.put(key, value);
+        }
+    }
+
+    @Benchmark
+    public CommentDto get(Keys keys) {
+        return cache.get(keys.next());
+    }
+
+    @Benchmark
+    public void put(Keys keys) {
+        cache.put(keys.next(), value);
+    }
+
+    @Benchmark
+    public CommentDto readMostly(Keys keys) {
+        var key = keys.next();
+        if ((key & 15) == 0) {
+            cache.put(key, value);
+            return value;
+        }
+        return cache.get(key);
+    }
+
+    private static Cache<Long, CommentDto> create(String implementation) {
+        return switch (implementation) {
+            case "LRU" -> new SynchronizedCache<>(new CacheLru<>());
+            case "LFU" -> new SynchronizedCache<>(new CacheLfu<>());
+            case "CONCURRENT_LRU" -> new ConcurrentCacheLru<>();
+            case "CONCURRENT_LFU" -> new ConcurrentCacheLfu<>();
+            case "OFFHEAP" -> new OffHeapCache<>(1024, new CommentDtoCodec());
+            default -> throw new IllegalArgumentException(implementation);
+        };
+    }
+
+    /**
+     * Кэш за одной общей блокировкой.
+     */
+    private record SynchronizedCache<K, V>(Cache<K, V> delegate) implements Cache<K, V> {
+
+        @Override
+        public synchronized V get(K key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            delegate.put(key, value);
+        }
+
+        @Override
+        public synchronized void remove(K key) {
+            delegate.remove(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            return delegate.isEmpty();
+        }
+
+        @Override
+        public synchronized void clear() {
+            delegate.clear();
+        }
+
+        @Override
+        public synchronized void capacity(int capacity) {
+            delegate.capacity(capacity);
+        }
+    }
+}
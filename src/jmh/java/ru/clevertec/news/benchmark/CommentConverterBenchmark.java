@@ -0,0 +1,49 @@
+package ru.clevertec.news.benchmark;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.clevertec.news.converter.CommentConverter;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.entity.Comment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время преобразования страницы комментариев в DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommentConverterBenchmark {
+
+    @Param({"15", "100", "1000"})
+    private int pageSize;
+
+    private CommentConverter converter;
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        converter = Mappers.getMapper(CommentConverter.class);
+        comments = new ArrayList<>(pageSize);
+        var time = LocalDateTime.now();
+        for (long id = 1; id <= pageSize; id++) {
+            comments.add(new Comment(id, id % 10, time.minusSeconds(id), "user" + id, "Comment text number " + id));
+        }
+    }
+
+    @Benchmark
+    public List<CommentDto> convertToList() {
+        return converter.convertToList(comments);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.clevertec.news.benchmark;
+
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.entity.Comment;
+import ru.clevertec.news.specification.CommentSpecification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время построения предикатов {@link CommentSpecification#findAll(CommentFilterDto)}.
+ * <p>
+ * Hibernate запускается без подключения к базе: для построения criteria-запросов оно не нужно.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommentSpecificationBenchmark {
+
+    @Param({"NONE", "USERNAME", "TEXT", "USERNAME_AND_TEXT"})
+    private String filterType;
+
+    private SessionFactory sessionFactory;
+    private HibernateCriteriaBuilder criteriaBuilder;
+    private CommentFilterDto filter;
+
+    @Setup
+    public void setUp() {
+        var registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, PostgreSQLDialect.class.getName())
+                .applySetting("hibernate.temp.use_jdbc_metadata_defaults", false)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "none")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Comment.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        filter = switch (filterType) {
+            case "NONE" -> new CommentFilterDto(null, null);
+            case "USERNAME" -> new CommentFilterDto("user", null);
+            case "TEXT" -> new CommentFilterDto(null, "text");
+            case "USERNAME_AND_TEXT" -> new CommentFilterDto("user", "text");
+            default -> throw new IllegalArgumentException(filterType);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        CriteriaQuery<Comment> query = criteriaBuilder.createQuery(Comment.class);
+        var root = query.from(Comment.class);
+        return CommentSpecification.findAll(filter).toPredicate(root, query, criteriaBuilder);
+    }
+
+    @Benchmark
+    public CriteriaQuery<Comment> buildQuery() {
+        CriteriaQuery<Comment> query = criteriaBuilder.createQuery(Comment.class);
+        var root = query.from(Comment.class);
+        var predicate = CommentSpecification.findAll(filter).toPredicate(root, query, criteriaBuilder);
+        return predicate == null ? query : query.where(predicate);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.clevertec.news.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.clevertec.news.controller.CommentController;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.model.enums.RequestLogMode;
+import ru.clevertec.news.service.CommentService;
+import ru.clevertec.news.service.feed.CommentFeedHub;
+import ru.clevertec.news.service.proxy.RequestLoggingAspect;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость журналирования запроса к контроллеру комментариев без учета работы сервиса.
+ * <p>
+ * {@code LEGACY} воспроизводит прежнее поведение: аспект {@code @Log} журналирует каждый вызов контроллера
+ * с аргументами и результатом, сервис собирает строки конкатенацией на уровне INFO.
+ * Остальные режимы — {@link RequestLoggingAspect} с параметризованными сообщениями сервиса на уровне DEBUG;
+ * в режиме {@code OFF} аспект не создается, как и в приложении.
+ * Корневой уровень журнала — INFO, события уходят в пустой appender. Выделение памяти на запрос показывает
+ * профилировщик {@code gc} (метрика {@code gc.alloc.rate.norm}):
+ * {@code gradle jmh -PjmhIncludes=RequestLoggingBenchmark -PjmhProfilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestLoggingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger("ru.clevertec.news.service.impl.CommentServiceImpl");
+
+    @Param({"LEGACY", "OFF", "SAMPLED", "FULL"})
+    private String mode;
+
+    private CommentController controller;
+    private CommentUpdateDto updateDto;
+
+    @Setup
+    public void setUp() {
+        var context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        var appender = new NOPAppender<ILoggingEvent>();
+        appender.setContext(context);
+        appender.start();
+        var root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+
+        var legacy = "LEGACY".equals(mode);
+        var dto = new CommentDto(1L, LocalDateTime.now(), "Comment text", "username", 1L);
+        var service = (CommentService) Proxy.newProxyInstance(CommentService.class.getClassLoader(),
+                new Class<?>[]{CommentService.class}, (proxy, method, args) -> {
+                    if (legacy) {
+                        log.info("CommentService: " + method.getName() + " comment: " + args[0]);
+                    } else {
+                        log.debug("CommentService: {} comment: {}", method.getName(), args[0]);
+                    }
+                    return dto;
+                });
+        var objectMapper = new ObjectMapper();
+        controller = new CommentController(service, new CommentFeedHub(objectMapper, 64, Duration.ofSeconds(15)), objectMapper);
+        if (!"OFF".equals(mode)) {
+            var factory = new AspectJProxyFactory(controller);
+            factory.setProxyTargetClass(true);
+            factory.addAspect(legacy ? new LegacyLogAspect() : new RequestLoggingAspect(RequestLogMode.valueOf(mode), 0.01));
+            controller = factory.getProxy();
+        }
+        updateDto = new CommentUpdateDto();
+        updateDto.setId(1L);
+        updateDto.setTime(dto.getTime());
+        updateDto.setText("Updated comment text");
+        updateDto.setUsername("username");
+        updateDto.setNewsId(1L);
+    }
+
+    /**
+     * Журналирование вызовов контроллера в том виде, в котором его выполнял аспект {@code @Log}.
+     */
+    @Aspect
+    public static class LegacyLogAspect {
+
+        private static final Logger log = LoggerFactory.getLogger(CommentController.class);
+
+        @Around("execution(* ru.clevertec.news.controller.CommentController.*(..))")
+        public Object doLog(ProceedingJoinPoint pjp) throws Throwable {
+            log.info("Method: " + pjp.getSignature().getName() + ", args: " + Arrays.toString(pjp.getArgs()));
+            var result = pjp.proceed();
+            log.info("Method: " + pjp.getSignature().getName() + ", result: " + result);
+            return result;
+        }
+    }
+
+    @Benchmark
+    public CommentDto getById() {
+        return controller.getById(1L);
+    }
+
+    @Benchmark
+    public CommentDto update() {
+        return controller.update(updateDto);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.clevertec.news.load;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочные сценарии эндпоинтов {@code /api/comments} на заполненной базе с включенным кэшем Redis.
+ * <p>
+ * Результаты выводятся в консоль и сохраняются в CSV ({@code load.report}) для сравнения между изменениями.
+ * Объем данных и нагрузка задаются системными свойствами {@code load.news}, {@code load.comments-per-news},
+ * {@code load.clients}, {@code load.warmup} и {@code load.duration}.
+ */
+public class CommentLoadTest {
+
+    private static final int NEWS = Integer.getInteger("load.news", 5_000);
+    private static final int COMMENTS_PER_NEWS = Integer.getInteger("load.comments-per-news", 400);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT15S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT60S"));
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "build/reports/load/comments.csv"));
+
+    private static final int BATCH_SIZE = 20;
+
+    private static final List<LoadResult> results = new ArrayList<>();
+
+    private static ConfigurableApplicationContext context;
+    private static LoadTestEnvironment.Seed seed;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void startApplication() {
+        context = LoadTestEnvironment.start(Map.of());
+        seed = LoadTestEnvironment.seed(context, NEWS, COMMENTS_PER_NEWS);
+        baseUrl = LoadTestEnvironment.baseUrl(context);
+    }
+
+    @AfterAll
+    static void report() throws IOException {
+        results.forEach(System.out::println);
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        var lines = new ArrayList<String>();
+        lines.add(LoadResult.CSV_HEADER);
+        results.forEach(result -> lines.add(result.toCsv()));
+        Files.write(REPORT, lines);
+        context.close();
+    }
+
+    @Test
+    void readHeavy() {
+        var mix = new LoadMix()
+                .add(80, this::getById)
+                .add(15, this::getByNewsId)
+                .add(3, this::getSliceByNewsId)
+                .add(2, this::create);
+
+        run("read-heavy", mix);
+    }
+
+    @Test
+    void writeBurst() {
+        var mix = new LoadMix()
+                .add(40, this::getById)
+                .add(20, this::getByNewsId)
+                .add(20, this::createBatch)
+                .add(15, this::update)
+                .add(5, this::create);
+
+        run("write-burst", mix);
+    }
+
+    @Test
+    void search() {
+        var mix = new LoadMix()
+                .add(40, random -> LoadGenerator.get(baseUrl, "/api/comments?username=user" + random.nextInt(1000)))
+                .add(30, random -> LoadGenerator.get(baseUrl,
+                        "/api/comments?mode=FULL_TEXT&text=number+" + random.nextInt(seed.ids().length)))
+                .add(20, random -> LoadGenerator.get(baseUrl, "/api/comments/slice?text=number+" + random.nextInt(10_000)))
+                .add(10, this::getById);
+
+        run("search", mix);
+    }
+
+    private void run(String name, LoadMix mix) {
+        var result = LoadGenerator.run(name, context, CLIENTS, WARMUP, DURATION, mix);
+        results.add(result);
+        assertTrue(result.errorRate() < 0.01, result::toString);
+    }
+
+    private HttpRequest getById(ThreadLocalRandom random) {
+        return LoadGenerator.get(baseUrl, "/api/comments/" + seed.ids()[hot(random)]);
+    }
+
+    private HttpRequest getByNewsId(ThreadLocalRandom random) {
+        var page = random.nextInt(3) + 1;
+        return LoadGenerator.get(baseUrl, "/api/comments/newsId/" + newsId(random) + "?pageNumber=" + page);
+    }
+
+    private HttpRequest getSliceByNewsId(ThreadLocalRandom random) {
+        return LoadGenerator.get(baseUrl, "/api/comments/newsId/" + newsId(random) + "/slice");
+    }
+
+    private HttpRequest create(ThreadLocalRandom random) {
+        return LoadGenerator.post(baseUrl, "/api/comments", comment(random, newsId(random)));
+    }
+
+    private HttpRequest createBatch(ThreadLocalRandom random) {
+        var newsId = newsId(random);
+        var body = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> comment(random, newsId))
+                .collect(Collectors.joining(",", "[", "]"));
+        return LoadGenerator.post(baseUrl, "/api/comments/batch", body);
+    }
+
+    private HttpRequest update(ThreadLocalRandom random) {
+        var index = hot(random);
+        var body = String.format("{\"id\":%d,\"text\":\"updated text %d\",\"username\":\"user%d\",\"newsId\":%d}",
+                seed.ids()[index], random.nextInt(), random.nextInt(1000), seed.newsIds()[index]);
+        return LoadGenerator.put(baseUrl, "/api/comments", body);
+    }
+
+    private static String comment(ThreadLocalRandom random, long newsId) {
+        return String.format("{\"text\":\"load comment %d\",\"username\":\"user%d\",\"newsId\":%d}",
+                random.nextInt(), random.nextInt(1000), newsId);
+    }
+
+    /**
+     * Выбирает комментарий с перекосом: 20% комментариев получают около 80% обращений.
+     */
+    private static int hot(ThreadLocalRandom random) {
+        var length = seed.ids().length;
+        return random.nextInt(10) < 8 ? random.nextInt(Math.max(1, length / 5)) : random.nextInt(length);
+    }
+
+    private static long newsId(ThreadLocalRandom random) {
+        return random.nextInt(seed.news()) + 1;
+    }
+}
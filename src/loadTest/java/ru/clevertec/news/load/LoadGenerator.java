@@ -0,0 +1,181 @@
+package ru.clevertec.news.load;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Генератор нагрузки с замкнутой моделью: каждый клиент отправляет следующий запрос сразу после ответа на предыдущий.
+ */
+@UtilityClass
+public class LoadGenerator {
+
+    /**
+     * Прогревает приложение, затем выполняет нагрузку и собирает задержки и количество запросов к базе и Redis.
+     *
+     * @param name     название прогона
+     * @param context  контекст приложения, к которому выполняются запросы
+     * @param clients  количество одновременных клиентов
+     * @param warmup   длительность прогрева, результаты которого не учитываются
+     * @param duration длительность измерения
+     * @param requests фабрика запросов, получает генератор случайных чисел клиента
+     * @return результат прогона
+     */
+    public static LoadResult run(String name, ConfigurableApplicationContext context, int clients, Duration warmup,
+                                 Duration duration, Function<ThreadLocalRandom, HttpRequest> requests) {
+        var client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        execute(client, clients, warmup, requests);
+        var statements = LoadTestEnvironment.statements(context);
+        var redisCommands = LoadTestEnvironment.redisCommands();
+        var started = System.nanoTime();
+        var recorders = execute(client, clients, duration, requests);
+        var elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        statements = LoadTestEnvironment.statements(context) - statements;
+        redisCommands = LoadTestEnvironment.redisCommands() - redisCommands;
+
+        var errors = recorders.stream().mapToLong(Recorder::errors).sum();
+        var latencies = recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.count))
+                .sorted()
+                .toArray();
+        var requestsCount = latencies.length;
+        var perRequest = Math.max(1, requestsCount);
+        return new LoadResult(name, requestsCount, errors, requestsCount / elapsedSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                (double) statements / perRequest, (double) redisCommands / perRequest);
+    }
+
+    /**
+     * Создает GET-запрос.
+     *
+     * @param baseUrl адрес приложения
+     * @param path    путь запроса
+     * @return запрос
+     */
+    public static HttpRequest get(String baseUrl, String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    /**
+     * Создает POST-запрос с телом JSON.
+     *
+     * @param baseUrl адрес приложения
+     * @param path    путь запроса
+     * @param json    тело запроса
+     * @return запрос
+     */
+    public static HttpRequest post(String baseUrl, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /**
+     * Создает PUT-запрос с телом JSON.
+     *
+     * @param baseUrl адрес приложения
+     * @param path    путь запроса
+     * @param json    тело запроса
+     * @return запрос
+     */
+    public static HttpRequest put(String baseUrl, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    @SneakyThrows
+    private static List<Recorder> execute(HttpClient client, int clients, Duration duration,
+                                          Function<ThreadLocalRandom, HttpRequest> requests) {
+        var deadline = System.nanoTime() + duration.toNanos();
+        var executor = Executors.newFixedThreadPool(clients);
+        try {
+            var futures = new ArrayList<Future<Recorder>>();
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    var recorder = new Recorder();
+                    var random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        var start = System.nanoTime();
+                        var success = send(client, requests.apply(random));
+                        recorder.record((System.nanoTime() - start) / 1000, success);
+                    }
+                    return recorder;
+                }));
+            }
+            var recorders = new ArrayList<Recorder>();
+            for (var future : futures) {
+                recorders.add(future.get());
+            }
+            return recorders;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean send(HttpClient client, HttpRequest request) {
+        try {
+            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    /**
+     * Задержки одного клиента в микросекундах.
+     */
+    private static class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long latencyMicros, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyMicros;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        long errors() {
+            return errors;
+        }
+    }
+}
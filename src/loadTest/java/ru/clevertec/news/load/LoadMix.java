@@ -0,0 +1,42 @@
+package ru.clevertec.news.load;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Смесь запросов с весами: каждый следующий запрос клиента выбирается случайно пропорционально весу.
+ */
+public class LoadMix implements Function<ThreadLocalRandom, HttpRequest> {
+
+    private final List<Function<ThreadLocalRandom, HttpRequest>> requests = new ArrayList<>();
+    private final List<Integer> bounds = new ArrayList<>();
+    private int total;
+
+    /**
+     * Добавляет вид запроса в смесь.
+     *
+     * @param weight  вес запроса
+     * @param request фабрика запроса
+     * @return эта смесь
+     */
+    public LoadMix add(int weight, Function<ThreadLocalRandom, HttpRequest> request) {
+        total += weight;
+        requests.add(request);
+        bounds.add(total);
+        return this;
+    }
+
+    @Override
+    public HttpRequest apply(ThreadLocalRandom random) {
+        var value = random.nextInt(total);
+        for (int i = 0; i < bounds.size(); i++) {
+            if (value < bounds.get(i)) {
+                return requests.get(i).apply(random);
+            }
+        }
+        throw new IllegalStateException("Empty load mix");
+    }
+}
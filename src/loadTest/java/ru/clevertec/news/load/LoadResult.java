@@ -0,0 +1,48 @@
+package ru.clevertec.news.load;
+
+import java.util.Locale;
+
+/**
+ * Результат одного прогона нагрузки.
+ *
+ * @param name                    название прогона
+ * @param requests                количество выполненных запросов
+ * @param errors                  количество запросов, завершившихся ошибкой или статусом не 2xx
+ * @param throughput              запросов в секунду
+ * @param p50Micros               медиана задержки, мкс
+ * @param p99Micros               99-й перцентиль задержки, мкс
+ * @param statementsPerRequest    SQL-запросов на запрос
+ * @param redisCommandsPerRequest команд Redis на запрос
+ */
+public record LoadResult(String name, long requests, long errors, double throughput, long p50Micros, long p99Micros,
+                         double statementsPerRequest, double redisCommandsPerRequest) {
+
+    public static final String CSV_HEADER = "name,requests,errors,throughput,p50_ms,p99_ms,statements_per_request,redis_commands_per_request";
+
+    /**
+     * Возвращает долю запросов, завершившихся ошибкой.
+     *
+     * @return доля ошибок от 0 до 1
+     */
+    public double errorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    /**
+     * Возвращает результат строкой CSV в формате {@link #CSV_HEADER}.
+     *
+     * @return строка CSV
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.3f,%.3f,%.2f,%.2f", name, requests, errors, throughput,
+                p50Micros / 1000.0, p99Micros / 1000.0, statementsPerRequest, redisCommandsPerRequest);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%-40s %9d req %8.1f req/s  p50 %8.2f ms  p99 %8.2f ms  sql/req %5.2f  redis/req %5.2f  errors %d",
+                name, requests, throughput, p50Micros / 1000.0, p99Micros / 1000.0,
+                statementsPerRequest, redisCommandsPerRequest, errors);
+    }
+}
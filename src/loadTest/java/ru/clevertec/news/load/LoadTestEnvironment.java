@@ -0,0 +1,127 @@
+package ru.clevertec.news.load;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.clevertec.news.CommentsApp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Окружение нагрузочных тестов: контейнеры PostgreSQL и Redis и запуск приложения на случайном порту.
+ */
+@UtilityClass
+public class LoadTestEnvironment {
+
+    private static final PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15.1-alpine");
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+    /**
+     * Запускает приложение с заданными свойствами поверх общих контейнеров.
+     * Схема и содержимое Redis создаются заново при каждом запуске.
+     *
+     * @param properties дополнительные свойства приложения
+     * @return контекст приложения
+     */
+    @SneakyThrows
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        postgreSQLContainer.start();
+        redisContainer.start();
+        redisContainer.execInContainer("redis-cli", "flushall");
+        var defaults = new HashMap<String, Object>();
+        defaults.put("server.port", 0);
+        defaults.put("spring.cloud.config.enabled", false);
+        defaults.put("spring.datasource.url", postgreSQLContainer.getJdbcUrl());
+        defaults.put("spring.datasource.username", postgreSQLContainer.getUsername());
+        defaults.put("spring.datasource.password", postgreSQLContainer.getPassword());
+        defaults.put("spring.jpa.properties.hibernate.generate_statistics", true);
+        defaults.put("spring.redis.host", redisContainer.getHost());
+        defaults.put("spring.redis.port", redisContainer.getMappedPort(6379));
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(CommentsApp.class)
+                .properties(defaults)
+                .run();
+    }
+
+    /**
+     * Заполняет таблицу комментариев одним запросом на стороне базы.
+     *
+     * @param context         контекст приложения
+     * @param news            количество новостей
+     * @param commentsPerNews количество комментариев на новость
+     * @return идентификаторы созданных комментариев и их новостей
+     */
+    public static Seed seed(ConfigurableApplicationContext context, int news, int commentsPerNews) {
+        var jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("""
+                insert into comment (news_id, time, username, text)
+                select n % ? + 1, now() - n * interval '1 second', 'user' || n % 1000, 'comment text number ' || n
+                from generate_series(1, ?) n
+                """, news, news * commentsPerNews);
+        jdbcTemplate.execute("analyze comment");
+        var rows = jdbcTemplate.queryForList("select id, news_id from comment");
+        var ids = new long[rows.size()];
+        var newsIds = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = ((Number) rows.get(i).get("id")).longValue();
+            newsIds[i] = ((Number) rows.get(i).get("news_id")).longValue();
+        }
+        return new Seed(ids, newsIds, news);
+    }
+
+    /**
+     * Созданные комментарии: {@code newsIds[i]} — новость комментария {@code ids[i]}.
+     *
+     * @param ids     идентификаторы комментариев
+     * @param newsIds идентификаторы новостей комментариев
+     * @param news    количество новостей
+     */
+    public record Seed(long[] ids, long[] newsIds, int news) {
+    }
+
+    /**
+     * Возвращает количество SQL-запросов, подготовленных приложением с момента запуска.
+     *
+     * @param context контекст приложения
+     * @return количество запросов
+     */
+    public static long statements(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics()
+                .getPrepareStatementCount();
+    }
+
+    /**
+     * Возвращает количество команд, обработанных Redis с момента запуска контейнера.
+     *
+     * @return количество команд
+     */
+    @SneakyThrows
+    public static long redisCommands() {
+        var info = redisContainer.execInContainer("redis-cli", "info", "stats").getStdout();
+        return info.lines()
+                .filter(line -> line.startsWith("total_commands_processed:"))
+                .mapToLong(line -> Long.parseLong(line.substring(line.indexOf(':') + 1).trim()))
+                .findFirst()
+                .orElse(0);
+    }
+
+    /**
+     * Возвращает базовый адрес запущенного приложения.
+     *
+     * @param context контекст приложения
+     * @return адрес вида {@code http://localhost:port}
+     */
+    public static String baseUrl(ConfigurableApplicationContext context) {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+}
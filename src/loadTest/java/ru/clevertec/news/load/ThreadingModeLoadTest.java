@@ -0,0 +1,55 @@
+package ru.clevertec.news.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение обработки запросов на потоках платформы и на виртуальных потоках.
+ * <p>
+ * Кэш Redis отключен, чтобы каждый запрос выполнял блокирующий запрос к базе. Количество клиентов больше
+ * размера пула потоков Tomcat, поэтому в режиме потоков платформы запросы ожидают свободный поток.
+ * Параметры задаются системными свойствами {@code load.clients}, {@code load.tomcat-threads},
+ * {@code load.warmup} и {@code load.duration}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class ThreadingModeLoadTest {
+
+    private static final int NEWS = 100;
+    private static final int COMMENTS_PER_NEWS = 200;
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 400);
+    private static final int TOMCAT_THREADS = Integer.getInteger("load.tomcat-threads", 50);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+    @Test
+    void compareThreadingModesOnCommentEndpoints() {
+        var results = new ArrayList<LoadResult>();
+        for (var virtual : List.of(false, true)) {
+            var mode = virtual ? "virtual" : "platform";
+            try (var context = LoadTestEnvironment.start(Map.of(
+                    "spring.threads.virtual.enabled", virtual,
+                    "server.tomcat.threads.max", TOMCAT_THREADS,
+                    "cache.redis.enabled", false))) {
+                var ids = LoadTestEnvironment.seed(context, NEWS, COMMENTS_PER_NEWS).ids();
+                var baseUrl = LoadTestEnvironment.baseUrl(context);
+
+                results.add(LoadGenerator.run(mode + " GET /api/comments/{id}", context, CLIENTS, WARMUP, DURATION,
+                        random -> LoadGenerator.get(baseUrl, "/api/comments/" + ids[random.nextInt(ids.length)])));
+                results.add(LoadGenerator.run(mode + " GET /api/comments/newsId/{id}", context, CLIENTS, WARMUP, DURATION,
+                        random -> LoadGenerator.get(baseUrl, "/api/comments/newsId/" + (random.nextInt(NEWS) + 1))));
+            }
+        }
+
+        results.forEach(System.out::println);
+        results.forEach(result -> assertTrue(result.errorRate() < 0.01, result::toString));
+    }
+}
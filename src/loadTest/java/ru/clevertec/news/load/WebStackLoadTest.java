@@ -0,0 +1,60 @@
+package ru.clevertec.news.load;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение блокирующего стека (Tomcat, JPA) и реактивного стека (профиль {@code reactive}: Netty, R2DBC).
+ * <p>
+ * Количество клиентов больше размера пула потоков Tomcat. После каждого прогона выводятся количество живых
+ * потоков и занятая куча приложения, чтобы сравнить стоимость одновременного соединения. Количество SQL-запросов
+ * на запрос считается по статистике Hibernate, поэтому для реактивного стека оно равно нулю.
+ * Параметры задаются системными свойствами {@code load.clients}, {@code load.warmup} и {@code load.duration}.
+ */
+public class WebStackLoadTest {
+
+    private static final int NEWS = 100;
+    private static final int COMMENTS_PER_NEWS = 200;
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 1000);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+    @Test
+    void compareWebStacksOnCommentEndpoints() {
+        var results = new ArrayList<LoadResult>();
+        for (var profile : List.of("default", "reactive")) {
+            try (var context = LoadTestEnvironment.start(Map.of("spring.profiles.active", profile))) {
+                var ids = LoadTestEnvironment.seed(context, NEWS, COMMENTS_PER_NEWS).ids();
+                var baseUrl = LoadTestEnvironment.baseUrl(context);
+
+                results.add(LoadGenerator.run(profile + " GET /api/comments/{id}", context, CLIENTS, WARMUP, DURATION,
+                        random -> LoadGenerator.get(baseUrl, "/api/comments/" + ids[random.nextInt(ids.length)])));
+                results.add(LoadGenerator.run(profile + " GET /api/comments/newsId/{id}", context, CLIENTS, WARMUP, DURATION,
+                        random -> LoadGenerator.get(baseUrl, "/api/comments/newsId/" + (random.nextInt(NEWS) + 1))));
+                printResources(profile, context);
+            }
+        }
+
+        results.forEach(System.out::println);
+        results.forEach(result -> assertTrue(result.errorRate() < 0.01, result::toString));
+    }
+
+    private static void printResources(String profile, ConfigurableApplicationContext context) {
+        var registry = context.getBean(MeterRegistry.class);
+        var threads = registry.get("jvm.threads.live").gauge().value();
+        var heap = registry.get("jvm.memory.used").tags(List.of(Tag.of("area", "heap"))).gauges().stream()
+                .mapToDouble(gauge -> gauge.value())
+                .sum();
+        System.out.printf("%s: clients=%d, live threads=%.0f, heap used=%.1f MB%n", profile, CLIENTS, threads, heap / (1024 * 1024));
+    }
+}
@@ -2,11 +2,16 @@ package ru.clevertec.news;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+/**
+ * Автоконфигурация R2DBC отключена: пул соединений R2DBC для профиля {@code reactive} создает
+ * {@link ru.clevertec.news.config.ReactiveConfig}, не регистрируя его как бин, чтобы не отключить источник данных JDBC.
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class CommentsApp {
 
     public static void main(String[] args) {
         SpringApplication.run(CommentsApp.class, args);
     }
-}
\ No newline at end of file
+}
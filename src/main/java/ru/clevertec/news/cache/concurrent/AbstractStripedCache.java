@@ -0,0 +1,256 @@
+package ru.clevertec.news.cache.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Основа потокобезопасного кэша с разделением на сегменты (lock striping).
+ * <p>
+ * Ключ попадает в сегмент по своему хэшу, каждый сегмент защищен собственной блокировкой и вытесняет
+ * записи независимо. Поэтому алгоритм вытеснения точен внутри сегмента и приблизителен для кэша в целом,
+ * а вместимость кэша может быть превышена не более чем на количество сегментов. Чтобы это превышение оставалось
+ * малым и для небольших кэшей, используется не больше сегментов, чем по {@value #MIN_SEGMENT_CAPACITY} записей
+ * вместимости на сегмент; остальные сегменты пустуют.
+ * <p>
+ * Удаление, очистка и смена количества сегментов увеличивают номер эпохи кэша. Значение, прочитанное
+ * из источника до такого изменения, записывается через {@link #fill(Object, Object, long)} и отбрасывается,
+ * чтобы загрузка, начатая до удаления, не вернула в кэш удаленное значение.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public abstract class AbstractStripedCache<K, V> implements LoadingCache<K, V> {
+
+    /**
+     * Сегмент кэша. Методы вызываются под блокировкой сегмента.
+     */
+    protected interface Segment<K, V> {
+
+        V get(K key);
+
+        void put(K key, V value);
+
+        boolean putIfAbsent(K key, V value);
+
+        void remove(K key);
+
+        int size();
+
+        void clear();
+
+        void capacity(int capacity);
+
+        /**
+         * Возвращает количество записей, вытесненных сегментом.
+         */
+        long evictions();
+    }
+
+    /**
+     * Наименьшая вместимость сегмента, при которой кэш использует больше одного сегмента.
+     */
+    public static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment<K, V>[] segments;
+    private final ReentrantLock[] locks;
+    private volatile int mask;
+    private final AtomicLong epoch = new AtomicLong();
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    protected AbstractStripedCache(int concurrencyLevel, Supplier<Segment<K, V>> segmentFactory) {
+        var stripes = 1;
+        while (stripes < concurrencyLevel) {
+            stripes <<= 1;
+        }
+        segments = new Segment[stripes];
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            segments[i] = segmentFactory.get();
+            locks[i] = new ReentrantLock();
+        }
+        mask = stripes - 1;
+    }
+
+    @Override
+    public V get(K key) {
+        var value = lookup(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    private V lookup(K key) {
+        var index = lock(key);
+        try {
+            return segments[index].get(key);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        puts.increment();
+        var index = lock(key);
+        try {
+            segments[index].put(key, value);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        var index = lock(key);
+        try {
+            segments[index].remove(key);
+            epoch.incrementAndGet();
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        var size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].clear();
+                epoch.incrementAndGet();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Выбирает количество используемых сегментов по вместимости и распределяет ее между ними поровну
+     * с округлением вверх. Если количество используемых сегментов изменилось, кэш очищается.
+     */
+    @Override
+    public void capacity(int capacity) {
+        var stripes = Math.min(segments.length, Integer.highestOneBit(Math.max(1, capacity / MIN_SEGMENT_CAPACITY)));
+        var segmentCapacity = Math.max(1, (capacity + stripes - 1) / stripes);
+        for (var lock : locks) {
+            lock.lock();
+        }
+        try {
+            var resized = mask != stripes - 1;
+            if (resized) {
+                epoch.incrementAndGet();
+            }
+            for (int i = 0; i < segments.length; i++) {
+                if (resized) {
+                    segments[i].clear();
+                }
+                segments[i].capacity(i < stripes ? segmentCapacity : 0);
+            }
+            mask = stripes - 1;
+        } finally {
+            for (var lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Загружает значение вне блокировки сегмента, объединяя параллельные промахи по одному ключу.
+     * Загруженное значение не перезаписывает значение, записанное в кэш во время загрузки,
+     * и не кэшируется, если во время загрузки из кэша удалялись значения.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        var value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return singleFlight.load(key, k -> {
+            var stamp = epoch.get();
+            var cached = lookup(k);
+            if (cached != null) {
+                return cached;
+            }
+            V loaded = loader.apply(k);
+            if (loaded == null || fill(k, loaded, stamp)) {
+                return loaded;
+            }
+            var current = lookup(k);
+            return current != null ? current : loaded;
+        });
+    }
+
+    @Override
+    public long epoch() {
+        return epoch.get();
+    }
+
+    @Override
+    public boolean fill(K key, V value, long epoch) {
+        puts.increment();
+        var index = lock(key);
+        try {
+            return this.epoch.get() == epoch && segments[index].putIfAbsent(key, value);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        var evictions = 0L;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                evictions += segments[i].evictions();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), puts.sum(), evictions);
+    }
+
+    /**
+     * Блокирует сегмент ключа. Если количество используемых сегментов изменилось во время ожидания блокировки,
+     * сегмент выбирается заново.
+     */
+    private int lock(K key) {
+        while (true) {
+            var index = index(key);
+            locks[index].lock();
+            if (index == index(key)) {
+                return index;
+            }
+            locks[index].unlock();
+        }
+    }
+
+    private int index(K key) {
+        var hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
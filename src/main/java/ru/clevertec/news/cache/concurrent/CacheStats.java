@@ -0,0 +1,12 @@
+package ru.clevertec.news.cache.concurrent;
+
+/**
+ * Статистика обращений к кэшу.
+ *
+ * @param hitCount      количество попаданий
+ * @param missCount     количество промахов
+ * @param putCount      количество записей
+ * @param evictionCount количество вытесненных записей
+ */
+public record CacheStats(long hitCount, long missCount, long putCount, long evictionCount) {
+}
@@ -0,0 +1,152 @@
+package ru.clevertec.news.cache.concurrent;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Потокобезопасный кэш с вытеснением редко используемых записей (LFU) внутри каждого сегмента.
+ * Среди записей с одинаковой частотой вытесняется самая давняя.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class ConcurrentCacheLfu<K, V> extends AbstractStripedCache<K, V> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    public ConcurrentCacheLfu() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentCacheLfu(int concurrencyLevel) {
+        super(concurrencyLevel, LfuSegment::new);
+    }
+
+    /**
+     * Сегмент с операциями за O(1): значения с частотами и списки ключей по частоте.
+     */
+    private static class LfuSegment<K, V> implements Segment<K, V> {
+
+        private final Map<K, Node<V>> nodes = new HashMap<>();
+        private final Map<Integer, LinkedHashSet<K>> frequencies = new HashMap<>();
+        private int capacity = Integer.MAX_VALUE;
+        private int minFrequency;
+        private long evictions;
+
+        private static class Node<V> {
+
+            private V value;
+            private int frequency = 1;
+
+            Node(V value) {
+                this.value = value;
+            }
+        }
+
+        @Override
+        public V get(K key) {
+            var node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            touch(key, node);
+            return node.value;
+        }
+
+        @Override
+        public void put(K key, V value) {
+            var node = nodes.get(key);
+            if (node != null) {
+                node.value = value;
+                touch(key, node);
+                return;
+            }
+            insert(key, value);
+        }
+
+        @Override
+        public boolean putIfAbsent(K key, V value) {
+            if (nodes.containsKey(key)) {
+                return false;
+            }
+            insert(key, value);
+            return true;
+        }
+
+        @Override
+        public void remove(K key) {
+            var node = nodes.remove(key);
+            if (node != null) {
+                unlink(key, node.frequency);
+            }
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+
+        @Override
+        public void clear() {
+            nodes.clear();
+            frequencies.clear();
+            minFrequency = 0;
+        }
+
+        @Override
+        public void capacity(int capacity) {
+            this.capacity = capacity;
+            while (nodes.size() > capacity) {
+                evict();
+            }
+        }
+
+        @Override
+        public long evictions() {
+            return evictions;
+        }
+
+        private void insert(K key, V value) {
+            if (nodes.size() >= capacity) {
+                evict();
+            }
+            nodes.put(key, new Node<>(value));
+            frequencies.computeIfAbsent(1, f -> new LinkedHashSet<>()).add(key);
+            minFrequency = 1;
+        }
+
+        private void touch(K key, Node<V> node) {
+            var frequency = node.frequency;
+            unlink(key, frequency);
+            if (minFrequency == frequency && !frequencies.containsKey(frequency)) {
+                minFrequency = frequency + 1;
+            }
+            node.frequency = frequency + 1;
+            frequencies.computeIfAbsent(node.frequency, f -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void unlink(K key, int frequency) {
+            var keys = frequencies.get(frequency);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                frequencies.remove(frequency);
+            }
+        }
+
+        private void evict() {
+            var keys = frequencies.get(minFrequency);
+            if (keys == null) {
+                minFrequency = frequencies.keySet().stream().min(Integer::compare).orElse(0);
+                keys = frequencies.get(minFrequency);
+                if (keys == null) {
+                    return;
+                }
+            }
+            var eldest = keys.iterator().next();
+            nodes.remove(eldest);
+            unlink(eldest, minFrequency);
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.clevertec.news.cache.concurrent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Потокобезопасный кэш с вытеснением давно не использованных записей (LRU) внутри каждого сегмента.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class ConcurrentCacheLru<K, V> extends AbstractStripedCache<K, V> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    public ConcurrentCacheLru() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentCacheLru(int concurrencyLevel) {
+        super(concurrencyLevel, LruSegment::new);
+    }
+
+    /**
+     * Сегмент на основе {@link LinkedHashMap} в порядке доступа.
+     */
+    private static class LruSegment<K, V> implements Segment<K, V> {
+
+        private int capacity = Integer.MAX_VALUE;
+        private long evictions;
+
+        private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        @Override
+        public V get(K key) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public boolean putIfAbsent(K key, V value) {
+            return entries.putIfAbsent(key, value) == null;
+        }
+
+        @Override
+        public void remove(K key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+
+        @Override
+        public void capacity(int capacity) {
+            this.capacity = capacity;
+            var iterator = entries.entrySet().iterator();
+            while (entries.size() > capacity) {
+                iterator.next();
+                iterator.remove();
+                evictions++;
+            }
+        }
+
+        @Override
+        public long evictions() {
+            return evictions;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.clevertec.news.cache.concurrent;
+
+import ru.clevertec.news.cache.Cache;
+
+import java.util.function.Function;
+
+/**
+ * Потокобезопасный кэш с загрузкой значения при промахе.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public interface LoadingCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Возвращает значение из кэша, а при промахе загружает его функцией {@code loader} и кэширует.
+     * Параллельные промахи по одному ключу выполняют одну загрузку и получают ее результат или исключение.
+     *
+     * @param key    ключ
+     * @param loader функция загрузки значения
+     * @return значение
+     */
+    V computeIfAbsent(K key, Function<? super K, ? extends V> loader);
+
+    /**
+     * Возвращает номер эпохи кэша. Номер увеличивается при каждом удалении и очистке; его сохраняют
+     * до чтения значения из источника и передают в {@link #fill(Object, Object, long)}.
+     *
+     * @return номер эпохи
+     */
+    long epoch();
+
+    /**
+     * Записывает прочитанное из источника значение, если ключа еще нет в кэше и эпоха не изменилась
+     * с начала чтения. Иначе значение могло устареть и отбрасывается.
+     *
+     * @param key   ключ
+     * @param value значение
+     * @param epoch номер эпохи, полученный до начала чтения
+     * @return {@code true}, если значение записано
+     */
+    boolean fill(K key, V value, long epoch);
+
+    /**
+     * Возвращает статистику обращений к кэшу с момента его создания.
+     *
+     * @return статистика кэша
+     */
+    CacheStats stats();
+}
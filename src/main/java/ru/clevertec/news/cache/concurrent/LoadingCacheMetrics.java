@@ -0,0 +1,45 @@
+package ru.clevertec.news.cache.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Публикует статистику {@link LoadingCache} стандартными метриками кэша Micrometer:
+ * {@code cache.gets}, {@code cache.puts}, {@code cache.evictions} и {@code cache.size} с тегом {@code cache}.
+ */
+public class LoadingCacheMetrics extends CacheMeterBinder<LoadingCache<?, ?>> {
+
+    public LoadingCacheMetrics(LoadingCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+    }
+
+    @Override
+    protected Long size() {
+        return (long) getCache().size();
+    }
+
+    @Override
+    protected long hitCount() {
+        return getCache().stats().hitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return getCache().stats().missCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return getCache().stats().evictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return getCache().stats().putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+    }
+}
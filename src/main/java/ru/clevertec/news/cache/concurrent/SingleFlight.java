@@ -0,0 +1,98 @@
+package ru.clevertec.news.cache.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Объединение параллельных загрузок по одному ключу: пока загрузка выполняется,
+ * остальные вызовы с тем же ключом ожидают ее результат вместо повторной загрузки.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * Выполняет загрузку значения по ключу или присоединяется к уже выполняющейся загрузке.
+     *
+     * @param key    ключ
+     * @param loader функция загрузки значения
+     * @return загруженное значение
+     */
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        var future = new CompletableFuture<V>();
+        var existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+        loads.increment();
+        try {
+            V value = loader.apply(key);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Отсоединяет выполняющуюся загрузку по ключу: последующие вызовы начнут новую загрузку,
+     * а уже ожидающие получат результат текущей.
+     *
+     * @param key ключ
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Отсоединяет все выполняющиеся загрузки.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * Возвращает количество выполненных загрузок.
+     *
+     * @return количество загрузок
+     */
+    public long loads() {
+        return loads.sum();
+    }
+
+    /**
+     * Возвращает количество вызовов, присоединившихся к уже выполняющейся загрузке.
+     *
+     * @return количество объединенных вызовов
+     */
+    public long collapsed() {
+        return collapsed.sum();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package ru.clevertec.news.cache.offheap;
+
+import ru.clevertec.news.cache.concurrent.AbstractStripedCache;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Кэш с ключами {@code long}, хранящий сериализованные значения вне кучи.
+ * <p>
+ * Каждый сегмент выделяет при задании вместимости три буфера вне кучи: записи фиксированного размера
+ * (ключ, признак обращения, длина и данные значения), индекс с открытой адресацией и стек свободных записей.
+ * Ключи хранятся примитивами, в куче не остается объектов на запись, поэтому расход кучи не зависит
+ * от вместимости. Вытеснение выполняется алгоритмом CLOCK. Значение, которое после сериализации
+ * не помещается в {@code maxEntrySize} байт, не кэшируется. При изменении вместимости содержимое кэша сбрасывается.
+ *
+ * @param <V> тип значения
+ */
+public class OffHeapCache<V> extends AbstractStripedCache<Long, V> {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    public OffHeapCache(int concurrencyLevel, int maxEntrySize, ValueCodec<V> codec) {
+        super(concurrencyLevel, () -> new OffHeapSegment<>(maxEntrySize, codec));
+    }
+
+    public OffHeapCache(int maxEntrySize, ValueCodec<V> codec) {
+        this(DEFAULT_CONCURRENCY_LEVEL, maxEntrySize, codec);
+    }
+
+    /**
+     * Сегмент кэша вне кучи.
+     */
+    private static class OffHeapSegment<V> implements Segment<Long, V> {
+
+        private static final int KEY_OFFSET = 0;
+        private static final int STATE_OFFSET = 8;
+        private static final int LENGTH_OFFSET = 9;
+        private static final int HEADER_SIZE = 13;
+
+        private static final byte FREE = 0;
+        private static final byte OCCUPIED = 1;
+        private static final byte REFERENCED = 2;
+
+        private static final int EMPTY = 0;
+
+        private final int maxEntrySize;
+        private final int slotSize;
+        private final ValueCodec<V> codec;
+
+        private ByteBuffer slots;
+        private ByteBuffer index;
+        private ByteBuffer freeSlots;
+        private int capacity;
+        private int mask;
+        private int size;
+        private int allocated;
+        private int freeCount;
+        private int hand;
+        private long evictions;
+
+        OffHeapSegment(int maxEntrySize, ValueCodec<V> codec) {
+            this.maxEntrySize = maxEntrySize;
+            this.slotSize = HEADER_SIZE + maxEntrySize;
+            this.codec = codec;
+        }
+
+        @Override
+        public V get(Long key) {
+            var slot = find(key);
+            if (slot < 0) {
+                return null;
+            }
+            var offset = offset(slot);
+            slots.put(offset + STATE_OFFSET, REFERENCED);
+            var length = slots.getInt(offset + LENGTH_OFFSET);
+            return codec.decode(slots.slice(offset + HEADER_SIZE, length));
+        }
+
+        @Override
+        public void put(Long key, V value) {
+            var slot = find(key);
+            if (slot >= 0) {
+                if (!write(slot, value)) {
+                    remove(key);
+                } else {
+                    slots.put(offset(slot) + STATE_OFFSET, REFERENCED);
+                }
+                return;
+            }
+            insert(key, value);
+        }
+
+        @Override
+        public boolean putIfAbsent(Long key, V value) {
+            if (find(key) >= 0) {
+                return false;
+            }
+            insert(key, value);
+            return true;
+        }
+
+        @Override
+        public void remove(Long key) {
+            var position = position(key);
+            var slot = index.getInt(position * Integer.BYTES) - 1;
+            if (slot < 0) {
+                return;
+            }
+            deleteFromIndex(position);
+            slots.put(offset(slot) + STATE_OFFSET, FREE);
+            freeSlots.putInt(freeCount++ * Integer.BYTES, slot);
+            size--;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            if (capacity == 0) {
+                return;
+            }
+            for (int i = 0; i <= mask; i++) {
+                index.putInt(i * Integer.BYTES, EMPTY);
+            }
+            for (int slot = 0; slot < allocated; slot++) {
+                slots.put(offset(slot) + STATE_OFFSET, FREE);
+            }
+            size = 0;
+            allocated = 0;
+            freeCount = 0;
+            hand = 0;
+        }
+
+        @Override
+        public void capacity(int capacity) {
+            if ((long) capacity * slotSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Off-heap cache segment exceeds 2 GB: reduce capacity or entry size");
+            }
+            var tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+            this.capacity = capacity;
+            this.mask = tableSize - 1;
+            this.slots = ByteBuffer.allocateDirect(capacity * slotSize);
+            this.index = ByteBuffer.allocateDirect(tableSize * Integer.BYTES);
+            this.freeSlots = ByteBuffer.allocateDirect(capacity * Integer.BYTES);
+            this.size = 0;
+            this.allocated = 0;
+            this.freeCount = 0;
+            this.hand = 0;
+        }
+
+        @Override
+        public long evictions() {
+            return evictions;
+        }
+
+        private void insert(long key, V value) {
+            if (capacity == 0) {
+                return;
+            }
+            var slot = acquireSlot();
+            if (!write(slot, value)) {
+                freeSlots.putInt(freeCount++ * Integer.BYTES, slot);
+                return;
+            }
+            var offset = offset(slot);
+            slots.putLong(offset + KEY_OFFSET, key);
+            slots.put(offset + STATE_OFFSET, OCCUPIED);
+            index.putInt(position(key) * Integer.BYTES, slot + 1);
+            size++;
+        }
+
+        private boolean write(int slot, V value) {
+            var offset = offset(slot);
+            var target = slots.slice(offset + HEADER_SIZE, maxEntrySize);
+            try {
+                codec.encode(value, target);
+            } catch (BufferOverflowException e) {
+                return false;
+            }
+            slots.putInt(offset + LENGTH_OFFSET, target.position());
+            return true;
+        }
+
+        private int acquireSlot() {
+            if (freeCount > 0) {
+                return freeSlots.getInt(--freeCount * Integer.BYTES);
+            }
+            if (allocated < capacity) {
+                return allocated++;
+            }
+            evict();
+            return freeSlots.getInt(--freeCount * Integer.BYTES);
+        }
+
+        /**
+         * Вытесняет запись алгоритмом CLOCK: стрелка снимает признак обращения с записей
+         * и вытесняет первую запись без него.
+         */
+        private void evict() {
+            while (true) {
+                var offset = offset(hand);
+                hand = (hand + 1) % capacity;
+                var state = slots.get(offset + STATE_OFFSET);
+                if (state == REFERENCED) {
+                    slots.put(offset + STATE_OFFSET, OCCUPIED);
+                } else if (state == OCCUPIED) {
+                    remove(slots.getLong(offset + KEY_OFFSET));
+                    evictions++;
+                    return;
+                }
+            }
+        }
+
+        private int find(long key) {
+            if (capacity == 0) {
+                return -1;
+            }
+            return index.getInt(position(key) * Integer.BYTES) - 1;
+        }
+
+        /**
+         * Возвращает позицию ключа в индексе или первую пустую позицию его цепочки проб.
+         */
+        private int position(long key) {
+            var position = home(key);
+            while (true) {
+                var slot = index.getInt(position * Integer.BYTES) - 1;
+                if (slot < 0 || slots.getLong(offset(slot) + KEY_OFFSET) == key) {
+                    return position;
+                }
+                position = (position + 1) & mask;
+            }
+        }
+
+        /**
+         * Удаляет позицию из индекса со сдвигом последующих элементов цепочки проб назад.
+         */
+        private void deleteFromIndex(int position) {
+            var hole = position;
+            var next = position;
+            while (true) {
+                next = (next + 1) & mask;
+                var entry = index.getInt(next * Integer.BYTES);
+                if (entry == EMPTY) {
+                    break;
+                }
+                var home = home(slots.getLong(offset(entry - 1) + KEY_OFFSET));
+                var shift = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+                if (shift) {
+                    index.putInt(hole * Integer.BYTES, entry);
+                    hole = next;
+                }
+            }
+            index.putInt(hole * Integer.BYTES, EMPTY);
+        }
+
+        private int home(long key) {
+            var hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private int offset(int slot) {
+            return slot * slotSize;
+        }
+    }
+}
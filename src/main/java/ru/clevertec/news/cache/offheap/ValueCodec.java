@@ -0,0 +1,28 @@
+package ru.clevertec.news.cache.offheap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Сериализация значений кэша вне кучи.
+ *
+ * @param <V> тип значения
+ */
+public interface ValueCodec<V> {
+
+    /**
+     * Записывает значение в буфер, начиная с его текущей позиции.
+     *
+     * @param value  значение
+     * @param target буфер
+     * @throws java.nio.BufferOverflowException если значение не помещается в буфер
+     */
+    void encode(V value, ByteBuffer target);
+
+    /**
+     * Читает значение из буфера, начиная с его текущей позиции.
+     *
+     * @param source буфер
+     * @return значение
+     */
+    V decode(ByteBuffer source);
+}
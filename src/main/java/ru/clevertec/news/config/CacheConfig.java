@@ -1,14 +1,19 @@
 package ru.clevertec.news.config;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
-import ru.clevertec.news.cache.Cache;
-import ru.clevertec.news.cache.impl.CacheLfu;
-import ru.clevertec.news.cache.impl.CacheLru;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLfu;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLru;
+import ru.clevertec.news.cache.concurrent.LoadingCache;
+import ru.clevertec.news.cache.concurrent.LoadingCacheMetrics;
+import ru.clevertec.news.cache.offheap.OffHeapCache;
 import ru.clevertec.news.dto.CommentDto;
 import ru.clevertec.news.exception.CacheNotFoundException;
+import ru.clevertec.news.service.cache.CommentDtoCodec;
 import ru.clevertec.news.service.proxy.CommentProxyService;
 
 import static ru.clevertec.news.constant.Variable.LFU;
@@ -21,6 +26,11 @@ import static ru.clevertec.news.constant.Variable.LRU;
 @Profile("dev")
 public class CacheConfig {
 
+    /**
+     * Алгоритм кэширования вне кучи.
+     */
+    public static final String OFF_HEAP = "OFFHEAP";
+
     /**
      * Алгоритм кэширования.
      */
@@ -34,38 +44,33 @@ public class CacheConfig {
     private int capacity;
 
     /**
-     * Возвращает кэш LRU.
-     *
-     * @return кэш LRU.
+     * Количество сегментов кэша с независимыми блокировками.
      */
-    @Bean
-    public Cache<Long, CommentDto> getLruCache() {
-        return new CacheLru<>();
-    }
+    @Value("${cache.concurrency-level:16}")
+    private int concurrencyLevel;
 
     /**
-     * Возвращает кэш LFU.
-     *
-     * @return кэш LFU.
+     * Максимальный размер сериализованного комментария в кэше вне кучи, байт.
      */
-    @Bean
-    public Cache<Long, CommentDto> getLfuCache() {
-        return new CacheLfu<>();
-    }
+    @Value("${cache.offheap.max-entry-size:1024}")
+    private int maxEntrySize;
 
     /**
-     * Возвращает кэш в зависимости от выбранного алгоритма.
+     * Возвращает кэш в зависимости от выбранного алгоритма. Создается только выбранная реализация:
+     * кэш вне кучи выделяет память при задании вместимости.
      *
      * @return кэш.
      * @throws CacheNotFoundException если выбран некорректный алгоритм кэширования.
      */
     @Bean
-    public Cache<Long, CommentDto> cache() {
-        Cache<Long, CommentDto> cache;
+    public LoadingCache<Long, CommentDto> cache() {
+        LoadingCache<Long, CommentDto> cache;
         if (algorithm.equals(LFU)) {
-            cache = getLfuCache();
+            cache = new ConcurrentCacheLfu<>(concurrencyLevel);
         } else if (algorithm.equals(LRU)) {
-            cache = getLruCache();
+            cache = new ConcurrentCacheLru<>(concurrencyLevel);
+        } else if (algorithm.equals(OFF_HEAP)) {
+            cache = new OffHeapCache<>(concurrencyLevel, maxEntrySize, new CommentDtoCodec());
         } else {
             throw new CacheNotFoundException();
         }
@@ -73,6 +78,16 @@ public class CacheConfig {
         return cache;
     }
 
+    /**
+     * Возвращает метрики попаданий, промахов и вытеснений кэша комментариев.
+     *
+     * @return метрики кэша.
+     */
+    @Bean
+    public MeterBinder commentCacheMetrics() {
+        return new LoadingCacheMetrics(cache(), "comments", Tags.empty());
+    }
+
     /**
      * Возвращает сервис прокси для работы с CommentDto.
      *
@@ -0,0 +1,55 @@
+package ru.clevertec.news.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.clevertec.news.metrics.StatementCountingInspector;
+
+/**
+ * Класс, который отвечает за настройку Hibernate.
+ */
+@Configuration
+public class JpaConfig {
+
+    /**
+     * Размер JDBC-пакета для вставки и обновления.
+     */
+    @Value("${jpa.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Включает пакетную отправку insert/update запросов с упорядочиванием по сущностям.
+     *
+     * @return настройщик свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+
+    /**
+     * Проверяет при запуске, что схема, созданная миграциями, соответствует сущностям.
+     *
+     * @return настройщик свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer schemaValidationCustomizer() {
+        return properties -> properties.put(AvailableSettings.HBM2DDL_AUTO, "validate");
+    }
+
+    /**
+     * Подключает подсчет SQL-запросов для метрики количества запросов на HTTP-запрос.
+     *
+     * @return настройщик свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+    }
+}
@@ -0,0 +1,26 @@
+package ru.clevertec.news.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Класс, который отвечает за настройку метрик.
+ * <p>
+ * Метрики публикуются через actuator, в формате Prometheus — на {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Включает таймеры методов, отмеченных {@link io.micrometer.core.annotation.Timed}.
+     *
+     * @param meterRegistry реестр метрик
+     * @return аспект таймеров
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.clevertec.news.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+
+/**
+ * Реактивный стек для профиля {@code reactive}: сервер Netty, R2DBC и реактивный клиент Redis (Lettuce).
+ * <p>
+ * Пул соединений R2DBC и фабрика соединений Lettuce не регистрируются как бины: бин {@code ConnectionFactory}
+ * отключил бы автоконфигурацию источника данных JDBC, второй бин {@code RedisConnectionFactory} — шаблоны Redis
+ * на Jedis, а бин {@code ReactiveTransactionManager} — менеджер транзакций JPA. JPA, Flyway и фоновые задачи
+ * продолжают работать через JDBC, поэтому оба пула соединений открыты к основной базе.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+    private LettuceConnectionFactory lettuceConnectionFactory;
+
+    /**
+     * Сервер Netty. Объявлен явно, так как при наличии Tomcat в classpath Spring Boot запускает реактивное
+     * приложение на Tomcat.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Клиент R2DBC. Адрес базы задается свойством {@code spring.r2dbc.url}, по умолчанию выводится
+     * из {@code spring.datasource.url} без параметров JDBC.
+     */
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${spring.r2dbc.url:}") String url,
+                                                 @Value("${spring.datasource.url}") String jdbcUrl,
+                                                 @Value("${spring.r2dbc.username:${spring.datasource.username}}") String username,
+                                                 @Value("${spring.r2dbc.password:${spring.datasource.password}}") String password,
+                                                 @Value("${spring.r2dbc.pool.max-size:20}") int maxSize,
+                                                 @Value("${spring.r2dbc.pool.max-acquire-time:PT5S}") Duration maxAcquireTime) {
+        var r2dbcUrl = url.isEmpty() ? jdbcUrl.replaceFirst("^jdbc:", "r2dbc:").replaceFirst("\\?.*$", "") : url;
+        var options = ConnectionFactoryOptions.parse(r2dbcUrl).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    /**
+     * Программное управление транзакциями R2DBC.
+     */
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(DatabaseClient reactiveDatabaseClient) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(reactiveDatabaseClient.getConnectionFactory()));
+    }
+
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate(@Value("${spring.redis.host}") String host,
+                                                                   @Value("${spring.redis.port}") int port) {
+        lettuceConnectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        lettuceConnectionFactory.afterPropertiesSet();
+        lettuceConnectionFactory.start();
+        return new ReactiveStringRedisTemplate(lettuceConnectionFactory);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+        if (lettuceConnectionFactory != null) {
+            lettuceConnectionFactory.destroy();
+        }
+    }
+}
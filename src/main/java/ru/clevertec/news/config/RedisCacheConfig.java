@@ -1,12 +1,28 @@
 package ru.clevertec.news.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.util.Pool;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
 
 @Configuration
 @Profile({"!dev"})
@@ -18,11 +34,83 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
     @Value("${spring.redis.host}")
     private String host;
 
+    /**
+     * Максимальное количество соединений в пуле Jedis. Не зависит от размера пула потоков Tomcat: с виртуальными
+     * потоками число одновременных запросов не ограничено, и пул ограничивает число соединений с Redis.
+     */
+    @Value("${cache.redis.pool.max-total:64}")
+    private int poolMaxTotal;
+
+    /**
+     * Максимальное время ожидания соединения из пула Jedis, после которого обращение к Redis завершается ошибкой.
+     */
+    @Value("${cache.redis.pool.max-wait:PT2S}")
+    private Duration poolMaxWait;
+
+    /**
+     * Пул соединений Jedis, созданный фабрикой соединений.
+     */
+    private final AtomicReference<Pool<Jedis>> jedisPool = new AtomicReference<>();
+
     @Bean
     public JedisConnectionFactory jedisConnectionFactory() {
         RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration();
         configuration.setHostName(host);
         configuration.setPort(port);
-        return new JedisConnectionFactory(configuration);
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(poolMaxTotal);
+        poolConfig.setMaxIdle(poolMaxTotal);
+        poolConfig.setMaxWait(poolMaxWait);
+        return new JedisConnectionFactory(configuration, JedisClientConfiguration.builder()
+                .usePooling()
+                .poolConfig(poolConfig)
+                .build()) {
+            @Override
+            protected Pool<Jedis> createRedisPool() {
+                Pool<Jedis> pool = super.createRedisPool();
+                jedisPool.set(pool);
+                return pool;
+            }
+        };
+    }
+
+    /**
+     * Публикует заполненность пула соединений Jedis: {@code jedis.pool.active}, {@code jedis.pool.idle},
+     * {@code jedis.pool.waiting} и {@code jedis.pool.max}.
+     *
+     * @return метрики пула соединений
+     */
+    @Bean
+    public MeterBinder jedisPoolMetrics() {
+        return registry -> {
+            gauge(registry, "jedis.pool.active", "Connections borrowed from the pool", Pool::getNumActive);
+            gauge(registry, "jedis.pool.idle", "Idle connections in the pool", Pool::getNumIdle);
+            gauge(registry, "jedis.pool.waiting", "Threads waiting for a connection", Pool::getNumWaiters);
+            gauge(registry, "jedis.pool.max", "Maximum number of connections", Pool::getMaxTotal);
+        };
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description,
+                       ToDoubleFunction<Pool<Jedis>> value) {
+        Gauge.builder(name, jedisPool, ref -> ref.get() == null ? 0 : value.applyAsDouble(ref.get()))
+                .description(description)
+                .register(registry);
+    }
+
+    /**
+     * Контейнер чтения Redis Streams. Используется для получения событий изменений комментариев всеми
+     * экземплярами сервиса; запускается при создании, так как сам контейнер не запускается автоматически.
+     */
+    @Bean(initMethod = "start")
+    public StreamMessageListenerContainer<String, MapRecord<String, String, String>> streamMessageListenerContainer(
+            JedisConnectionFactory jedisConnectionFactory, Environment environment) {
+        var options = StreamMessageListenerContainer.StreamMessageListenerContainerOptions.builder()
+                .pollTimeout(Duration.ofSeconds(1));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("redis-stream-");
+            executor.setVirtualThreads(true);
+            options.executor(executor);
+        }
+        return StreamMessageListenerContainer.create(jedisConnectionFactory, options.build());
     }
-}
\ No newline at end of file
+}
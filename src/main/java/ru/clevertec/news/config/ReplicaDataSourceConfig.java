@@ -0,0 +1,88 @@
+package ru.clevertec.news.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.clevertec.news.datasource.ReplicaDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройка чтения с реплик базы данных.
+ * <p>
+ * Включается свойством {@code datasource.replica.urls} — списком JDBC URL реплик; учетные данные и настройки пула
+ * берутся у основной базы ({@code spring.datasource.*}). Источник данных приложения — прокси, который берет
+ * физическое соединение только при первом запросе: к этому моменту транзакция уже помечена как только для чтения,
+ * и соединение для нее выдает {@link ReplicaDataSource}, а для остальных транзакций и запросов вне транзакций —
+ * основная база. Так методы сервиса с {@code @Transactional(readOnly = true)} читают с реплик, а создание,
+ * изменение, удаление и миграции схемы выполняются на основной базе.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Пул соединений основной базы.
+     *
+     * @param properties свойства {@code spring.datasource.*}
+     * @return пул соединений
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Пулы соединений реплик с настройками основного пула, доступные только для чтения.
+     *
+     * @param primaryDataSource пул соединений основной базы
+     * @param urls              JDBC URL реплик
+     * @param meterRegistry     реестр метрик пулов
+     * @return источник соединений для транзакций только для чтения
+     */
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               @Value("${datasource.replica.urls}") List<String> urls,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        var replicas = new ArrayList<HikariDataSource>();
+        for (var i = 0; i < urls.size(); i++) {
+            var replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            if (replica.getMetricsTrackerFactory() == null) {
+                meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            }
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas);
+    }
+
+    /**
+     * Источник данных приложения, направляющий транзакции только для чтения на реплики.
+     *
+     * @param primaryDataSource пул соединений основной базы
+     * @param replicaDataSource источник соединений реплик
+     * @return источник данных
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        var dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.clevertec.news.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Настройка режима виртуальных потоков.
+ * <p>
+ * Режим включается свойством {@code spring.threads.virtual.enabled=true} и требует Java 21: Spring Boot переводит
+ * на виртуальные потоки обработку запросов Tomcat и исполнители задач, а {@link RedisCacheConfig} — обработку
+ * сообщений Redis. Число одновременных запросов при этом не ограничено пулом потоков Tomcat, поэтому ограничением
+ * становится пул соединений с базой: его размер задается возможностями базы, а ожидание соединения ограничено
+ * таймаутом, чтобы при перегрузке запросы завершались ошибкой, а не копились.
+ * <p>
+ * На Java ниже 21 Spring Boot молча игнорирует это свойство, поэтому в таком случае запуск прерывается
+ * {@link JavaVersionCheck}.
+ */
+@Configuration
+public class VirtualThreadsConfig {
+
+    /**
+     * Задает размер пула Hikari и таймаут ожидания соединения для режима виртуальных потоков.
+     *
+     * @param maximumPoolSize   максимальный размер пула соединений
+     * @param connectionTimeout максимальное время ожидания соединения
+     * @return постобработчик источника данных
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public static BeanPostProcessor hikariVirtualThreadsPostProcessor(
+            @Value("${threads.virtual.datasource.maximum-pool-size:20}") int maximumPoolSize,
+            @Value("${threads.virtual.datasource.connection-timeout:PT5S}") Duration connectionTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setMaximumPoolSize(maximumPoolSize);
+                    dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Прерывает запуск, если режим виртуальных потоков включен на Java ниже 21.
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    @ConditionalOnJava(range = ConditionalOnJava.Range.OLDER_THAN, value = JavaVersion.TWENTY_ONE)
+    static class JavaVersionCheck {
+
+        JavaVersionCheck() {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true requires Java 21, running on Java "
+                    + Runtime.version().feature());
+        }
+    }
+}
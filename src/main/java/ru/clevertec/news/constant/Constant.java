@@ -4,4 +4,10 @@ public class Constant {
 
     public static final String OFFSET_DEFAULT = "1";
     public static final String LIMIT_DEFAULT = "15";
+    public static final String EXPORT_FETCH_SIZE = "1000";
+    public static final String TOP_LIMIT_DEFAULT = "3";
+    public static final int TOP_LIMIT_MAX = 20;
+    public static final int PAGE_SIZE_MAX = 100;
+    public static final int BATCH_SIZE_MAX = 1000;
+    public static final int IDS_MAX = 100;
 }
\ No newline at end of file
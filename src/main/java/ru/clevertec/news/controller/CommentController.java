@@ -1,27 +1,56 @@
 package ru.clevertec.news.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
-import ru.clevertec.news.annotation.Log;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 import ru.clevertec.news.dto.CommentDto;
 import ru.clevertec.news.dto.create.CommentCreateDto;
 import ru.clevertec.news.dto.page.PageContentDto;
 import ru.clevertec.news.dto.page.PageParamDto;
 import ru.clevertec.news.dto.update.CommentUpdateDto;
 import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+import ru.clevertec.news.model.enums.SearchMode;
 import ru.clevertec.news.service.CommentService;
+import ru.clevertec.news.service.feed.CommentFeedHub;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ru.clevertec.news.constant.Constant.BATCH_SIZE_MAX;
+import static ru.clevertec.news.constant.Constant.IDS_MAX;
 import static ru.clevertec.news.constant.Constant.LIMIT_DEFAULT;
 import static ru.clevertec.news.constant.Constant.OFFSET_DEFAULT;
+import static ru.clevertec.news.constant.Constant.PAGE_SIZE_MAX;
+import static ru.clevertec.news.constant.Constant.TOP_LIMIT_DEFAULT;
+import static ru.clevertec.news.constant.Constant.TOP_LIMIT_MAX;
 
-@Log
 @RestController
+@Profile("!reactive")
+@Timed(value = "comments.controller", histogram = true)
 @AllArgsConstructor
 @RequestMapping("/api/comments")
 public class CommentController {
 
     private final CommentService commentService;
+    private final CommentFeedHub commentFeedHub;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
@@ -29,29 +58,102 @@ public class CommentController {
         return commentService.findById(id);
     }
 
+    @GetMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<CommentDto> getAllById(@RequestParam("ids") @Size(max = IDS_MAX) List<Long> ids) {
+        return commentService.findAllById(ids);
+    }
+
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public PageContentDto<CommentDto> getAll(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) int pageNumber,
-                                             @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) int pageSize,
+    public PageContentDto<CommentDto> getAll(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                             @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
                                              @RequestParam(value = "username", required = false) String username,
-                                             @RequestParam(value = "text", required = false) String text) {
-        return commentService.findAll(new PageParamDto(pageNumber, pageSize), new CommentFilterDto(username, text));
+                                             @RequestParam(value = "text", required = false) String text,
+                                             @RequestParam(value = "mode", required = false, defaultValue = "LIKE") SearchMode mode,
+                                             @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.findAll(new PageParamDto(pageNumber, pageSize), new CommentFilterDto(username, text, mode, from, to));
+    }
+
+    @GetMapping("/slice")
+    @ResponseStatus(HttpStatus.OK)
+    public SliceContentDto<CommentDto> getSlice(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                @RequestParam(value = "username", required = false) String username,
+                                                @RequestParam(value = "text", required = false) String text,
+                                                @RequestParam(value = "mode", required = false, defaultValue = "LIKE") SearchMode mode,
+                                                @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.findSlice(new PageParamDto(pageNumber, pageSize), new CommentFilterDto(username, text, mode, from, to));
     }
 
     @GetMapping("/newsId/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public PageContentDto<CommentDto> getByNewsId(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) int pageNumber,
-                                                  @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) int pageSize,
+    public PageContentDto<CommentDto> getByNewsId(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                  @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
                                                   @PathVariable("id") Long id) {
         return commentService.findByNewsId(new PageParamDto(pageNumber, pageSize), id);
     }
 
+    @GetMapping("/newsId/top")
+    @ResponseStatus(HttpStatus.OK)
+    public List<NewsCommentsDto> getTopByNewsIds(@RequestParam("ids") @Size(max = IDS_MAX) List<Long> ids,
+                                                 @RequestParam(value = "limit", required = false, defaultValue = TOP_LIMIT_DEFAULT) @Min(1) @Max(TOP_LIMIT_MAX) int limit) {
+        return commentService.findTopByNewsIds(ids, limit);
+    }
+
+    @GetMapping("/newsId/{id}/slice")
+    @ResponseStatus(HttpStatus.OK)
+    public SliceContentDto<CommentDto> getSliceByNewsId(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                        @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                        @PathVariable("id") Long id) {
+        return commentService.findSliceByNewsId(new PageParamDto(pageNumber, pageSize), id);
+    }
+
+    @GetMapping("/newsId/{id}/cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPageDto<CommentDto> getByNewsIdWithCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                           @PathVariable("id") Long id) {
+        return commentService.findByNewsIdWithCursor(id, cursor, pageSize);
+    }
+
+    @GetMapping(value = "/newsId/{id}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportByNewsId(@PathVariable("id") Long id) {
+        StreamingResponseBody body = outputStream -> {
+            try (var writer = objectMapper.writerFor(CommentDto.class).withRootValueSeparator("\n").writeValues(outputStream)) {
+                commentService.exportByNewsId(id, comment -> {
+                    try {
+                        writer.write(comment);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping(value = "/newsId/{id}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CommentDto>> feedByNewsId(@PathVariable("id") Long id) {
+        return commentFeedHub.subscribe(id);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public CommentDto create(@RequestBody CommentCreateDto commentCreateDto) {
         return commentService.create(commentCreateDto);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<CommentDto> createAll(@RequestBody @Size(max = BATCH_SIZE_MAX) List<CommentCreateDto> commentCreateDtos) {
+        return commentService.createAll(commentCreateDtos);
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public CommentDto update(@RequestBody CommentUpdateDto commentUpdateDto) {
@@ -63,4 +165,10 @@ public class CommentController {
     public void delete(@PathVariable("id") Long id) {
         commentService.delete(id);
     }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/batch")
+    public void deleteAll(@RequestBody @Size(max = BATCH_SIZE_MAX) List<Long> ids) {
+        commentService.deleteAll(ids);
+    }
 }
\ No newline at end of file
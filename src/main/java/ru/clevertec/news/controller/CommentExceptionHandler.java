@@ -0,0 +1,76 @@
+package ru.clevertec.news.controller;
+
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import ru.clevertec.news.exception.InvalidCommentException;
+import ru.clevertec.news.exception.InvalidCursorException;
+import ru.clevertec.news.model.dto.ErrorDto;
+
+import java.util.stream.Collectors;
+
+/**
+ * Ответы на некорректные запросы к API комментариев в формате обработчика ошибок приложения.
+ * <p>
+ * Выполняется раньше подключаемого обработчика ошибок, поэтому ошибки проверки параметров запроса
+ * возвращаются со статусом 400, а не как внутренние ошибки сервера.
+ */
+@RestControllerAdvice(assignableTypes = CommentController.class)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CommentExceptionHandler {
+
+    /**
+     * Ответ на параметры запроса, не прошедшие проверку ограничений.
+     *
+     * @param e исключение проверки параметров метода контроллера
+     * @return описание нарушенных ограничений со статусом 400
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorDto> handleMethodValidation(HandlerMethodValidationException e) {
+        return badRequest(message(e));
+    }
+
+    /**
+     * Ответ на некорректный курсор пагинации.
+     *
+     * @param e исключение некорректного курсора
+     * @return описание ошибки со статусом 400
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorDto> handleInvalidCursor(InvalidCursorException e) {
+        return badRequest(e.getMessage());
+    }
+
+    /**
+     * Ответ на комментарий, который не может быть записан в базу.
+     *
+     * @param e исключение некорректного комментария
+     * @return описание ошибки со статусом 400
+     */
+    @ExceptionHandler(InvalidCommentException.class)
+    public ResponseEntity<ErrorDto> handleInvalidComment(InvalidCommentException e) {
+        return badRequest(e.getMessage());
+    }
+
+    static ResponseEntity<ErrorDto> badRequest(String message) {
+        return ResponseEntity.badRequest().body(new ErrorDto(message, HttpStatus.BAD_REQUEST.value()));
+    }
+
+    static String message(HandlerMethodValidationException e) {
+        return e.getAllValidationResults().stream()
+                .flatMap(result -> result.getResolvableErrors().stream()
+                        .map(error -> message(result.getMethodParameter().getParameterName(), error)))
+                .collect(Collectors.joining("; "));
+    }
+
+    static String message(String parameter, MessageSourceResolvable error) {
+        var name = error instanceof FieldError fieldError ? fieldError.getField() : parameter;
+        return name + ": " + error.getDefaultMessage();
+    }
+}
@@ -0,0 +1,160 @@
+package ru.clevertec.news.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.page.PageContentDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+import ru.clevertec.news.model.enums.SearchMode;
+import ru.clevertec.news.service.ReactiveCommentService;
+import ru.clevertec.news.service.feed.CommentFeedHub;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ru.clevertec.news.constant.Constant.BATCH_SIZE_MAX;
+import static ru.clevertec.news.constant.Constant.IDS_MAX;
+import static ru.clevertec.news.constant.Constant.LIMIT_DEFAULT;
+import static ru.clevertec.news.constant.Constant.OFFSET_DEFAULT;
+import static ru.clevertec.news.constant.Constant.PAGE_SIZE_MAX;
+import static ru.clevertec.news.constant.Constant.TOP_LIMIT_DEFAULT;
+import static ru.clevertec.news.constant.Constant.TOP_LIMIT_MAX;
+
+/**
+ * API комментариев для профиля {@code reactive} с теми же путями и параметрами, что и {@link CommentController}.
+ * Списки без пагинации отдаются потоком: JSON-массивом или, при {@code Accept: application/x-ndjson}, построчно.
+ * Параметры проверяются с теми же ограничениями, ошибки возвращает {@link ReactiveCommentExceptionHandler}.
+ */
+@RestController
+@Profile("reactive")
+@AllArgsConstructor
+@RequestMapping("/api/comments")
+public class ReactiveCommentController {
+
+    private final ReactiveCommentService commentService;
+    private final CommentFeedHub commentFeedHub;
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CommentDto> getById(@PathVariable("id") Long id) {
+        return commentService.findById(id);
+    }
+
+    @GetMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<CommentDto> getAllById(@RequestParam("ids") @Size(max = IDS_MAX) List<Long> ids) {
+        return commentService.findAllById(ids);
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<PageContentDto<CommentDto>> getAll(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                   @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                   @RequestParam(value = "username", required = false) String username,
+                                                   @RequestParam(value = "text", required = false) String text,
+                                                   @RequestParam(value = "mode", required = false, defaultValue = "LIKE") SearchMode mode,
+                                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.findAll(new PageParamDto(pageNumber, pageSize), new CommentFilterDto(username, text, mode, from, to));
+    }
+
+    @GetMapping("/slice")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<SliceContentDto<CommentDto>> getSlice(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                      @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                      @RequestParam(value = "username", required = false) String username,
+                                                      @RequestParam(value = "text", required = false) String text,
+                                                      @RequestParam(value = "mode", required = false, defaultValue = "LIKE") SearchMode mode,
+                                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return commentService.findSlice(new PageParamDto(pageNumber, pageSize), new CommentFilterDto(username, text, mode, from, to));
+    }
+
+    @GetMapping("/newsId/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<PageContentDto<CommentDto>> getByNewsId(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                        @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                        @PathVariable("id") Long id) {
+        return commentService.findByNewsId(new PageParamDto(pageNumber, pageSize), id);
+    }
+
+    @GetMapping(value = "/newsId/top", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<NewsCommentsDto> getTopByNewsIds(@RequestParam("ids") @Size(max = IDS_MAX) List<Long> ids,
+                                                 @RequestParam(value = "limit", required = false, defaultValue = TOP_LIMIT_DEFAULT) @Min(1) @Max(TOP_LIMIT_MAX) int limit) {
+        return commentService.findTopByNewsIds(ids, limit);
+    }
+
+    @GetMapping("/newsId/{id}/slice")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<SliceContentDto<CommentDto>> getSliceByNewsId(@RequestParam(value = "pageNumber", required = false, defaultValue = OFFSET_DEFAULT) @Min(1) int pageNumber,
+                                                              @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                              @PathVariable("id") Long id) {
+        return commentService.findSliceByNewsId(new PageParamDto(pageNumber, pageSize), id);
+    }
+
+    @GetMapping("/newsId/{id}/cursor")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CursorPageDto<CommentDto>> getByNewsIdWithCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @RequestParam(value = "pageSize", required = false, defaultValue = LIMIT_DEFAULT) @Min(1) @Max(PAGE_SIZE_MAX) int pageSize,
+                                                                 @PathVariable("id") Long id) {
+        return commentService.findByNewsIdWithCursor(id, cursor, pageSize);
+    }
+
+    @GetMapping(value = "/newsId/{id}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CommentDto> exportByNewsId(@PathVariable("id") Long id) {
+        return commentService.exportByNewsId(id);
+    }
+
+    @GetMapping(value = "/newsId/{id}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CommentDto>> feedByNewsId(@PathVariable("id") Long id) {
+        return commentFeedHub.subscribe(id);
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<CommentDto> create(@RequestBody @Valid CommentCreateDto commentCreateDto) {
+        return commentService.create(commentCreateDto);
+    }
+
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public Flux<CommentDto> createAll(@RequestBody @Size(max = BATCH_SIZE_MAX) List<@Valid CommentCreateDto> commentCreateDtos) {
+        return commentService.createAll(commentCreateDtos);
+    }
+
+    @PutMapping
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<CommentDto> update(@RequestBody @Valid CommentUpdateDto commentUpdateDto) {
+        return commentService.update(commentUpdateDto);
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/{id}")
+    public Mono<Void> delete(@PathVariable("id") Long id) {
+        return commentService.delete(id);
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping("/batch")
+    public Mono<Void> deleteAll(@RequestBody @Size(max = BATCH_SIZE_MAX) List<Long> ids) {
+        return commentService.deleteAll(ids);
+    }
+}
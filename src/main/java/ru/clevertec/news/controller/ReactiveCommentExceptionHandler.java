@@ -0,0 +1,102 @@
+package ru.clevertec.news.controller;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.server.ServerWebInputException;
+import ru.clevertec.news.exception.EntityNotFoundException;
+import ru.clevertec.news.exception.InvalidCommentException;
+import ru.clevertec.news.exception.InvalidCursorException;
+import ru.clevertec.news.model.dto.ErrorDto;
+
+import java.util.stream.Collectors;
+
+import static ru.clevertec.news.controller.CommentExceptionHandler.badRequest;
+import static ru.clevertec.news.controller.CommentExceptionHandler.message;
+
+/**
+ * Ответы на ошибки API комментариев профиля {@code reactive} в формате обработчика ошибок приложения.
+ * <p>
+ * Подключаемый обработчик ошибок рассчитан на блокирующий стек, поэтому здесь, помимо некорректных запросов,
+ * обрабатывается и отсутствующий комментарий.
+ */
+@RestControllerAdvice(assignableTypes = ReactiveCommentController.class)
+@Profile("reactive")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ReactiveCommentExceptionHandler {
+
+    /**
+     * Ответ на параметры запроса, не прошедшие проверку ограничений.
+     *
+     * @param e исключение проверки параметров метода контроллера
+     * @return описание нарушенных ограничений со статусом 400
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorDto> handleMethodValidation(HandlerMethodValidationException e) {
+        return badRequest(message(e));
+    }
+
+    /**
+     * Ответ на тело запроса, не прошедшее проверку ограничений.
+     *
+     * @param e исключение проверки тела запроса
+     * @return описание нарушенных ограничений со статусом 400
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorDto> handleBind(WebExchangeBindException e) {
+        return badRequest(e.getAllErrors().stream()
+                .map(error -> message(e.getObjectName(), error))
+                .collect(Collectors.joining("; ")));
+    }
+
+    /**
+     * Ответ на запрос с отсутствующим или нечитаемым параметром или телом.
+     *
+     * @param e исключение разбора запроса
+     * @return описание ошибки со статусом 400
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorDto> handleInput(ServerWebInputException e) {
+        return badRequest(e.getReason());
+    }
+
+    /**
+     * Ответ на некорректный курсор пагинации.
+     *
+     * @param e исключение некорректного курсора
+     * @return описание ошибки со статусом 400
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorDto> handleInvalidCursor(InvalidCursorException e) {
+        return badRequest(e.getMessage());
+    }
+
+    /**
+     * Ответ на комментарий, который не может быть записан в базу.
+     *
+     * @param e исключение некорректного комментария
+     * @return описание ошибки со статусом 400
+     */
+    @ExceptionHandler(InvalidCommentException.class)
+    public ResponseEntity<ErrorDto> handleInvalidComment(InvalidCommentException e) {
+        return badRequest(e.getMessage());
+    }
+
+    /**
+     * Ответ на отсутствующий комментарий.
+     *
+     * @param e исключение отсутствующей сущности
+     * @return описание ошибки со статусом 404
+     */
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleNotFound(EntityNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorDto("Entity not found!", HttpStatus.NOT_FOUND.value()));
+    }
+}
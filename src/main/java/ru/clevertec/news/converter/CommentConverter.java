@@ -19,5 +19,7 @@ public interface CommentConverter {
 
     List<CommentDto> convertToList(List<Comment> source);
 
+    List<Comment> convertToEntityList(List<CommentCreateDto> source);
+
     Comment merge(@MappingTarget Comment comment, CommentUpdateDto dto);
 }
\ No newline at end of file
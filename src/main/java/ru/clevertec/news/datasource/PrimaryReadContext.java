@@ -0,0 +1,34 @@
+package ru.clevertec.news.datasource;
+
+/**
+ * Признак того, что чтения в текущем потоке должны выполняться на основной базе, а не на реплике.
+ * Устанавливается {@link ReadYourWritesFilter} на время запроса клиента, недавно изменявшего данные.
+ */
+public final class PrimaryReadContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private PrimaryReadContext() {
+    }
+
+    /**
+     * Направляет чтения текущего потока на основную базу.
+     */
+    public static void enable() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    /**
+     * Снимает признак для текущего потока.
+     */
+    public static void clear() {
+        PRIMARY.remove();
+    }
+
+    /**
+     * @return {@code true}, если чтения текущего потока должны выполняться на основной базе
+     */
+    public static boolean isEnabled() {
+        return PRIMARY.get() != null;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.clevertec.news.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Обеспечивает чтение своих записей при чтении с реплик.
+ * <p>
+ * Изменяющий запрос ({@code POST}, {@code PUT}, {@code DELETE}, {@code PATCH}) выполняется на основной базе
+ * и выставляет клиенту cookie {@value #COOKIE} со временем окончания окна {@code datasource.replica.stickiness}.
+ * Пока окно не истекло, чтения этого клиента также выполняются на основной базе, поэтому он видит свои изменения
+ * независимо от отставания реплик.
+ */
+@Component
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "comments-primary-until";
+
+    private static final Set<String> SAFE_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(),
+            HttpMethod.OPTIONS.name(), HttpMethod.TRACE.name());
+
+    private final Duration stickiness;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(@Value("${datasource.replica.stickiness:PT5S}") Duration stickiness) {
+        this(stickiness, Clock.systemUTC());
+    }
+
+    ReadYourWritesFilter(Duration stickiness, Clock clock) {
+        this.stickiness = stickiness;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        var now = clock.millis();
+        var until = now + stickiness.toMillis();
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            response.addCookie(stickyCookie(until));
+            PrimaryReadContext.enable();
+        } else if (isSticky(stickyUntil(request), now, until)) {
+            PrimaryReadContext.enable();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PrimaryReadContext.clear();
+        }
+    }
+
+    /**
+     * Значение cookie больше максимально возможного считается подделанным и игнорируется,
+     * чтобы клиент не мог закрепить свои чтения за основной базой.
+     */
+    private boolean isSticky(long stickyUntil, long now, long maxUntil) {
+        return stickyUntil > now && stickyUntil <= maxUntil;
+    }
+
+    private Cookie stickyCookie(long until) {
+        var cookie = new Cookie(COOKIE, String.valueOf(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (stickiness.toMillis() + 999) / 1000));
+        return cookie;
+    }
+
+    private long stickyUntil(HttpServletRequest request) {
+        var cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (var cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.clevertec.news.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Источник соединений для транзакций только для чтения.
+ * <p>
+ * Соединения выдаются репликами по очереди; если реплика недоступна, берется следующая, а если недоступны все —
+ * основная база. При установленном {@link PrimaryReadContext} соединение сразу берется с основной базы.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PrimaryReadContext.isEnabled() || replicas.isEmpty()) {
+            return primary.getConnection();
+        }
+        var start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (var i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get((start + i) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("ReplicaDataSource: replica {} is unavailable: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials are taken from the primary data source");
+    }
+
+    /**
+     * Закрывает пулы соединений реплик.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.clevertec.news.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Исключение, выбрасываемое, когда комментарий не может быть записан в базу.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCommentException extends RuntimeException {
+
+    public InvalidCommentException(String message) {
+        super("Invalid comment: " + message);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.clevertec.news.model.dto;
+
+import ru.clevertec.news.model.enums.CommentEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие изменения комментария для публикации.
+ *
+ * @param id        идентификатор события, возрастает в порядке изменений
+ * @param type      тип изменения
+ * @param commentId идентификатор комментария
+ * @param newsId    идентификатор новости комментария
+ * @param previousNewsId идентификатор новости до изменения, если изменение перенесло комментарий в другую новость,
+ *                  иначе {@code null}
+ * @param time      время изменения
+ * @param payload   комментарий после изменения в JSON или {@code null} для удаления
+ */
+public record CommentEventDto(
+        Long id,
+        CommentEventType type,
+        Long commentId,
+        Long newsId,
+        Long previousNewsId,
+        LocalDateTime time,
+        String payload
+) {
+}
@@ -1,7 +1,31 @@
 package ru.clevertec.news.model.dto;
 
+import ru.clevertec.news.model.enums.SearchMode;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условия фильтрации комментариев.
+ *
+ * @param username фрагмент имени пользователя
+ * @param text     фрагмент текста
+ * @param mode     режим поиска по фрагменту текста
+ * @param from     начало интервала времени создания включительно или {@code null}
+ * @param to       конец интервала времени создания не включительно или {@code null}
+ */
 public record CommentFilterDto(
         String username,
-        String text
+        String text,
+        SearchMode mode,
+        LocalDateTime from,
+        LocalDateTime to
 ) {
-}
\ No newline at end of file
+
+    public CommentFilterDto(String username, String text, SearchMode mode) {
+        this(username, text, mode, null, null);
+    }
+
+    public CommentFilterDto(String username, String text) {
+        this(username, text, SearchMode.LIKE);
+    }
+}
@@ -0,0 +1,13 @@
+package ru.clevertec.news.model.dto;
+
+/**
+ * Идентификатор комментария и его новости.
+ *
+ * @param id     идентификатор комментария
+ * @param newsId идентификатор новости
+ */
+public record CommentNewsIdDto(
+        Long id,
+        Long newsId
+) {
+}
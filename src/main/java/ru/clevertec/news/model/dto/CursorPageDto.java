@@ -0,0 +1,16 @@
+package ru.clevertec.news.model.dto;
+
+import java.util.List;
+
+/**
+ * Страница результатов курсорной (keyset) пагинации.
+ *
+ * @param content    содержимое страницы
+ * @param nextCursor непрозрачный токен для получения следующей страницы или {@code null}, если страница последняя
+ * @param <T>        тип элементов страницы
+ */
+public record CursorPageDto<T>(
+        List<T> content,
+        String nextCursor
+) {
+}
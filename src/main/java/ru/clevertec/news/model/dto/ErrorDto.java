@@ -0,0 +1,13 @@
+package ru.clevertec.news.model.dto;
+
+/**
+ * Ответ с описанием ошибки в формате обработчика ошибок приложения.
+ *
+ * @param errorMessage описание ошибки
+ * @param errorCode    HTTP-статус ответа
+ */
+public record ErrorDto(
+        String errorMessage,
+        int errorCode
+) {
+}
@@ -0,0 +1,13 @@
+package ru.clevertec.news.model.dto;
+
+/**
+ * Количество комментариев новости.
+ *
+ * @param newsId идентификатор новости
+ * @param count  количество комментариев
+ */
+public record NewsCommentCountDto(
+        Long newsId,
+        Long count
+) {
+}
@@ -0,0 +1,19 @@
+package ru.clevertec.news.model.dto;
+
+import ru.clevertec.news.dto.CommentDto;
+
+import java.util.List;
+
+/**
+ * Первые комментарии новости и общее количество ее комментариев.
+ *
+ * @param newsId        идентификатор новости
+ * @param totalElements общее количество комментариев новости
+ * @param content       первые комментарии новости, упорядоченные по (time desc, id desc)
+ */
+public record NewsCommentsDto(
+        Long newsId,
+        long totalElements,
+        List<CommentDto> content
+) {
+}
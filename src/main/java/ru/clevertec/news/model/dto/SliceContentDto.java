@@ -0,0 +1,20 @@
+package ru.clevertec.news.model.dto;
+
+import java.util.List;
+
+/**
+ * Страница результатов без подсчета общего количества элементов.
+ *
+ * @param pageNumber номер страницы
+ * @param pageSize   размер страницы
+ * @param hasNext    признак наличия следующей страницы
+ * @param content    содержимое страницы
+ * @param <T>        тип элементов страницы
+ */
+public record SliceContentDto<T>(
+        int pageNumber,
+        int pageSize,
+        boolean hasNext,
+        List<T> content
+) {
+}
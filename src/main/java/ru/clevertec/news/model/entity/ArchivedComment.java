@@ -0,0 +1,41 @@
+package ru.clevertec.news.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Комментарий, перенесенный из секционированной таблицы {@code comment} в архив вместе со своей секцией.
+ * Архивные комментарии доступны только для чтения.
+ */
+@Entity
+@Getter
+@Immutable
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "comment_archive")
+public class ArchivedComment implements Serializable {
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long newsId;
+
+    @Column(nullable = false)
+    private LocalDateTime time;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String text;
+}
@@ -12,6 +12,7 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "comment_news_id_time_id_idx", columnList = "news_id, time desc, id desc"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +21,9 @@ import java.time.LocalDateTime;
 public class Comment implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = 50)
+    @Column(columnDefinition = "bigint default nextval('comment_seq')")
     private Long id;
 
     @Column(nullable = false)
@@ -28,6 +31,7 @@ public class Comment implements Serializable {
 
     @CreationTimestamp
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
     private LocalDateTime time;
 
     @Column(nullable = false)
@@ -0,0 +1,49 @@
+package ru.clevertec.news.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldNameConstants;
+import org.hibernate.annotations.CreationTimestamp;
+import ru.clevertec.news.model.enums.CommentEventType;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Событие изменения комментария, ожидающее публикации.
+ */
+@Entity
+@Table(name = "comment_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldNameConstants
+public class CommentOutboxEvent implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_outbox_seq")
+    @SequenceGenerator(name = "comment_outbox_seq", sequenceName = "comment_outbox_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long commentId;
+
+    private Long newsId;
+
+    private Long previousNewsId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private CommentEventType type;
+
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(nullable = false)
+    private LocalDateTime time;
+}
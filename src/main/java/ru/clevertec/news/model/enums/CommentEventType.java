@@ -0,0 +1,11 @@
+package ru.clevertec.news.model.enums;
+
+/**
+ * Тип изменения комментария.
+ */
+public enum CommentEventType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,22 @@
+package ru.clevertec.news.model.enums;
+
+/**
+ * Режим журналирования запросов к контроллеру комментариев.
+ */
+public enum RequestLogMode {
+
+    /**
+     * Запросы не журналируются.
+     */
+    OFF,
+
+    /**
+     * Журналируется доля запросов, заданная свойством {@code logging.requests.sample-rate}.
+     */
+    SAMPLED,
+
+    /**
+     * Журналируется каждый запрос.
+     */
+    FULL
+}
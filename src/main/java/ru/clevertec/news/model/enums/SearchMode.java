@@ -0,0 +1,17 @@
+package ru.clevertec.news.model.enums;
+
+/**
+ * Режим поиска комментариев по фрагменту текста.
+ */
+public enum SearchMode {
+
+    /**
+     * Поиск подстроки через {@code like '%fragment%'}, обслуживается триграммными индексами.
+     */
+    LIKE,
+
+    /**
+     * Полнотекстовый поиск через {@code tsvector} с ранжированием результатов по релевантности.
+     */
+    FULL_TEXT
+}
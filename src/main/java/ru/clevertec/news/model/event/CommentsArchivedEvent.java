@@ -0,0 +1,11 @@
+package ru.clevertec.news.model.event;
+
+import java.util.List;
+
+/**
+ * Событие переноса комментариев в архив.
+ *
+ * @param newsIds идентификаторы новостей перенесенных комментариев без повторов
+ */
+public record CommentsArchivedEvent(List<Long> newsIds) {
+}
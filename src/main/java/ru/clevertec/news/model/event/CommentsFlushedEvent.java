@@ -0,0 +1,11 @@
+package ru.clevertec.news.model.event;
+
+import java.util.List;
+
+/**
+ * Событие записи в базу пакета комментариев из очереди отложенной записи.
+ *
+ * @param newsIds идентификаторы новостей записанных комментариев без повторов
+ */
+public record CommentsFlushedEvent(List<Long> newsIds) {
+}
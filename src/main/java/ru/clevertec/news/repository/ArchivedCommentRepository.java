@@ -0,0 +1,22 @@
+package ru.clevertec.news.repository;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.entity.ArchivedComment;
+
+import java.util.Optional;
+
+/**
+ * Чтение архивных комментариев.
+ */
+@org.springframework.stereotype.Repository
+public interface ArchivedCommentRepository extends Repository<ArchivedComment, Long> {
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from ArchivedComment c
+            where c.id = :id
+            """)
+    Optional<CommentDto> findDtoById(Long id);
+}
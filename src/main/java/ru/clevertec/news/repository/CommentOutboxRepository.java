@@ -0,0 +1,36 @@
+package ru.clevertec.news.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.clevertec.news.model.dto.CommentEventDto;
+import ru.clevertec.news.model.entity.CommentOutboxEvent;
+
+import java.util.List;
+
+@Repository
+public interface CommentOutboxRepository extends JpaRepository<CommentOutboxEvent, Long> {
+
+    /**
+     * Возвращает самые ранние неопубликованные события.
+     *
+     * @param limit максимальное количество событий
+     * @return события в порядке возрастания id
+     */
+    @Query("""
+            select new ru.clevertec.news.model.dto.CommentEventDto(e.id, e.type, e.commentId, e.newsId, e.previousNewsId, e.time, e.payload)
+            from CommentOutboxEvent e
+            order by e.id
+            """)
+    List<CommentEventDto> findOldest(Limit limit);
+
+    /**
+     * Пытается взять блокировку публикации до конца транзакции, чтобы события публиковал один экземпляр сервиса
+     * и порядок событий сохранялся.
+     *
+     * @return {@code true}, если блокировка получена
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(hashtext('comment_outbox'))", nativeQuery = true)
+    boolean tryLockRelay();
+}
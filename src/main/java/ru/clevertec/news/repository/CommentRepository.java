@@ -1,14 +1,151 @@
 package ru.clevertec.news.repository;
 
-import org.springframework.data.domain.Page;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.dto.NewsCommentCountDto;
 import ru.clevertec.news.model.entity.Comment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static ru.clevertec.news.constant.Constant.EXPORT_FETCH_SIZE;
+
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long>, JpaSpecificationExecutor<Comment> {
+public interface CommentRepository extends JpaRepository<Comment, Long>, JpaSpecificationExecutor<Comment>, CommentRepositoryCustom {
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.id = :id
+            """)
+    Optional<CommentDto> findDtoById(Long id);
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.id in :ids
+            """)
+    List<CommentDto> findDtoAllById(Collection<Long> ids);
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.newsId = :id
+            order by c.time desc, c.id desc
+            """)
+    Slice<CommentDto> findSliceByNewsId(Pageable pageable, Long id);
+
+    long countByNewsId(Long newsId);
+
+    @Query("select c.newsId from Comment c where c.id = :id")
+    Optional<Long> findNewsIdById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Comment c where c.id = :id")
+    Optional<Comment> findForUpdateById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c.newsId from Comment c where c.id = :id")
+    Optional<Long> findNewsIdForUpdateById(Long id);
+
+    @Query("""
+            select new ru.clevertec.news.model.dto.NewsCommentCountDto(c.newsId, count(c))
+            from Comment c
+            where c.id in :ids
+            group by c.newsId
+            """)
+    List<NewsCommentCountDto> countByNewsIdForIds(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new ru.clevertec.news.model.dto.CommentNewsIdDto(c.id, c.newsId)
+            from Comment c
+            where c.id in :ids
+            order by c.id
+            """)
+    List<CommentNewsIdDto> findNewsIdsForUpdateByIds(Collection<Long> ids);
+
+    @Query("""
+            select new ru.clevertec.news.model.dto.NewsCommentCountDto(c.newsId, count(c))
+            from Comment c
+            where c.newsId in :newsIds
+            group by c.newsId
+            """)
+    List<NewsCommentCountDto> countByNewsIds(Collection<Long> newsIds);
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(t.id, t.time, t.text, t.username, t.newsId)
+            from (
+                select c.id as id, c.time as time, c.text as text, c.username as username, c.newsId as newsId,
+                       row_number() over (partition by c.newsId order by c.time desc, c.id desc) as position
+                from Comment c
+                where c.newsId in :newsIds
+            ) t
+            where t.position <= :limit
+            order by t.newsId, t.position
+            """)
+    List<CommentDto> findTopByNewsIds(Collection<Long> newsIds, int limit);
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.newsId = :newsId
+            order by c.time desc, c.id desc
+            """)
+    List<CommentDto> findKeysetByNewsId(Long newsId, Pageable pageable);
+
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.newsId = :newsId
+              and (c.time < :time or (c.time = :time and c.id < :id))
+            order by c.time desc, c.id desc
+            """)
+    List<CommentDto> findKeysetByNewsIdAfter(Long newsId, LocalDateTime time, Long id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new ru.clevertec.news.dto.CommentDto(c.id, c.time, c.text, c.username, c.newsId)
+            from Comment c
+            where c.newsId = :newsId
+            order by c.time desc, c.id desc
+            """)
+    Stream<CommentDto> streamByNewsId(Long newsId);
+
+    @Query(value = """
+            select c.* from comment c
+            where to_tsvector('simple', c.text) @@ websearch_to_tsquery('simple', :query)
+              and (cast(:username as text) is null or c.username like concat('%', cast(:username as text), '%'))
+              and c.time >= coalesce(cast(:from as timestamp), '-infinity')
+              and c.time < coalesce(cast(:to as timestamp), 'infinity')
+            order by ts_rank(to_tsvector('simple', c.text), websearch_to_tsquery('simple', :query)) desc, c.id desc
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<Comment> searchByText(String query, String username, LocalDateTime from, LocalDateTime to, int limit, long offset);
 
-    Page<Comment> findByNewsId(Pageable pageable, Long id);
-}
\ No newline at end of file
+    @Query(value = """
+            select count(*) from comment c
+            where to_tsvector('simple', c.text) @@ websearch_to_tsquery('simple', :query)
+              and (cast(:username as text) is null or c.username like concat('%', cast(:username as text), '%'))
+              and c.time >= coalesce(cast(:from as timestamp), '-infinity')
+              and c.time < coalesce(cast(:to as timestamp), 'infinity')
+            """, nativeQuery = true)
+    long countByText(String query, String username, LocalDateTime from, LocalDateTime to);
+}
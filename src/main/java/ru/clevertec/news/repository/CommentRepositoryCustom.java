@@ -0,0 +1,44 @@
+package ru.clevertec.news.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.entity.Comment;
+
+import java.util.List;
+
+/**
+ * Дополнительные запросы к комментариям, которые не выражаются методами Spring Data.
+ */
+public interface CommentRepositoryCustom {
+
+    /**
+     * Возвращает страницу комментариев, удовлетворяющих спецификации, сразу в виде {@link CommentDto}
+     * без загрузки сущностей в контекст персистентности.
+     *
+     * @param specification спецификация фильтрации комментариев
+     * @param pageable      параметры пагинации
+     * @return страница комментариев
+     */
+    Page<CommentDto> findPage(Specification<Comment> specification, Pageable pageable);
+
+    /**
+     * Возвращает срез комментариев, удовлетворяющих спецификации, без запроса на подсчет общего количества
+     * и без загрузки сущностей в контекст персистентности.
+     *
+     * @param specification спецификация фильтрации комментариев
+     * @param pageable      параметры пагинации
+     * @return срез комментариев
+     */
+    Slice<CommentDto> findSlice(Specification<Comment> specification, Pageable pageable);
+
+    /**
+     * Сохраняет новые комментарии JDBC-пакетами, отсоединяя сущности каждого пакета после его записи.
+     *
+     * @param comments новые комментарии
+     * @return сохраненные комментарии с присвоенными идентификаторами
+     */
+    List<Comment> persistAll(List<Comment> comments);
+}
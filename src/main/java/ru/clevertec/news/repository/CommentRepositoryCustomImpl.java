@@ -0,0 +1,100 @@
+package ru.clevertec.news.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.entity.Comment;
+
+import java.util.List;
+
+/**
+ * Реализация дополнительных запросов к комментариям.
+ */
+public class CommentRepositoryCustomImpl implements CommentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${jpa.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * Выбирает страницу и подсчитывает общее количество, только если оно не следует из размера страницы.
+     */
+    @Override
+    public Page<CommentDto> findPage(Specification<Comment> specification, Pageable pageable) {
+        var content = select(specification, pageable, pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    /**
+     * Выбирает на одну запись больше размера страницы, чтобы определить наличие следующей страницы.
+     */
+    @Override
+    public Slice<CommentDto> findSlice(Specification<Comment> specification, Pageable pageable) {
+        var content = select(specification, pageable, pageable.getPageSize() + 1);
+        var hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private List<CommentDto> select(Specification<Comment> specification, Pageable pageable, int limit) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(CommentDto.class);
+        var root = query.from(Comment.class);
+        query.select(criteriaBuilder.construct(CommentDto.class,
+                root.get(Comment.Fields.id),
+                root.get(Comment.Fields.time),
+                root.get(Comment.Fields.text),
+                root.get(Comment.Fields.username),
+                root.get(Comment.Fields.newsId)));
+        var predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private long count(Specification<Comment> specification) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(Long.class);
+        var root = query.from(Comment.class);
+        query.select(criteriaBuilder.count(root));
+        var predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Сохраняет комментарии пакетами размера {@code jpa.batch-size}. После записи каждого пакета его сущности
+     * отсоединяются от контекста, остальные управляемые сущности транзакции не затрагиваются.
+     */
+    @Override
+    public List<Comment> persistAll(List<Comment> comments) {
+        for (int from = 0; from < comments.size(); from += batchSize) {
+            var batch = comments.subList(from, Math.min(from + batchSize, comments.size()));
+            batch.forEach(entityManager::persist);
+            entityManager.flush();
+            batch.forEach(entityManager::detach);
+        }
+        return comments;
+    }
+}
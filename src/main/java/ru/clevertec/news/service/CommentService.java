@@ -6,18 +6,40 @@ import ru.clevertec.news.dto.page.PageContentDto;
 import ru.clevertec.news.dto.page.PageParamDto;
 import ru.clevertec.news.dto.update.CommentUpdateDto;
 import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface CommentService {
 
     CommentDto findById(Long id);
 
+    List<CommentDto> findAllById(List<Long> ids);
+
     PageContentDto<CommentDto> findByNewsId(PageParamDto param, Long id);
 
+    List<NewsCommentsDto> findTopByNewsIds(List<Long> newsIds, int limit);
+
+    SliceContentDto<CommentDto> findSliceByNewsId(PageParamDto param, Long id);
+
+    CursorPageDto<CommentDto> findByNewsIdWithCursor(Long id, String cursor, int pageSize);
+
+    void exportByNewsId(Long id, Consumer<CommentDto> consumer);
+
     PageContentDto<CommentDto> findAll(PageParamDto param, CommentFilterDto filter);
 
+    SliceContentDto<CommentDto> findSlice(PageParamDto param, CommentFilterDto filter);
+
     CommentDto create(CommentCreateDto dto);
 
+    List<CommentDto> createAll(List<CommentCreateDto> dtos);
+
     CommentDto update(CommentUpdateDto dto);
 
     void delete(Long id);
+
+    void deleteAll(List<Long> ids);
 }
\ No newline at end of file
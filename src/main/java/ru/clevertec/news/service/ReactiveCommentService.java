@@ -0,0 +1,46 @@
+package ru.clevertec.news.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.page.PageContentDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+
+import java.util.List;
+
+public interface ReactiveCommentService {
+
+    Mono<CommentDto> findById(Long id);
+
+    Flux<CommentDto> findAllById(List<Long> ids);
+
+    Mono<PageContentDto<CommentDto>> findByNewsId(PageParamDto param, Long id);
+
+    Flux<NewsCommentsDto> findTopByNewsIds(List<Long> newsIds, int limit);
+
+    Mono<SliceContentDto<CommentDto>> findSliceByNewsId(PageParamDto param, Long id);
+
+    Mono<CursorPageDto<CommentDto>> findByNewsIdWithCursor(Long id, String cursor, int pageSize);
+
+    Flux<CommentDto> exportByNewsId(Long id);
+
+    Mono<PageContentDto<CommentDto>> findAll(PageParamDto param, CommentFilterDto filter);
+
+    Mono<SliceContentDto<CommentDto>> findSlice(PageParamDto param, CommentFilterDto filter);
+
+    Mono<CommentDto> create(CommentCreateDto dto);
+
+    Flux<CommentDto> createAll(List<CommentCreateDto> dtos);
+
+    Mono<CommentDto> update(CommentUpdateDto dto);
+
+    Mono<Void> delete(Long id);
+
+    Mono<Void> deleteAll(List<Long> ids);
+}
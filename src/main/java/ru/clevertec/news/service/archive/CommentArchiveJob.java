@@ -0,0 +1,267 @@
+package ru.clevertec.news.service.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.clevertec.news.model.event.CommentsArchivedEvent;
+import ru.clevertec.news.service.cache.CommentCountCache;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Фоновое обслуживание секций таблицы комментариев.
+ * <p>
+ * По расписанию {@code archive.cron} заранее создает месячные секции на {@code archive.partitions-ahead} месяцев
+ * вперед и переносит в таблицу {@code comment_archive} секции и строки граничной секции {@code comment_history}
+ * старше {@code archive.retention-months} месяцев. Секции отсоединяются командой
+ * {@code detach partition ... concurrently}, не блокирующей чтение и запись в таблицу; она не может выполняться
+ * в транзакции, поэтому задача выполняет команды сама на одном соединении в режиме автофиксации, а копирование
+ * отсоединенной секции в архив и ее удаление — в отдельных транзакциях. Одновременный запуск на нескольких
+ * экземплярах исключается сессионной advisory-блокировкой, работа, прерванная сбоем, завершается
+ * при следующем запуске.
+ * <p>
+ * После переноса в архив из кэшей удаляются количество комментариев, страницы и первые комментарии
+ * затронутых новостей.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "archive.enabled", matchIfMissing = true)
+public class CommentArchiveJob {
+
+    static final String HISTORY = "comment_history";
+    static final String FUTURE = "comment_future";
+    private static final String MONTH_PREFIX = "comment_p";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String TRY_LOCK = "select pg_try_advisory_lock(hashtext('comment_partitions'))";
+    private static final String UNLOCK = "select pg_advisory_unlock(hashtext('comment_partitions'))";
+    private static final String PENDING_DETACHES = """
+            select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = 'comment'::regclass and i.inhdetachpending""";
+    private static final String ATTACHED_MONTHS = """
+            select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid
+            where i.inhparent = 'comment'::regclass and c.relname ~ '^comment_p[0-9]{4}_[0-9]{2}$'
+            order by c.relname""";
+    private static final String DETACHED_TABLES = """
+            select c.relname from pg_class c
+            where c.relkind = 'r' and not c.relispartition and pg_table_is_visible(c.oid)
+              and (c.relname ~ '^comment_p[0-9]{4}_[0-9]{2}$' or c.relname in ('comment_history', 'comment_future'))
+            order by c.relname""";
+    private static final String MOVE_FROM_FUTURE = """
+            with moved as (delete from comment_future where time < ? returning *)
+            insert into comment select * from moved""";
+    private static final String ARCHIVE_HISTORY = """
+            with moved as (delete from comment_history where time < ? returning *),
+                 archived as (insert into comment_archive (id, news_id, time, username, text)
+                              select id, news_id, time, username, text from moved on conflict (id) do nothing)
+            select distinct news_id from moved""";
+    private static final String ARCHIVE_PARTITION = """
+            insert into comment_archive (id, news_id, time, username, text)
+            select id, news_id, time, username, text from %s on conflict (id) do nothing""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CommentCountCache commentCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final int partitionsAhead;
+    private final int retentionMonths;
+
+    @Autowired
+    public CommentArchiveJob(JdbcTemplate jdbcTemplate,
+                             CommentCountCache commentCountCache,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${archive.partitions-ahead:3}") int partitionsAhead,
+                             @Value("${archive.retention-months:6}") int retentionMonths) {
+        this(jdbcTemplate, commentCountCache, eventPublisher, Clock.systemDefaultZone(), partitionsAhead, retentionMonths);
+    }
+
+    CommentArchiveJob(JdbcTemplate jdbcTemplate, CommentCountCache commentCountCache,
+                      ApplicationEventPublisher eventPublisher, Clock clock, int partitionsAhead, int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.commentCountCache = commentCountCache;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.partitionsAhead = partitionsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Создает недостающие секции и архивирует устаревшие, после чего сдвигает границу {@code comment_history}
+     * к первой оставшейся месячной секции.
+     * Ошибки журналируются: следующая попытка будет выполнена по расписанию.
+     */
+    @Scheduled(cron = "${archive.cron:0 0 3 * * *}")
+    public void run() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                maintain(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("CommentArchiveJob: partition maintenance failed", e);
+        }
+    }
+
+    private void maintain(JdbcTemplate jdbc) {
+        if (!Boolean.TRUE.equals(jdbc.queryForObject(TRY_LOCK, Boolean.class))) {
+            log.info("CommentArchiveJob: partition maintenance is running on another instance");
+            return;
+        }
+        var newsIds = new LinkedHashSet<Long>();
+        try {
+            var transactions = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+            var archived = recover(jdbc, transactions, newsIds);
+            var monthStart = YearMonth.now(clock);
+            var created = createPartitions(jdbc, transactions, monthStart.plusMonths(partitionsAhead));
+            archived += archivePartitions(jdbc, transactions, monthStart.minusMonths(retentionMonths), newsIds);
+            if (archived > 0) {
+                detach(jdbc, HISTORY);
+                attachHistory(jdbc, attachedMonths(jdbc).get(0));
+            }
+            log.info("CommentArchiveJob: partitions created: {}, archived: {}", created, archived);
+        } finally {
+            jdbc.queryForObject(UNLOCK, Boolean.class);
+            evict(newsIds);
+        }
+    }
+
+    /**
+     * Удаляет из кэшей данные новостей, комментарии которых перенесены в архив,
+     * в том числе если обслуживание было прервано ошибкой.
+     */
+    private void evict(Set<Long> newsIds) {
+        if (!newsIds.isEmpty()) {
+            var archivedNewsIds = List.copyOf(newsIds);
+            commentCountCache.evict(archivedNewsIds);
+            eventPublisher.publishEvent(new CommentsArchivedEvent(archivedNewsIds));
+        }
+    }
+
+    /**
+     * Завершает работу, прерванную сбоем: отсоединение секций, перенос в архив отсоединенных месячных секций
+     * и присоединение граничных секций.
+     */
+    private int recover(JdbcTemplate jdbc, TransactionTemplate transactions, Set<Long> newsIds) {
+        jdbc.queryForList(PENDING_DETACHES, String.class)
+                .forEach(name -> jdbc.execute("alter table comment detach partition " + name + " finalize"));
+        var archived = 0;
+        for (var name : jdbc.queryForList(DETACHED_TABLES, String.class)) {
+            if (name.startsWith(MONTH_PREFIX)) {
+                archive(jdbc, transactions, name, newsIds);
+                archived++;
+            }
+        }
+        var months = attachedMonths(jdbc);
+        if (!months.isEmpty()) {
+            attachHistory(jdbc, months.get(0));
+            attachFuture(jdbc, months.get(months.size() - 1).plusMonths(1));
+        }
+        return archived;
+    }
+
+    /**
+     * Создает месячные секции по {@code until} включительно. Секция {@code comment_future} на это время
+     * отсоединяется, ее строки из диапазона новых секций переносятся в них.
+     */
+    private int createPartitions(JdbcTemplate jdbc, TransactionTemplate transactions, YearMonth until) {
+        var months = attachedMonths(jdbc);
+        var first = months.isEmpty() ? YearMonth.now(clock) : months.get(months.size() - 1).plusMonths(1);
+        if (first.isAfter(until)) {
+            return 0;
+        }
+        detach(jdbc, FUTURE);
+        transactions.executeWithoutResult(status -> {
+            for (var month = first; !month.isAfter(until); month = month.plusMonths(1)) {
+                var name = name(month);
+                jdbc.execute("create table " + name + " (like comment including defaults including constraints)");
+                jdbc.execute("alter table comment attach partition " + name
+                        + " for values from ('" + month.atDay(1) + "') to ('" + month.plusMonths(1).atDay(1) + "')");
+            }
+            jdbc.update(MOVE_FROM_FUTURE, until.plusMonths(1).atDay(1).atStartOfDay());
+            attachFuture(jdbc, until.plusMonths(1));
+        });
+        return (int) first.until(until, ChronoUnit.MONTHS) + 1;
+    }
+
+    /**
+     * Переносит в архив месячные секции, целиком предшествующие {@code before}, кроме последней,
+     * и строки {@code comment_history} до {@code before}.
+     */
+    private int archivePartitions(JdbcTemplate jdbc, TransactionTemplate transactions, YearMonth before, Set<Long> newsIds) {
+        newsIds.addAll(jdbc.queryForList(ARCHIVE_HISTORY, Long.class, before.atDay(1).atStartOfDay()));
+        var months = attachedMonths(jdbc);
+        var archived = 0;
+        for (var month : months) {
+            if (month.isBefore(before) && archived < months.size() - 1) {
+                detach(jdbc, name(month));
+                archive(jdbc, transactions, name(month), newsIds);
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    private void archive(JdbcTemplate jdbc, TransactionTemplate transactions, String name, Set<Long> newsIds) {
+        transactions.executeWithoutResult(status -> {
+            newsIds.addAll(jdbc.queryForList("select distinct news_id from " + name, Long.class));
+            jdbc.update(ARCHIVE_PARTITION.formatted(name));
+        });
+        jdbc.execute("drop table " + name);
+    }
+
+    private void detach(JdbcTemplate jdbc, String name) {
+        jdbc.execute("alter table comment detach partition " + name + " concurrently");
+    }
+
+    private void attachHistory(JdbcTemplate jdbc, YearMonth to) {
+        attach(jdbc, HISTORY, "minvalue", "'" + to.atDay(1) + "'");
+    }
+
+    private void attachFuture(JdbcTemplate jdbc, YearMonth from) {
+        attach(jdbc, FUTURE, "'" + from.atDay(1) + "'", "maxvalue");
+    }
+
+    /**
+     * Присоединяет граничную секцию с новыми границами. Ограничение с прежними границами, которое
+     * {@code detach partition ... concurrently} добавляет отсоединенной секции, удаляется после присоединения.
+     */
+    private void attach(JdbcTemplate jdbc, String name, String from, String to) {
+        if (isDetached(jdbc, name)) {
+            jdbc.execute("alter table comment attach partition " + name + " for values from (" + from + ") to (" + to + ")");
+            jdbc.execute("alter table " + name + " drop constraint if exists " + name + "_time_check");
+        }
+    }
+
+    private boolean isDetached(JdbcTemplate jdbc, String name) {
+        return jdbc.queryForList(DETACHED_TABLES, String.class).contains(name);
+    }
+
+    private List<YearMonth> attachedMonths(JdbcTemplate jdbc) {
+        var months = new ArrayList<YearMonth>();
+        for (var name : jdbc.queryForList(ATTACHED_MONTHS, String.class)) {
+            months.add(YearMonth.parse(name.substring(MONTH_PREFIX.length()), MONTH_FORMAT));
+        }
+        return months;
+    }
+
+    private static String name(YearMonth month) {
+        return MONTH_PREFIX + month.format(MONTH_FORMAT);
+    }
+}
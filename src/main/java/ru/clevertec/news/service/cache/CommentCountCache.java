@@ -0,0 +1,43 @@
+package ru.clevertec.news.service.cache;
+
+import java.util.Collection;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш количества комментариев по идентификатору новости.
+ * Значение вычисляется запросом к базе только при промахе, а затем поддерживается
+ * инкрементально при создании и удалении комментариев.
+ * <p>
+ * Изменение количества начинается в транзакции изменения комментариев и завершается после нее. Пока изменение
+ * не завершено, а также если оно было начато или завершено во время подсчета, подсчитанное значение
+ * не записывается в кэш: иначе оно могло бы не учесть изменение или учесть его дважды.
+ */
+public interface CommentCountCache {
+
+    /**
+     * Возвращает количество комментариев новости.
+     *
+     * @param newsId идентификатор новости
+     * @param loader функция подсчета количества комментариев при промахе кэша
+     * @return количество комментариев
+     */
+    long get(Long newsId, LongSupplier loader);
+
+    /**
+     * Изменяет закэшированное количество комментариев новости на заданную величину после фиксации текущей
+     * транзакции; при откате транзакции значение не изменяется. Вне транзакции изменение выполняется сразу.
+     * Если значение отсутствует в кэше, оно не создается.
+     *
+     * @param newsId идентификатор новости
+     * @param delta  величина изменения
+     */
+    void add(Long newsId, long delta);
+
+    /**
+     * Удаляет закэшированное количество комментариев новостей, изменившееся без участия сервиса,
+     * например при переносе комментариев в архив. Значения, подсчитанные до удаления, не записываются в кэш.
+     *
+     * @param newsIds идентификаторы новостей
+     */
+    void evict(Collection<Long> newsIds);
+}
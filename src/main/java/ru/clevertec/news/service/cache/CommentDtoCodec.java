@@ -0,0 +1,84 @@
+package ru.clevertec.news.service.cache;
+
+import ru.clevertec.news.cache.offheap.ValueCodec;
+import ru.clevertec.news.dto.CommentDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Компактная двоичная сериализация {@link CommentDto} для кэша вне кучи.
+ * <p>
+ * Формат: байт признаков заполненных полей, затем заполненные поля по порядку: id, время (секунды и наносекунды),
+ * текст и имя пользователя (длина и байты UTF-8), id новости.
+ */
+public class CommentDtoCodec implements ValueCodec<CommentDto> {
+
+    private static final int ID = 1;
+    private static final int TIME = 1 << 1;
+    private static final int TEXT = 1 << 2;
+    private static final int USERNAME = 1 << 3;
+    private static final int NEWS_ID = 1 << 4;
+
+    @Override
+    public void encode(CommentDto value, ByteBuffer target) {
+        var flags = (value.getId() != null ? ID : 0)
+                | (value.getTime() != null ? TIME : 0)
+                | (value.getText() != null ? TEXT : 0)
+                | (value.getUsername() != null ? USERNAME : 0)
+                | (value.getNewsId() != null ? NEWS_ID : 0);
+        target.put((byte) flags);
+        if (value.getId() != null) {
+            target.putLong(value.getId());
+        }
+        if (value.getTime() != null) {
+            target.putLong(value.getTime().toEpochSecond(ZoneOffset.UTC));
+            target.putInt(value.getTime().getNano());
+        }
+        if (value.getText() != null) {
+            putString(target, value.getText());
+        }
+        if (value.getUsername() != null) {
+            putString(target, value.getUsername());
+        }
+        if (value.getNewsId() != null) {
+            target.putLong(value.getNewsId());
+        }
+    }
+
+    @Override
+    public CommentDto decode(ByteBuffer source) {
+        var flags = source.get();
+        var dto = new CommentDto();
+        if ((flags & ID) != 0) {
+            dto.setId(source.getLong());
+        }
+        if ((flags & TIME) != 0) {
+            dto.setTime(LocalDateTime.ofEpochSecond(source.getLong(), source.getInt(), ZoneOffset.UTC));
+        }
+        if ((flags & TEXT) != 0) {
+            dto.setText(getString(source));
+        }
+        if ((flags & USERNAME) != 0) {
+            dto.setUsername(getString(source));
+        }
+        if ((flags & NEWS_ID) != 0) {
+            dto.setNewsId(source.getLong());
+        }
+        return dto;
+    }
+
+    private static void putString(ByteBuffer target, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        target.putInt(bytes.length);
+        target.put(bytes);
+    }
+
+    private static String getString(ByteBuffer source) {
+        var bytes = new byte[source.getInt()];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
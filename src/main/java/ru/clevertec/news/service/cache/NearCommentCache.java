@@ -0,0 +1,189 @@
+package ru.clevertec.news.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLfu;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLru;
+import ru.clevertec.news.cache.concurrent.LoadingCache;
+import ru.clevertec.news.cache.concurrent.LoadingCacheMetrics;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.exception.CacheNotFoundException;
+import ru.clevertec.news.model.enums.CommentEventType;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static ru.clevertec.news.constant.Variable.LFU;
+import static ru.clevertec.news.constant.Variable.LRU;
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.FIELD_COMMENT_ID;
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.FIELD_TYPE;
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.readRequest;
+
+/**
+ * Локальный (L1) кэш комментариев перед Redis.
+ * <p>
+ * Размер ограничен {@code cache.near.capacity}, вытеснение выполняется алгоритмом {@code cache.near.algorithm}.
+ * Каждый экземпляр сервиса читает поток событий изменений комментариев ({@code outbox.stream.key}), начиная
+ * с последнего события на момент запуска, и удаляет измененные и удаленные комментарии из своего кэша; экземпляр,
+ * выполнивший изменение, удаляет их сразу. Значение, прочитанное до инвалидации, не попадет в кэш после нее:
+ * запись выполняется, только если с момента начала чтения не было инвалидаций. Чтения и записи выполняются
+ * параллельно, исключительную блокировку берет только инвалидация. Время жизни записи {@code cache.near.ttl}
+ * ограничивает устаревание, пока поток недоступен; после ошибки чтения подписка не отменяется, и чтение
+ * продолжается с последнего полученного события.
+ */
+@Slf4j
+@Component
+@Profile("!dev")
+@ConditionalOnProperty(value = "cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class NearCommentCache implements StreamListener<String, MapRecord<String, String, String>>, MeterBinder {
+
+    private final LoadingCache<Long, Entry> cache;
+    private final long ttlMillis;
+    private final AtomicLong epoch = new AtomicLong();
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+    private final LongAdder streamErrors = new LongAdder();
+
+    public NearCommentCache(StringRedisTemplate redisTemplate,
+                            StreamMessageListenerContainer<String, MapRecord<String, String, String>> listenerContainer,
+                            @Value("${outbox.stream.key:comments:events}") String streamKey,
+                            @Value("${cache.near.algorithm:LRU}") String algorithm,
+                            @Value("${cache.near.capacity:10000}") int capacity,
+                            @Value("${cache.near.ttl:PT30S}") Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        this.cache = create(algorithm);
+        this.cache.capacity(capacity);
+        listenerContainer.register(readRequest(redisTemplate, streamKey, this::onError), this);
+    }
+
+    /**
+     * Закэшированный комментарий и момент окончания его жизни.
+     */
+    private record Entry(CommentDto value, long expiresAt) {
+    }
+
+    /**
+     * Возвращает номер текущей эпохи инвалидаций. Его нужно получить до чтения из Redis или базы
+     * и передать в {@link #put(Long, CommentDto, long)}.
+     *
+     * @return номер эпохи
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Возвращает комментарий из локального кэша.
+     *
+     * @param id идентификатор комментария
+     * @return комментарий или {@code null}, если его нет в кэше или время его жизни истекло
+     */
+    public CommentDto get(Long id) {
+        var entry = cache.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            cache.remove(id);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Записывает комментарий в локальный кэш, если с начала чтения не было инвалидаций.
+     *
+     * @param id      идентификатор комментария
+     * @param comment комментарий
+     * @param epoch   номер эпохи, полученный до начала чтения
+     */
+    public void put(Long id, CommentDto comment, long epoch) {
+        invalidationLock.readLock().lock();
+        try {
+            if (this.epoch.get() == epoch) {
+                cache.put(id, new Entry(comment, System.currentTimeMillis() + ttlMillis));
+            }
+        } finally {
+            invalidationLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет комментарии из локального кэша.
+     *
+     * @param ids идентификаторы комментариев
+     */
+    public void invalidate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        invalidationLock.writeLock().lock();
+        try {
+            epoch.incrementAndGet();
+            ids.forEach(cache::remove);
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Обрабатывает событие изменения комментария из потока: измененный или удаленный комментарий удаляется из кэша.
+     */
+    @Override
+    public void onMessage(MapRecord<String, String, String> message) {
+        var fields = message.getValue();
+        if (CommentEventType.CREATED.name().equals(fields.get(FIELD_TYPE))) {
+            return;
+        }
+        try {
+            invalidate(List.of(Long.valueOf(fields.get(FIELD_COMMENT_ID))));
+        } catch (NumberFormatException e) {
+            log.warn("NearCommentCache: malformed comment event: {}", message.getId());
+        }
+    }
+
+    /**
+     * Публикует метрики локального кэша с именем {@code comments.near} и количество ошибок чтения потока событий
+     * {@code comments.stream.errors} с тегом {@code listener=near-cache}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new LoadingCacheMetrics(cache, "comments.near", Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("comments.stream.errors", streamErrors, LongAdder::sum)
+                .description("Errors while reading the comment event stream")
+                .tag("listener", "near-cache")
+                .register(registry);
+    }
+
+    /**
+     * Учитывает ошибку чтения потока. Пока поток не читается, записи кэша устаревают не дольше {@code cache.near.ttl}.
+     */
+    private void onError(Throwable error) {
+        streamErrors.increment();
+        log.warn("NearCommentCache: comment event stream read failed: {}", error.getMessage());
+    }
+
+    private static LoadingCache<Long, Entry> create(String algorithm) {
+        if (algorithm.equals(LFU)) {
+            return new ConcurrentCacheLfu<>();
+        } else if (algorithm.equals(LRU)) {
+            return new ConcurrentCacheLru<>();
+        }
+        throw new CacheNotFoundException();
+    }
+}
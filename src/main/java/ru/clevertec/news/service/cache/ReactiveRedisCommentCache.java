@@ -0,0 +1,185 @@
+package ru.clevertec.news.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.service.cache.RedisCommentCache.Lookup;
+import ru.clevertec.news.service.cache.RedisCommentCache.WriteToken;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static ru.clevertec.news.service.cache.RedisCommentCache.BEGIN_WRITE;
+import static ru.clevertec.news.service.cache.RedisCommentCache.END_WRITE;
+import static ru.clevertec.news.service.cache.RedisCommentCache.FILL;
+import static ru.clevertec.news.service.cache.RedisCommentCache.GENERATION_SUFFIX;
+import static ru.clevertec.news.service.cache.RedisCommentCache.ITEM_PREFIX;
+import static ru.clevertec.news.service.cache.RedisCommentCache.NEWS_PREFIX;
+import static ru.clevertec.news.service.cache.RedisCommentCache.NO_VALUE;
+import static ru.clevertec.news.service.cache.RedisCommentCache.PUT_NEW;
+import static ru.clevertec.news.service.cache.RedisCommentCache.generation;
+import static ru.clevertec.news.service.cache.RedisCommentCache.keys;
+
+/**
+ * Реактивный вариант {@link RedisCommentCache} для профиля {@code reactive}.
+ * <p>
+ * Использует те же ключи, свойства и скрипты Lua, поэтому экземпляры с блокирующим и реактивным стеком
+ * могут работать с одним Redis. Кэшируются комментарии по id; страницы и первые комментарии новостей
+ * реактивный стек только инвалидирует.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveRedisCommentCache {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration itemTtl;
+    private final Duration newsTtl;
+    private final Duration pendingTtl;
+
+    public ReactiveRedisCommentCache(ReactiveStringRedisTemplate redisTemplate,
+                                     ObjectMapper objectMapper,
+                                     @Value("${cache.redis.ttl.comment:PT1H}") Duration itemTtl,
+                                     @Value("${cache.redis.ttl.news:PT5M}") Duration newsTtl,
+                                     @Value("${cache.redis.ttl.pending:PT30S}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.itemTtl = itemTtl;
+        this.newsTtl = newsTtl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    /**
+     * Читает комментарий из кэша.
+     *
+     * @param id идентификатор комментария
+     * @return результат чтения
+     */
+    public Mono<Lookup<CommentDto>> getComment(Long id) {
+        var key = ITEM_PREFIX + id;
+        return redisTemplate.opsForValue().multiGet(List.of(key, key + GENERATION_SUFFIX))
+                .map(values -> new Lookup<>(read(values.get(0)), generation(values.get(1))));
+    }
+
+    /**
+     * Записывает загруженный из базы комментарий в кэш, если с момента чтения его поколение не изменилось.
+     *
+     * @param lookup  результат чтения, после которого была выполнена загрузка
+     * @param comment загруженный комментарий
+     */
+    public Mono<Void> fillComment(Lookup<CommentDto> lookup, CommentDto comment) {
+        return execute(FILL, keys(ITEM_PREFIX, List.of(comment.getId())),
+                List.of(lookup.generation(), write(comment), String.valueOf(itemTtl.toMillis()), NO_VALUE));
+    }
+
+    /**
+     * Записывает новые комментарии в кэш, если по их идентификаторам еще не было записей.
+     *
+     * @param comments созданные комментарии
+     */
+    public Mono<Void> putNewComments(List<CommentDto> comments) {
+        if (comments.isEmpty()) {
+            return Mono.empty();
+        }
+        var args = new ArrayList<String>();
+        args.add(String.valueOf(itemTtl.toMillis()));
+        comments.forEach(comment -> args.add(write(comment)));
+        return execute(PUT_NEW, keys(ITEM_PREFIX, comments.stream().map(CommentDto::getId).toList()), args);
+    }
+
+    /**
+     * Начинает запись комментариев: инвалидирует их и запрещает заполнение кэша до завершения записи.
+     *
+     * @param ids идентификаторы комментариев
+     * @return маркер начатой записи
+     */
+    public Mono<WriteToken> beginCommentWrite(Collection<Long> ids) {
+        return beginWrite(ITEM_PREFIX, ids, itemTtl);
+    }
+
+    /**
+     * Завершает запись комментариев. Новое значение записывается в кэш, только если других записей не было.
+     *
+     * @param ids      идентификаторы комментариев в том же порядке, что и при начале записи
+     * @param token    маркер начатой записи
+     * @param comments новые значения комментариев; {@code null} элемент означает только инвалидацию
+     */
+    public Mono<Void> endCommentWrite(List<Long> ids, WriteToken token, List<CommentDto> comments) {
+        return endWrite(ITEM_PREFIX, ids, token, comments.stream().map(comment -> comment == null ? NO_VALUE : write(comment)).toList(), itemTtl);
+    }
+
+    /**
+     * Начинает изменение комментариев новостей: инвалидирует все закэшированные страницы этих новостей.
+     *
+     * @param newsIds идентификаторы новостей
+     * @return маркер начатой записи
+     */
+    public Mono<WriteToken> beginNewsWrite(Collection<Long> newsIds) {
+        return beginWrite(NEWS_PREFIX, newsIds, newsTtl);
+    }
+
+    /**
+     * Завершает изменение комментариев новостей.
+     *
+     * @param newsIds идентификаторы новостей в том же порядке, что и при начале записи
+     * @param token   маркер начатой записи
+     */
+    public Mono<Void> endNewsWrite(List<Long> newsIds, WriteToken token) {
+        return endWrite(NEWS_PREFIX, newsIds, token, newsIds.stream().map(newsId -> NO_VALUE).toList(), newsTtl);
+    }
+
+    private Mono<WriteToken> beginWrite(String prefix, Collection<Long> ids, Duration ttl) {
+        if (ids.isEmpty()) {
+            return Mono.just(new WriteToken(List.of()));
+        }
+        return redisTemplate.execute(BEGIN_WRITE, keys(prefix, ids),
+                        List.of(String.valueOf(pendingTtl.toMillis()), String.valueOf(ttl.toMillis())))
+                .next()
+                .map(generations -> new WriteToken(((List<?>) generations).stream().map(String::valueOf).toList()));
+    }
+
+    private Mono<Void> endWrite(String prefix, List<Long> ids, WriteToken token, List<String> values, Duration ttl) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        var args = new ArrayList<String>();
+        args.add(String.valueOf(ttl.toMillis()));
+        args.add(String.valueOf(ttl.toMillis()));
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(token.generations().get(i));
+            args.add(values.get(i));
+        }
+        return execute(END_WRITE, keys(prefix, ids), args);
+    }
+
+    private Mono<Void> execute(RedisScript<?> script, List<String> keys, List<String> args) {
+        return redisTemplate.execute(script, keys, args).then();
+    }
+
+    private String write(CommentDto value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CommentDto read(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, CommentDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package ru.clevertec.news.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.page.PageContentDto;
+import ru.clevertec.news.dto.page.PageDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш комментариев и страниц комментариев новостей в Redis с гарантией отсутствия устаревших чтений.
+ * <p>
+ * Для каждого комментария и каждой новости хранятся три ключа: значение, поколение ({@code :gen})
+ * и счетчик незавершенных записей ({@code :pending}). Читатель при промахе запоминает поколение,
+ * загружает данные из базы и записывает их в кэш, только если за это время не было записей
+ * и нет незавершенных записей. Писатель до начала транзакции увеличивает счетчик записей и поколение
+ * и удаляет значение, а после ее завершения снова увеличивает поколение и, если он был единственным
+ * писателем, записывает новое значение (write-through).
+ * <p>
+ * Метрики: {@code cache.gets} с тегами {@code cache} ({@code comments.redis.item}, {@code comments.redis.news})
+ * и {@code result} ({@code hit}, {@code miss}), а также {@code cache.evictions} с тегом {@code cache=comments.redis} —
+ * количество ключей, вытесненных сервером Redis по ограничению памяти.
+ */
+@Component
+@Profile("!dev")
+@ConditionalOnProperty(value = "cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisCommentCache implements MeterBinder {
+
+    static final String ITEM_PREFIX = "comments:item:";
+    static final String NEWS_PREFIX = "comments:news:";
+    static final String GENERATION_SUFFIX = ":gen";
+    private static final String PENDING_SUFFIX = ":pending";
+    private static final String INITIAL_GENERATION = "0";
+    static final String NO_VALUE = "";
+
+    private static final RedisScript<List> READ_FIELD = new DefaultRedisScript<>(
+            "return {redis.call('hget', KEYS[1], ARGV[1]), redis.call('get', KEYS[2])}",
+            List.class
+    );
+
+    private static final RedisScript<List> READ_FIELDS = new DefaultRedisScript<>("""
+            local result = {}
+            for i = 1, #KEYS, 2 do
+              result[#result + 1] = redis.call('hget', KEYS[i], ARGV[1])
+              result[#result + 1] = redis.call('get', KEYS[i + 1])
+            end
+            return result
+            """, List.class);
+
+    static final RedisScript<Long> FILL = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[3]) == 1 then return 0 end
+            if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            if ARGV[4] == '' then
+              redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            else
+              redis.call('hset', KEYS[1], ARGV[4], ARGV[2])
+              if redis.call('pttl', KEYS[1]) < 0 then redis.call('pexpire', KEYS[1], ARGV[3]) end
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> FILL_ALL = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              local n = (i + 2) / 3
+              if redis.call('exists', KEYS[i + 2]) == 0 and (redis.call('get', KEYS[i + 1]) or '0') == ARGV[n * 2] then
+                redis.call('set', KEYS[i], ARGV[n * 2 + 1], 'PX', ARGV[1])
+              end
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> FILL_FIELDS = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              local n = (i + 2) / 3
+              if redis.call('exists', KEYS[i + 2]) == 0 and (redis.call('get', KEYS[i + 1]) or '0') == ARGV[1 + n * 2] then
+                redis.call('hset', KEYS[i], ARGV[2], ARGV[2 + n * 2])
+                if redis.call('pttl', KEYS[i]) < 0 then redis.call('pexpire', KEYS[i], ARGV[1]) end
+              end
+            end
+            return 1
+            """, Long.class);
+
+    static final RedisScript<List> BEGIN_WRITE = new DefaultRedisScript<>("""
+            local result = {}
+            for i = 1, #KEYS, 3 do
+              redis.call('incr', KEYS[i + 2])
+              redis.call('pexpire', KEYS[i + 2], ARGV[1])
+              result[#result + 1] = redis.call('incr', KEYS[i + 1])
+              redis.call('pexpire', KEYS[i + 1], ARGV[2])
+              redis.call('del', KEYS[i])
+            end
+            return result
+            """, List.class);
+
+    static final RedisScript<Long> END_WRITE = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              local n = (i + 2) / 3
+              local pending = tonumber(redis.call('get', KEYS[i + 2]) or '0')
+              local value = ARGV[2 + n * 2]
+              if value ~= '' and pending <= 1 and redis.call('get', KEYS[i + 1]) == ARGV[1 + n * 2] then
+                redis.call('set', KEYS[i], value, 'PX', ARGV[1])
+              else
+                redis.call('del', KEYS[i])
+              end
+              redis.call('incr', KEYS[i + 1])
+              redis.call('pexpire', KEYS[i + 1], ARGV[2])
+              if pending <= 1 then redis.call('del', KEYS[i + 2]) else redis.call('decr', KEYS[i + 2]) end
+            end
+            return 1
+            """, Long.class);
+
+    static final RedisScript<Long> PUT_NEW = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              if redis.call('exists', KEYS[i + 1]) == 0 and redis.call('exists', KEYS[i + 2]) == 0 then
+                redis.call('set', KEYS[i], ARGV[1 + (i + 2) / 3], 'PX', ARGV[1])
+              end
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration itemTtl;
+    private final Duration newsTtl;
+    private final Duration pendingTtl;
+    private final LongAdder itemHits = new LongAdder();
+    private final LongAdder itemMisses = new LongAdder();
+    private final LongAdder newsHits = new LongAdder();
+    private final LongAdder newsMisses = new LongAdder();
+
+    public RedisCommentCache(StringRedisTemplate redisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${cache.redis.ttl.comment:PT1H}") Duration itemTtl,
+                             @Value("${cache.redis.ttl.news:PT5M}") Duration newsTtl,
+                             @Value("${cache.redis.ttl.pending:PT30S}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.itemTtl = itemTtl;
+        this.newsTtl = newsTtl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    /**
+     * Результат чтения из кэша.
+     *
+     * @param value      найденное значение или {@code null} при промахе
+     * @param generation поколение ключа на момент чтения, передается в метод заполнения кэша
+     * @param <T>        тип значения
+     */
+    public record Lookup<T>(T value, String generation) {
+
+        public boolean isHit() {
+            return value != null;
+        }
+    }
+
+    /**
+     * Закэшированная страница комментариев новости.
+     */
+    private record CachedPage(int totalPages, long totalElements, List<CommentDto> content) {
+    }
+
+    /**
+     * Начатая запись: поколения ключей после ее начала.
+     *
+     * @param generations поколения ключей в порядке переданных идентификаторов
+     */
+    public record WriteToken(List<String> generations) {
+    }
+
+    /**
+     * Читает комментарий из кэша.
+     *
+     * @param id идентификатор комментария
+     * @return результат чтения
+     */
+    public Lookup<CommentDto> getComment(Long id) {
+        var key = ITEM_PREFIX + id;
+        var values = redisTemplate.opsForValue().multiGet(List.of(key, key + GENERATION_SUFFIX));
+        var lookup = new Lookup<>(read(values.get(0), CommentDto.class), generation(values.get(1)));
+        (lookup.isHit() ? itemHits : itemMisses).increment();
+        return lookup;
+    }
+
+    /**
+     * Записывает загруженный из базы комментарий в кэш, если с момента чтения его поколение не изменилось.
+     *
+     * @param lookup  результат чтения, после которого была выполнена загрузка
+     * @param comment загруженный комментарий
+     */
+    public void fillComment(Lookup<CommentDto> lookup, CommentDto comment) {
+        redisTemplate.execute(FILL, keys(ITEM_PREFIX, List.of(comment.getId())),
+                lookup.generation(), write(comment), String.valueOf(itemTtl.toMillis()), NO_VALUE);
+    }
+
+    /**
+     * Читает комментарии из кэша одной командой MGET.
+     *
+     * @param ids идентификаторы комментариев без повторов
+     * @return результаты чтения в порядке переданных идентификаторов
+     */
+    public Map<Long, Lookup<CommentDto>> getComments(List<Long> ids) {
+        var keys = new ArrayList<String>(ids.size() * 2);
+        for (var id : ids) {
+            var key = ITEM_PREFIX + id;
+            keys.add(key);
+            keys.add(key + GENERATION_SUFFIX);
+        }
+        var values = redisTemplate.opsForValue().multiGet(keys);
+        var lookups = new LinkedHashMap<Long, Lookup<CommentDto>>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            var lookup = new Lookup<>(read(values.get(i * 2), CommentDto.class), generation(values.get(i * 2 + 1)));
+            (lookup.isHit() ? itemHits : itemMisses).increment();
+            lookups.put(ids.get(i), lookup);
+        }
+        return lookups;
+    }
+
+    /**
+     * Записывает загруженные из базы комментарии в кэш одним скриптом. Каждый комментарий записывается,
+     * только если с момента чтения его поколение не изменилось.
+     *
+     * @param lookups  результаты чтения, после которых была выполнена загрузка
+     * @param comments загруженные комментарии
+     */
+    public void fillComments(Map<Long, Lookup<CommentDto>> lookups, List<CommentDto> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        var args = new ArrayList<String>(comments.size() * 2 + 1);
+        args.add(String.valueOf(itemTtl.toMillis()));
+        for (var comment : comments) {
+            args.add(lookups.get(comment.getId()).generation());
+            args.add(write(comment));
+        }
+        redisTemplate.execute(FILL_ALL, keys(ITEM_PREFIX, comments.stream().map(CommentDto::getId).toList()), args.toArray());
+    }
+
+    /**
+     * Записывает новые комментарии в кэш, если по их идентификаторам еще не было записей.
+     *
+     * @param comments созданные комментарии
+     */
+    public void putNewComments(List<CommentDto> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        var args = new ArrayList<String>();
+        args.add(String.valueOf(itemTtl.toMillis()));
+        comments.forEach(comment -> args.add(write(comment)));
+        redisTemplate.execute(PUT_NEW, keys(ITEM_PREFIX, comments.stream().map(CommentDto::getId).toList()), args.toArray());
+    }
+
+    /**
+     * Начинает запись комментариев: инвалидирует их и запрещает заполнение кэша до завершения записи.
+     *
+     * @param ids идентификаторы комментариев
+     * @return маркер начатой записи
+     */
+    public WriteToken beginCommentWrite(Collection<Long> ids) {
+        return beginWrite(ITEM_PREFIX, ids, itemTtl);
+    }
+
+    /**
+     * Завершает запись комментариев. Новое значение записывается в кэш, только если других записей не было.
+     *
+     * @param ids      идентификаторы комментариев в том же порядке, что и при начале записи
+     * @param token    маркер начатой записи
+     * @param comments новые значения комментариев; {@code null} элемент означает только инвалидацию
+     */
+    public void endCommentWrite(List<Long> ids, WriteToken token, List<CommentDto> comments) {
+        endWrite(ITEM_PREFIX, ids, token, comments.stream().map(comment -> comment == null ? NO_VALUE : write(comment)).toList(), itemTtl);
+    }
+
+    /**
+     * Читает страницу комментариев новости из кэша.
+     *
+     * @param newsId идентификатор новости
+     * @param param  параметры пагинации
+     * @return результат чтения
+     */
+    public Lookup<PageContentDto<CommentDto>> getNewsPage(Long newsId, PageParamDto param) {
+        var key = NEWS_PREFIX + newsId;
+        var values = redisTemplate.execute(READ_FIELD, List.of(key, key + GENERATION_SUFFIX), field(param));
+        var page = read((String) values.get(0), CachedPage.class);
+        (page != null ? newsHits : newsMisses).increment();
+        return new Lookup<>(page == null ? null : new PageContentDto<>(
+                new PageDto(param.pageNumber(), param.pageSize(), page.totalPages(), page.totalElements()), page.content()
+        ), generation((String) values.get(1)));
+    }
+
+    /**
+     * Записывает загруженную из базы страницу комментариев новости в кэш,
+     * если с момента чтения комментарии новости не изменялись.
+     *
+     * @param newsId идентификатор новости
+     * @param param  параметры пагинации
+     * @param lookup результат чтения, после которого была выполнена загрузка
+     * @param page   загруженная страница
+     * @param totalPages    количество страниц
+     * @param totalElements количество комментариев
+     */
+    public void fillNewsPage(Long newsId, PageParamDto param, Lookup<PageContentDto<CommentDto>> lookup,
+                             List<CommentDto> page, int totalPages, long totalElements) {
+        redisTemplate.execute(FILL, keys(NEWS_PREFIX, List.of(newsId)), lookup.generation(),
+                write(new CachedPage(totalPages, totalElements, page)), String.valueOf(newsTtl.toMillis()), field(param));
+    }
+
+    /**
+     * Читает первые комментарии новостей из кэша одним скриптом. Значения хранятся вместе со страницами
+     * комментариев новости и инвалидируются вместе с ними.
+     *
+     * @param newsIds идентификаторы новостей без повторов
+     * @param limit   количество первых комментариев
+     * @return результаты чтения в порядке переданных идентификаторов
+     */
+    public Map<Long, Lookup<NewsCommentsDto>> getNewsTop(List<Long> newsIds, int limit) {
+        var keys = new ArrayList<String>(newsIds.size() * 2);
+        for (var newsId : newsIds) {
+            var key = NEWS_PREFIX + newsId;
+            keys.add(key);
+            keys.add(key + GENERATION_SUFFIX);
+        }
+        var values = redisTemplate.execute(READ_FIELDS, keys, topField(limit));
+        var lookups = new LinkedHashMap<Long, Lookup<NewsCommentsDto>>(newsIds.size() * 2);
+        for (int i = 0; i < newsIds.size(); i++) {
+            var lookup = new Lookup<>(read((String) values.get(i * 2), NewsCommentsDto.class), generation((String) values.get(i * 2 + 1)));
+            (lookup.isHit() ? newsHits : newsMisses).increment();
+            lookups.put(newsIds.get(i), lookup);
+        }
+        return lookups;
+    }
+
+    /**
+     * Записывает загруженные из базы первые комментарии новостей в кэш одним скриптом.
+     * Значение для новости записывается, только если с момента чтения ее комментарии не изменялись.
+     *
+     * @param lookups результаты чтения, после которых была выполнена загрузка
+     * @param tops    загруженные первые комментарии новостей
+     * @param limit   количество первых комментариев
+     */
+    public void fillNewsTop(Map<Long, Lookup<NewsCommentsDto>> lookups, List<NewsCommentsDto> tops, int limit) {
+        if (tops.isEmpty()) {
+            return;
+        }
+        var args = new ArrayList<String>(tops.size() * 2 + 2);
+        args.add(String.valueOf(newsTtl.toMillis()));
+        args.add(topField(limit));
+        for (var top : tops) {
+            args.add(lookups.get(top.newsId()).generation());
+            args.add(write(top));
+        }
+        redisTemplate.execute(FILL_FIELDS, keys(NEWS_PREFIX, tops.stream().map(NewsCommentsDto::newsId).toList()), args.toArray());
+    }
+
+    /**
+     * Начинает изменение комментариев новостей: инвалидирует все закэшированные страницы этих новостей.
+     *
+     * @param newsIds идентификаторы новостей
+     * @return маркер начатой записи
+     */
+    public WriteToken beginNewsWrite(Collection<Long> newsIds) {
+        return beginWrite(NEWS_PREFIX, newsIds, newsTtl);
+    }
+
+    /**
+     * Завершает изменение комментариев новостей.
+     *
+     * @param newsIds идентификаторы новостей в том же порядке, что и при начале записи
+     * @param token   маркер начатой записи
+     */
+    public void endNewsWrite(List<Long> newsIds, WriteToken token) {
+        endWrite(NEWS_PREFIX, newsIds, token, newsIds.stream().map(newsId -> NO_VALUE).toList(), newsTtl);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindGets(registry, "comments.redis.item", itemHits, itemMisses);
+        bindGets(registry, "comments.redis.news", newsHits, newsMisses);
+        FunctionCounter.builder("cache.evictions", this, RedisCommentCache::evictedKeys)
+                .tag("cache", "comments.redis")
+                .description("Keys evicted by the Redis server due to the maxmemory limit")
+                .register(registry);
+    }
+
+    private void bindGets(MeterRegistry registry, String cache, LongAdder hits, LongAdder misses) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", cache, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", cache, "result", "miss")
+                .register(registry);
+    }
+
+    private double evictedKeys() {
+        try {
+            var info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("stats"));
+            return info == null ? Double.NaN : Double.parseDouble(info.getProperty("evicted_keys", "NaN"));
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private WriteToken beginWrite(String prefix, Collection<Long> ids, Duration ttl) {
+        if (ids.isEmpty()) {
+            return new WriteToken(List.of());
+        }
+        List<?> generations = redisTemplate.execute(BEGIN_WRITE, keys(prefix, ids),
+                String.valueOf(pendingTtl.toMillis()), String.valueOf(ttl.toMillis()));
+        return new WriteToken(generations.stream().map(String::valueOf).toList());
+    }
+
+    private void endWrite(String prefix, List<Long> ids, WriteToken token, List<String> values, Duration ttl) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        var args = new ArrayList<String>();
+        args.add(String.valueOf(ttl.toMillis()));
+        args.add(String.valueOf(ttl.toMillis()));
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(token.generations().get(i));
+            args.add(values.get(i));
+        }
+        redisTemplate.execute(END_WRITE, keys(prefix, ids), args.toArray());
+    }
+
+    static List<String> keys(String prefix, Collection<Long> ids) {
+        var keys = new ArrayList<String>(ids.size() * 3);
+        for (var id : ids) {
+            var key = prefix + id;
+            keys.add(key);
+            keys.add(key + GENERATION_SUFFIX);
+            keys.add(key + PENDING_SUFFIX);
+        }
+        return keys;
+    }
+
+    private String field(PageParamDto param) {
+        return param.pageNumber() + ":" + param.pageSize();
+    }
+
+    private String topField(int limit) {
+        return "top:" + limit;
+    }
+
+    static String generation(String value) {
+        return value == null ? INITIAL_GENERATION : value;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.clevertec.news.service.cache.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.service.cache.CommentCountCache;
+import ru.clevertec.news.util.TransactionUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Реализация кэша количества комментариев в памяти приложения.
+ * Для каждой новости вместе со значением хранятся поколение и количество незавершенных изменений.
+ */
+@Component
+@Profile("dev")
+public class LocalCommentCountCache implements CommentCountCache {
+
+    private final Map<Long, Entry> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Состояние счетчика новости.
+     *
+     * @param count      количество комментариев или {@code null}, если оно не закэшировано
+     * @param generation поколение, увеличивается при начале и завершении каждого изменения
+     * @param pending    количество незавершенных изменений
+     */
+    private record Entry(Long count, long generation, int pending) {
+    }
+
+    @Override
+    public long get(Long newsId, LongSupplier loader) {
+        var entry = counts.get(newsId);
+        if (entry != null && entry.count() != null) {
+            return entry.count();
+        }
+        var generation = entry == null ? 0 : entry.generation();
+        var count = loader.getAsLong();
+        if (entry == null || entry.pending() == 0) {
+            counts.compute(newsId, (key, current) -> {
+                if (current == null) {
+                    return generation == 0 ? new Entry(count, 0, 0) : null;
+                }
+                return current.pending() == 0 && current.generation() == generation && current.count() == null
+                        ? new Entry(count, generation, 0)
+                        : current;
+            });
+        }
+        return count;
+    }
+
+    @Override
+    public void add(Long newsId, long delta) {
+        counts.compute(newsId, (key, current) -> current == null
+                ? new Entry(null, 1, 1)
+                : new Entry(current.count(), current.generation() + 1, current.pending() + 1));
+        TransactionUtils.afterCompletion(committed -> counts.computeIfPresent(newsId, (key, current) -> {
+            var count = current.count();
+            if (committed && count != null) {
+                count = Math.max(0, count + delta);
+            }
+            return new Entry(count, current.generation() + 1, Math.max(0, current.pending() - 1));
+        }));
+    }
+
+    @Override
+    public void evict(Collection<Long> newsIds) {
+        newsIds.forEach(newsId -> counts.compute(newsId, (key, current) -> current == null
+                ? new Entry(null, 1, 0)
+                : new Entry(null, current.generation() + 1, current.pending())));
+    }
+}
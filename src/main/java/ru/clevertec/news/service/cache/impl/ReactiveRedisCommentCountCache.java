@@ -0,0 +1,85 @@
+package ru.clevertec.news.service.cache.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static ru.clevertec.news.service.cache.impl.RedisCommentCountCache.BEGIN_WRITE;
+import static ru.clevertec.news.service.cache.impl.RedisCommentCountCache.END_WRITE;
+import static ru.clevertec.news.service.cache.impl.RedisCommentCountCache.FILL;
+import static ru.clevertec.news.service.cache.impl.RedisCommentCountCache.generation;
+import static ru.clevertec.news.service.cache.impl.RedisCommentCountCache.keys;
+
+/**
+ * Реактивный вариант {@link RedisCommentCountCache} для профиля {@code reactive} с теми же ключами и скриптами.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveRedisCommentCountCache {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+
+    public ReactiveRedisCommentCountCache(ReactiveStringRedisTemplate redisTemplate,
+                                          @Value("${cache.count.ttl:PT1H}") Duration ttl,
+                                          @Value("${cache.redis.ttl.pending:PT30S}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    /**
+     * Возвращает количество комментариев новости. Подсчитанное при промахе значение записывается в кэш,
+     * только если за время подсчета изменения количества не начинались и не завершались.
+     *
+     * @param newsId идентификатор новости
+     * @param loader подсчет количества комментариев при промахе кэша
+     * @return количество комментариев
+     */
+    public Mono<Long> get(Long newsId, Mono<Long> loader) {
+        var keys = keys(List.of(newsId));
+        return redisTemplate.opsForValue().multiGet(keys).flatMap(values -> values.get(0) != null
+                ? Mono.just(Long.parseLong(values.get(0)))
+                : loader.flatMap(count -> values.get(2) != null
+                        ? Mono.just(count)
+                        : redisTemplate.execute(FILL, keys, List.of(generation(values.get(1)), String.valueOf(count),
+                                String.valueOf(ttl.toMillis()))).then(Mono.just(count))));
+    }
+
+    /**
+     * Начинает изменение количества комментариев новостей. Вызывается до фиксации транзакции.
+     *
+     * @param newsIds идентификаторы новостей без повторов
+     */
+    public Mono<Void> begin(List<Long> newsIds) {
+        if (newsIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return redisTemplate.execute(BEGIN_WRITE, keys(newsIds),
+                List.of(String.valueOf(pendingTtl.toMillis()), String.valueOf(ttl.toMillis()))).then();
+    }
+
+    /**
+     * Завершает изменение количества комментариев новостей, начатое {@link #begin(List)}.
+     * Закэшированные значения изменяются на величины из {@code deltas}; отсутствующие значения не создаются.
+     *
+     * @param newsIds идентификаторы новостей, переданные в {@link #begin(List)}
+     * @param deltas  величины изменения по идентификатору новости, пустые при откате транзакции
+     */
+    public Mono<Void> end(List<Long> newsIds, Map<Long, Long> deltas) {
+        if (newsIds.isEmpty()) {
+            return Mono.empty();
+        }
+        var args = Stream.concat(Stream.of(String.valueOf(ttl.toMillis())),
+                newsIds.stream().map(newsId -> String.valueOf(deltas.getOrDefault(newsId, 0L)))).toList();
+        return redisTemplate.execute(END_WRITE, keys(newsIds), args).then();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.clevertec.news.service.cache.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.service.cache.CommentCountCache;
+import ru.clevertec.news.util.TransactionUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Реализация кэша количества комментариев в Redis, общая для всех экземпляров сервиса.
+ * <p>
+ * Как и в {@link ru.clevertec.news.service.cache.RedisCommentCache}, для каждой новости кроме значения хранятся
+ * поколение ({@code :gen}) и счетчик незавершенных изменений ({@code :pending}): подсчитанное при промахе
+ * значение записывается, только если поколение не изменилось с момента чтения и незавершенных изменений нет.
+ */
+@Component
+@Profile("!dev")
+public class RedisCommentCountCache implements CommentCountCache {
+
+    static final String KEY_PREFIX = "comments:count:";
+    private static final String GENERATION_SUFFIX = ":gen";
+    private static final String PENDING_SUFFIX = ":pending";
+    static final String INITIAL_GENERATION = "0";
+
+    static final RedisScript<Long> FILL = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[3]) == 1 then return 0 end
+            if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end
+            redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    static final RedisScript<Long> BEGIN_WRITE = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              redis.call('incr', KEYS[i + 2])
+              redis.call('pexpire', KEYS[i + 2], ARGV[1])
+              redis.call('incr', KEYS[i + 1])
+              redis.call('pexpire', KEYS[i + 1], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Изменяет счетчик только если он уже есть в кэше, чтобы не создать его с неверным значением.
+     */
+    static final RedisScript<Long> END_WRITE = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              local delta = ARGV[1 + (i + 2) / 3]
+              if delta ~= '0' and redis.call('exists', KEYS[i]) == 1 then redis.call('incrby', KEYS[i], delta) end
+              redis.call('incr', KEYS[i + 1])
+              redis.call('pexpire', KEYS[i + 1], ARGV[1])
+              local pending = tonumber(redis.call('get', KEYS[i + 2]) or '0')
+              if pending <= 1 then redis.call('del', KEYS[i + 2]) else redis.call('decr', KEYS[i + 2]) end
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> EVICT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS, 3 do
+              redis.call('del', KEYS[i])
+              redis.call('incr', KEYS[i + 1])
+              redis.call('pexpire', KEYS[i + 1], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+
+    public RedisCommentCountCache(StringRedisTemplate redisTemplate,
+                                  @Value("${cache.count.ttl:PT1H}") Duration ttl,
+                                  @Value("${cache.redis.ttl.pending:PT30S}") Duration pendingTtl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+    }
+
+    @Override
+    public long get(Long newsId, LongSupplier loader) {
+        var keys = keys(List.of(newsId));
+        var values = redisTemplate.opsForValue().multiGet(keys);
+        if (values.get(0) != null) {
+            return Long.parseLong(values.get(0));
+        }
+        var count = loader.getAsLong();
+        if (values.get(2) == null) {
+            redisTemplate.execute(FILL, keys, generation(values.get(1)), String.valueOf(count), String.valueOf(ttl.toMillis()));
+        }
+        return count;
+    }
+
+    @Override
+    public void add(Long newsId, long delta) {
+        var keys = keys(List.of(newsId));
+        redisTemplate.execute(BEGIN_WRITE, keys, String.valueOf(pendingTtl.toMillis()), String.valueOf(ttl.toMillis()));
+        TransactionUtils.afterCompletion(committed -> redisTemplate.execute(END_WRITE, keys,
+                String.valueOf(ttl.toMillis()), String.valueOf(committed ? delta : 0)));
+    }
+
+    @Override
+    public void evict(Collection<Long> newsIds) {
+        if (!newsIds.isEmpty()) {
+            redisTemplate.execute(EVICT, keys(List.copyOf(newsIds)), String.valueOf(ttl.toMillis()));
+        }
+    }
+
+    static List<String> keys(List<Long> newsIds) {
+        return newsIds.stream()
+                .flatMap(newsId -> {
+                    var key = KEY_PREFIX + newsId;
+                    return List.of(key, key + GENERATION_SUFFIX, key + PENDING_SUFFIX).stream();
+                })
+                .toList();
+    }
+
+    static String generation(String value) {
+        return value == null ? INITIAL_GENERATION : value;
+    }
+}
@@ -0,0 +1,200 @@
+package ru.clevertec.news.service.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.dto.CommentEventDto;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лента изменений комментариев новости для подписчиков Server-Sent Events этого экземпляра сервиса.
+ * <p>
+ * События поступают из потока изменений ({@link RedisStreamCommentFeedListener}, в профиле {@code dev} —
+ * напрямую от ретранслятора), поэтому подписчики получают изменения, выполненные любым экземпляром.
+ * Каждое событие разбирается один раз и раздается подписчикам новости без блокировки: у каждого подписчика
+ * своя очередь на {@code feed.buffer-size} событий. Подписчик, не успевающий читать события, отключается
+ * при переполнении очереди, не задерживая остальных; клиент переподключается и перечитывает страницу новости.
+ * Пока событий нет, раз в {@code feed.heartbeat-interval} отправляется комментарий SSE, чтобы соединение
+ * не закрывали прокси и обрыв соединения обнаруживался без ожидания следующего события.
+ */
+@Slf4j
+@Component
+public class CommentFeedHub implements MeterBinder, Closeable {
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final Duration heartbeatInterval;
+
+    public CommentFeedHub(ObjectMapper objectMapper,
+                          @Value("${feed.buffer-size:64}") int bufferSize,
+                          @Value("${feed.heartbeat-interval:PT15S}") Duration heartbeatInterval) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    /**
+     * Подписчик ленты с ограниченной очередью неотправленных событий.
+     */
+    private static final class Subscriber {
+
+        private final Sinks.Many<ServerSentEvent<CommentDto>> events;
+        private final Sinks.Empty<Void> closed = Sinks.empty();
+
+        private Subscriber(int bufferSize) {
+            this.events = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+        }
+
+        private synchronized Sinks.EmitResult offer(ServerSentEvent<CommentDto> event) {
+            return events.tryEmitNext(event);
+        }
+
+        private synchronized void complete() {
+            events.tryEmitComplete();
+            closed.tryEmitEmpty();
+        }
+    }
+
+    /**
+     * Подписывается на изменения комментариев новости. Событие SSE содержит идентификатор события потока
+     * изменений, тип изменения в качестве имени и комментарий после изменения; для удаленного комментария
+     * заполнены только {@code id} и {@code newsId}.
+     *
+     * @param newsId идентификатор новости
+     * @return бесконечный поток событий, завершается при отключении медленного подписчика
+     */
+    public Flux<ServerSentEvent<CommentDto>> subscribe(Long newsId) {
+        return Flux.defer(() -> {
+            var subscriber = new Subscriber(bufferSize);
+            subscribers.compute(newsId, (id, set) -> {
+                var result = set == null ? ConcurrentHashMap.<Subscriber>newKeySet() : set;
+                result.add(subscriber);
+                return result;
+            });
+            subscriberCount.incrementAndGet();
+            var heartbeats = Flux.interval(heartbeatInterval)
+                    .map(tick -> ServerSentEvent.<CommentDto>builder().comment("").build())
+                    .takeUntilOther(subscriber.closed.asMono());
+            return Flux.merge(1, subscriber.events.asFlux(), heartbeats)
+                    .publishOn(Schedulers.boundedElastic(), 1)
+                    .doFinally(signal -> remove(newsId, subscriber));
+        });
+    }
+
+    /**
+     * Раздает событие подписчикам новости этого экземпляра. Изменение, перенесшее комментарий в другую новость,
+     * получают также подписчики прежней новости.
+     *
+     * @param event событие изменения комментария
+     */
+    public void publish(CommentEventDto event) {
+        var targets = targets(event.newsId());
+        var previousTargets = Objects.equals(event.previousNewsId(), event.newsId()) ? null : targets(event.previousNewsId());
+        if (targets == null && previousTargets == null) {
+            return;
+        }
+        ServerSentEvent<CommentDto> sse;
+        try {
+            sse = ServerSentEvent.builder(comment(event))
+                    .id(String.valueOf(event.id()))
+                    .event(event.type().name())
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("CommentFeedHub: malformed comment event: {}", event.id());
+            return;
+        }
+        published.increment();
+        if (targets != null) {
+            offer(event.newsId(), targets, sse);
+        }
+        if (previousTargets != null) {
+            offer(event.previousNewsId(), previousTargets, sse);
+        }
+    }
+
+    /**
+     * Раздает события подписчикам новостей этого экземпляра в порядке списка.
+     *
+     * @param events события изменений комментариев
+     */
+    public void publish(List<CommentEventDto> events) {
+        events.forEach(this::publish);
+    }
+
+    /**
+     * Завершает ленты всех подписчиков при остановке приложения.
+     */
+    @Override
+    public void close() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::complete));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("comments.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live comment feed subscriptions")
+                .register(registry);
+        FunctionCounter.builder("comments.feed.events", published, LongAdder::sum)
+                .description("Comment events fanned out to at least one subscriber")
+                .register(registry);
+        FunctionCounter.builder("comments.feed.dropped", dropped, LongAdder::sum)
+                .description("Subscribers disconnected because their buffer overflowed")
+                .register(registry);
+    }
+
+    private CommentDto comment(CommentEventDto event) throws JsonProcessingException {
+        return event.payload() == null
+                ? new CommentDto(event.commentId(), null, null, null, event.newsId())
+                : objectMapper.readValue(event.payload(), CommentDto.class);
+    }
+
+    private Set<Subscriber> targets(Long newsId) {
+        var targets = newsId == null ? null : subscribers.get(newsId);
+        return targets == null || targets.isEmpty() ? null : targets;
+    }
+
+    private void offer(Long newsId, Set<Subscriber> targets, ServerSentEvent<CommentDto> sse) {
+        for (var subscriber : targets) {
+            var result = subscriber.offer(sse);
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                dropped.increment();
+                subscriber.complete();
+                remove(newsId, subscriber);
+            }
+        }
+    }
+
+    private void remove(Long newsId, Subscriber subscriber) {
+        subscribers.computeIfPresent(newsId, (id, set) -> {
+            if (set.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
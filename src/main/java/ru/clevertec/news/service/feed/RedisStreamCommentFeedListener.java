@@ -0,0 +1,65 @@
+package ru.clevertec.news.service.feed;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.service.outbox.RedisStreamCommentEventSink;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.readRequest;
+
+/**
+ * Передает события потока изменений {@code outbox.stream.key} в {@link CommentFeedHub} этого экземпляра.
+ * Поток читается каждым экземпляром сервиса, начиная с последнего события на момент запуска; после ошибки чтения
+ * подписка не отменяется, и чтение продолжается с последнего полученного события.
+ */
+@Slf4j
+@Component
+@Profile("!dev")
+public class RedisStreamCommentFeedListener implements StreamListener<String, MapRecord<String, String, String>>, MeterBinder {
+
+    private final CommentFeedHub commentFeedHub;
+    private final LongAdder streamErrors = new LongAdder();
+
+    public RedisStreamCommentFeedListener(CommentFeedHub commentFeedHub,
+                                          StringRedisTemplate redisTemplate,
+                                          StreamMessageListenerContainer<String, MapRecord<String, String, String>> listenerContainer,
+                                          @Value("${outbox.stream.key:comments:events}") String streamKey) {
+        this.commentFeedHub = commentFeedHub;
+        listenerContainer.register(readRequest(redisTemplate, streamKey, this::onError), this);
+    }
+
+    @Override
+    public void onMessage(MapRecord<String, String, String> message) {
+        try {
+            commentFeedHub.publish(RedisStreamCommentEventSink.event(message.getValue()));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("CommentFeedListener: malformed comment event: {}", message.getId());
+        }
+    }
+
+    /**
+     * Публикует количество ошибок чтения потока событий {@code comments.stream.errors} с тегом {@code listener=feed}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("comments.stream.errors", streamErrors, LongAdder::sum)
+                .description("Errors while reading the comment event stream")
+                .tag("listener", "feed")
+                .register(registry);
+    }
+
+    private void onError(Throwable error) {
+        streamErrors.increment();
+        log.warn("CommentFeedListener: comment event stream read failed: {}", error.getMessage());
+    }
+}
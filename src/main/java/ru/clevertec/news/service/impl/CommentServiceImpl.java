@@ -1,12 +1,19 @@
 package ru.clevertec.news.service.impl;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.clevertec.news.converter.CommentConverter;
 import ru.clevertec.news.dto.CommentDto;
 import ru.clevertec.news.dto.create.CommentCreateDto;
@@ -17,38 +24,89 @@ import ru.clevertec.news.dto.update.CommentUpdateDto;
 import ru.clevertec.news.dto.util.PageUtils;
 import ru.clevertec.news.exception.EntityNotFoundException;
 import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentCountDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+import ru.clevertec.news.model.entity.Comment;
+import ru.clevertec.news.model.enums.SearchMode;
+import ru.clevertec.news.repository.ArchivedCommentRepository;
 import ru.clevertec.news.repository.CommentRepository;
 import ru.clevertec.news.service.CommentService;
+import ru.clevertec.news.service.cache.CommentCountCache;
+import ru.clevertec.news.service.outbox.CommentOutbox;
 import ru.clevertec.news.specification.CommentSpecification;
+import ru.clevertec.news.util.CursorUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Реализация сервисного слоя для работы с комментариями.
+ * <p>
+ * Методы чтения выполняются в транзакциях только для чтения и получают комментарии из репозитория сразу
+ * в виде {@link CommentDto}, без загрузки сущностей в контекст персистентности и проверки их изменений.
+ * Создание, изменение и удаление записывают события в {@link CommentOutbox} в той же транзакции.
  */
 @Slf4j
 @Service
-@Transactional
+@Transactional(readOnly = true)
+@Timed(value = "comments.service", histogram = true)
 @AllArgsConstructor
 public class CommentServiceImpl implements CommentService {
 
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, Comment.Fields.id);
+
     private final CommentRepository commentRepository;
+    private final ArchivedCommentRepository archivedCommentRepository;
     private final CommentConverter commentConverter;
+    private final CommentCountCache commentCountCache;
+    private final CommentOutbox commentOutbox;
 
     /**
      * Возвращает информацию о комментарии по заданному id.
+     * Если комментарий не найден в оперативной таблице, он ищется в архиве.
      *
      * @param id комментария
      * @return информация о комментарии
      * @throws EntityNotFoundException если комментарий не найден
      */
-    @Cacheable(value = "comment", key = "#id")
     @Override
     public CommentDto findById(Long id) {
-        log.info("CommentService: find comment by id: " + id);
-        return commentConverter.convert(commentRepository.findById(id).orElseThrow(EntityNotFoundException::new));
+        log.debug("CommentService: find comment by id: {}", id);
+        return commentRepository.findDtoById(id)
+                .or(() -> archivedCommentRepository.findDtoById(id))
+                .orElseThrow(EntityNotFoundException::new);
+    }
+
+    /**
+     * Возвращает комментарии по списку id одним запросом.
+     * Комментарии возвращаются в порядке переданных id без повторов, отсутствующие id пропускаются.
+     *
+     * @param ids идентификаторы комментариев
+     * @return найденные комментарии
+     */
+    @Override
+    public List<CommentDto> findAllById(List<Long> ids) {
+        log.debug("CommentService: find comments by ids: {}", ids.size());
+        var distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        var comments = commentRepository.findDtoAllById(distinctIds).stream()
+                .collect(Collectors.toMap(CommentDto::getId, Function.identity()));
+        return distinctIds.stream().map(comments::get).filter(Objects::nonNull).toList();
     }
 
     /**
      * Ищет комментарии по идентификатору новости с учетом пагинации.
+     * Общее количество комментариев берется из {@link CommentCountCache}, поэтому запрос на подсчет
+     * выполняется только при промахе кэша.
      *
      * @param param объект, содержащий параметры пагинации (номер страницы и размер страницы)
      * @param id    идентификатор новости, для которой нужно найти комментарии
@@ -57,15 +115,109 @@ public class CommentServiceImpl implements CommentService {
      */
     @Override
     public PageContentDto<CommentDto> findByNewsId(PageParamDto param, Long id) {
-        log.info("CommentService: find comment by news id: " + id);
+        log.debug("CommentService: find comment by news id: {}", id);
         var pageable = PageUtils.page(param);
-        var page = commentRepository.findByNewsId(pageable, id);
+        var slice = commentRepository.findSliceByNewsId(pageable, id);
+        var totalElements = commentCountCache.get(id, () -> commentRepository.countByNewsId(id));
+        var totalPages = (int) Math.ceil((double) totalElements / param.pageSize());
         return new PageContentDto<>(
-                new PageDto(param.pageNumber(), param.pageSize(), page.getTotalPages(), page.getTotalElements()),
-                commentConverter.convertToList(page.getContent())
+                new PageDto(param.pageNumber(), param.pageSize(), totalPages, totalElements),
+                slice.getContent()
         );
     }
 
+    /**
+     * Возвращает первые комментарии и общее количество комментариев для каждой из новостей.
+     * Первые комментарии всех новостей выбираются одним запросом с {@code row_number()} по новости,
+     * количество подсчитывается одним сгруппированным запросом и только для новостей, у которых
+     * комментариев не меньше {@code limit}: для остальных оно равно числу выбранных комментариев.
+     *
+     * @param newsIds идентификаторы новостей
+     * @param limit   количество первых комментариев каждой новости
+     * @return комментарии новостей в порядке переданных идентификаторов, без повторов
+     */
+    @Override
+    public List<NewsCommentsDto> findTopByNewsIds(List<Long> newsIds, int limit) {
+        log.debug("CommentService: find top comments by news ids: {}", newsIds.size());
+        var distinctIds = newsIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        var comments = commentRepository.findTopByNewsIds(distinctIds, limit).stream()
+                .collect(Collectors.groupingBy(CommentDto::getNewsId));
+        var fullIds = distinctIds.stream()
+                .filter(id -> comments.getOrDefault(id, List.of()).size() >= limit)
+                .toList();
+        var counts = fullIds.isEmpty() ? Map.<Long, Long>of() : commentRepository.countByNewsIds(fullIds).stream()
+                .collect(Collectors.toMap(NewsCommentCountDto::newsId, NewsCommentCountDto::count));
+        return distinctIds.stream().map(id -> {
+            var content = comments.getOrDefault(id, List.of());
+            return new NewsCommentsDto(id, counts.getOrDefault(id, (long) content.size()), content);
+        }).toList();
+    }
+
+    /**
+     * Ищет комментарии по идентификатору новости без подсчета общего количества.
+     *
+     * @param param объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param id    идентификатор новости, для которой нужно найти комментарии
+     * @return экземпляр {@link SliceContentDto}, содержащий список объектов {@link CommentDto}
+     * и признак наличия следующей страницы
+     */
+    @Override
+    public SliceContentDto<CommentDto> findSliceByNewsId(PageParamDto param, Long id) {
+        log.debug("CommentService: find comment slice by news id: {}", id);
+        var slice = commentRepository.findSliceByNewsId(PageUtils.page(param), id);
+        return new SliceContentDto<>(param.pageNumber(), param.pageSize(), slice.hasNext(), slice.getContent());
+    }
+
+    /**
+     * Ищет комментарии по идентификатору новости с курсорной (keyset) пагинацией.
+     * Страницы упорядочены по (time desc, id desc), запрос на подсчет общего количества не выполняется.
+     *
+     * @param id       идентификатор новости, для которой нужно найти комментарии
+     * @param cursor   токен курсора, полученный с предыдущей страницы, или {@code null} для первой страницы
+     * @param pageSize размер страницы
+     * @return экземпляр {@link CursorPageDto}, содержащий список объектов {@link CommentDto}
+     * и токен для получения следующей страницы
+     * @throws ru.clevertec.news.exception.InvalidCursorException если токен курсора некорректен
+     */
+    @Override
+    public CursorPageDto<CommentDto> findByNewsIdWithCursor(Long id, String cursor, int pageSize) {
+        log.debug("CommentService: find comment by news id with cursor: {}", id);
+        var pageable = PageRequest.of(0, pageSize + 1);
+        List<CommentDto> comments;
+        if (cursor == null || cursor.isEmpty()) {
+            comments = commentRepository.findKeysetByNewsId(id, pageable);
+        } else {
+            var position = CursorUtils.decode(cursor);
+            comments = commentRepository.findKeysetByNewsIdAfter(id, position.time(), position.id(), pageable);
+        }
+        String nextCursor = null;
+        if (comments.size() > pageSize) {
+            comments = comments.subList(0, pageSize);
+            var last = comments.get(pageSize - 1);
+            nextCursor = CursorUtils.encode(last.getTime(), last.getId());
+        }
+        return new CursorPageDto<>(comments, nextCursor);
+    }
+
+    /**
+     * Передает все комментарии новости получателю по мере чтения из базы, упорядоченными по (time desc, id desc).
+     * Строки читаются курсором на стороне сервера порциями по {@link ru.clevertec.news.constant.Constant#EXPORT_FETCH_SIZE}
+     * сразу в виде {@link CommentDto}, поэтому потребление памяти не зависит от количества комментариев.
+     *
+     * @param id       идентификатор новости
+     * @param consumer получатель комментариев, вызывается в транзакции чтения
+     */
+    @Override
+    public void exportByNewsId(Long id, Consumer<CommentDto> consumer) {
+        log.debug("CommentService: export comments by news id: {}", id);
+        try (var comments = commentRepository.streamByNewsId(id)) {
+            comments.forEach(consumer);
+        }
+    }
+
     /**
      * Ищет все комментарии с учетом пагинации и фильтрации.
      *
@@ -76,53 +228,165 @@ public class CommentServiceImpl implements CommentService {
      */
     @Override
     public PageContentDto<CommentDto> findAll(PageParamDto param, CommentFilterDto filter) {
-        log.info("CommentService: find all comment");
+        log.debug("CommentService: find all comment");
         var pageable = PageUtils.page(param);
-        var specification = Specification.where(CommentSpecification.findAll(filter));
-        var page = commentRepository.findAll(specification, pageable);
+        Page<CommentDto> page;
+        if (isFullTextSearch(filter)) {
+            var username = StringUtils.defaultIfEmpty(filter.username(), null);
+            var content = commentRepository.searchByText(filter.text(), username, filter.from(), filter.to(), pageable.getPageSize(), pageable.getOffset());
+            page = new PageImpl<>(commentConverter.convertToList(content), pageable, commentRepository.countByText(filter.text(), username, filter.from(), filter.to()));
+        } else {
+            var specification = Specification.where(CommentSpecification.findAll(filter));
+            page = commentRepository.findPage(specification, withDefaultSort(pageable));
+        }
         return new PageContentDto<>(
                 new PageDto(param.pageNumber(), param.pageSize(), page.getTotalPages(), page.getTotalElements()),
-                commentConverter.convertToList(page.getContent())
+                page.getContent()
         );
     }
 
+    /**
+     * Ищет все комментарии с учетом фильтрации без подсчета общего количества.
+     *
+     * @param param  объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param filter объект, содержащий условия фильтрации комментариев
+     * @return экземпляр {@link SliceContentDto}, содержащий список объектов {@link CommentDto}
+     * и признак наличия следующей страницы
+     */
+    @Override
+    public SliceContentDto<CommentDto> findSlice(PageParamDto param, CommentFilterDto filter) {
+        log.debug("CommentService: find comment slice");
+        var pageable = PageUtils.page(param);
+        Slice<CommentDto> slice;
+        if (isFullTextSearch(filter)) {
+            var username = StringUtils.defaultIfEmpty(filter.username(), null);
+            var content = commentRepository.searchByText(filter.text(), username, filter.from(), filter.to(), pageable.getPageSize() + 1, pageable.getOffset());
+            var hasNext = content.size() > pageable.getPageSize();
+            content = hasNext ? content.subList(0, pageable.getPageSize()) : content;
+            slice = new SliceImpl<>(commentConverter.convertToList(content), pageable, hasNext);
+        } else {
+            var specification = Specification.where(CommentSpecification.findAll(filter));
+            slice = commentRepository.findSlice(specification, withDefaultSort(pageable));
+        }
+        return new SliceContentDto<>(param.pageNumber(), param.pageSize(), slice.hasNext(), slice.getContent());
+    }
+
+    /**
+     * Добавляет к параметрам пагинации стабильную сортировку по убыванию id, если сортировка не задана:
+     * без нее порядок строк между страницами не определен.
+     *
+     * @param pageable параметры пагинации
+     * @return параметры пагинации с сортировкой
+     */
+    private Pageable withDefaultSort(Pageable pageable) {
+        return pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DEFAULT_SORT);
+    }
+
+    /**
+     * Проверяет, нужно ли выполнять полнотекстовый поиск по фильтру.
+     *
+     * @param filter объект, содержащий условия фильтрации комментариев
+     * @return {@code true}, если выбран режим {@link SearchMode#FULL_TEXT} и задан фрагмент текста
+     */
+    private boolean isFullTextSearch(CommentFilterDto filter) {
+        return filter.mode() == SearchMode.FULL_TEXT && StringUtils.isNotEmpty(filter.text());
+    }
+
     /**
      * Создает новый комментарий на основе данных из DTO.
      *
      * @param dto данные для создания комментария
      * @return созданный комментарий
      */
-    @CacheEvict(value = "comments", key = "#dto.username")
     @Override
+    @Transactional
     public CommentDto create(CommentCreateDto dto) {
-        log.info("CommentService: create comment: " + dto);
-        return commentConverter.convert(commentRepository.save(commentConverter.convert(dto)));
+        log.debug("CommentService: create comment for news: {}", dto.getNewsId());
+        var comment = commentRepository.save(commentConverter.convert(dto));
+        var newsId = comment.getNewsId();
+        var commentDto = commentConverter.convert(comment);
+        commentOutbox.created(List.of(commentDto));
+        commentCountCache.add(newsId, 1);
+        return commentDto;
+    }
+
+    /**
+     * Создает комментарии пакетом на основе списка DTO.
+     * Вставка выполняется JDBC-пакетами, счетчики комментариев обновляются один раз на каждую новость.
+     *
+     * @param dtos данные для создания комментариев
+     * @return созданные комментарии
+     */
+    @Override
+    @Transactional
+    public List<CommentDto> createAll(List<CommentCreateDto> dtos) {
+        log.debug("CommentService: create comments: {}", dtos.size());
+        var comments = commentRepository.persistAll(commentConverter.convertToEntityList(dtos));
+        var counts = comments.stream().collect(Collectors.groupingBy(Comment::getNewsId, Collectors.counting()));
+        counts.forEach(commentCountCache::add);
+        var commentDtos = commentConverter.convertToList(comments);
+        commentOutbox.created(commentDtos);
+        return commentDtos;
     }
 
     /**
      * Обновляет информацию о комментарии на основе данных из DTO.
+     * Строка комментария блокируется до записи события, поэтому события изменений одного комментария
+     * получают id в порядке фиксации транзакций.
      *
      * @param dto данные для обновления комментария
      * @return обновленный комментарий
      * @throws EntityNotFoundException если комментарий не найден
      */
-    @CacheEvict(value = "comments", key = "#dto.id")
     @Override
+    @Transactional
     public CommentDto update(CommentUpdateDto dto) {
-        log.info("CommentService: update comment: " + dto);
-        var comment = commentRepository.findById(dto.getId()).orElseThrow(EntityNotFoundException::new);
-        return commentConverter.convert(commentRepository.save(commentConverter.merge(comment, dto)));
+        log.debug("CommentService: update comment: {}", dto.getId());
+        var comment = commentRepository.findForUpdateById(dto.getId()).orElseThrow(EntityNotFoundException::new);
+        var oldNewsId = comment.getNewsId();
+        var updated = commentRepository.save(commentConverter.merge(comment, dto));
+        var newNewsId = updated.getNewsId();
+        if (!Objects.equals(oldNewsId, newNewsId)) {
+            commentCountCache.add(oldNewsId, -1);
+            commentCountCache.add(newNewsId, 1);
+        }
+        var commentDto = commentConverter.convert(updated);
+        commentOutbox.updated(commentDto, oldNewsId);
+        return commentDto;
     }
 
     /**
-     * Удаляет комментарий по заданному id.
+     * Удаляет комментарий по заданному id. Строка комментария блокируется до записи события.
      *
      * @param id комментария
      */
-    @CacheEvict(value = "comments", allEntries = true)
     @Override
+    @Transactional
     public void delete(Long id) {
-        log.info("CommentService: delete comment by id: " + id);
+        log.debug("CommentService: delete comment by id: {}", id);
+        commentRepository.findNewsIdForUpdateById(id).ifPresent(newsId -> {
+            commentOutbox.deleted(List.of(new CommentNewsIdDto(id, newsId)));
+            commentCountCache.add(newsId, -1);
+        });
         commentRepository.deleteById(id);
     }
+
+    /**
+     * Удаляет комментарии по списку id одним запросом. Строки комментариев блокируются в порядке id
+     * до записи событий.
+     *
+     * @param ids идентификаторы комментариев
+     */
+    @Override
+    @Transactional
+    public void deleteAll(List<Long> ids) {
+        log.debug("CommentService: delete comments: {}", ids.size());
+        var comments = commentRepository.findNewsIdsForUpdateByIds(ids);
+        commentRepository.deleteAllByIdInBatch(ids);
+        commentOutbox.deleted(comments);
+        var counts = comments.stream().collect(Collectors.groupingBy(CommentNewsIdDto::newsId, Collectors.counting()));
+        counts.forEach((newsId, count) -> commentCountCache.add(newsId, -count));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,790 @@
+package ru.clevertec.news.service.impl;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.page.PageContentDto;
+import ru.clevertec.news.dto.page.PageDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.dto.util.PageUtils;
+import ru.clevertec.news.exception.EntityNotFoundException;
+import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.dto.CursorPageDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.dto.SliceContentDto;
+import ru.clevertec.news.model.enums.SearchMode;
+import ru.clevertec.news.service.ReactiveCommentService;
+import ru.clevertec.news.service.cache.NearCommentCache;
+import ru.clevertec.news.service.cache.ReactiveRedisCommentCache;
+import ru.clevertec.news.service.cache.RedisCommentCache.WriteToken;
+import ru.clevertec.news.service.cache.impl.ReactiveRedisCommentCountCache;
+import ru.clevertec.news.service.outbox.ReactiveCommentOutbox;
+import ru.clevertec.news.util.CursorUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static ru.clevertec.news.constant.Constant.EXPORT_FETCH_SIZE;
+
+/**
+ * Реактивная реализация сервисного слоя для профиля {@code reactive}.
+ * <p>
+ * Запросы выполняются через R2DBC к основной базе и совпадают с запросами {@link CommentServiceImpl}.
+ * Комментарии по id читаются через {@link NearCommentCache} и {@link ReactiveRedisCommentCache}, количество
+ * комментариев новости — через {@link ReactiveRedisCommentCountCache}. Изменения выполняются в транзакции R2DBC
+ * вместе с записью событий в {@link ReactiveCommentOutbox}, кэш обновляется по той же схеме, что и в
+ * {@link ru.clevertec.news.service.proxy.CommentRedisProxyService}: записи начинаются до транзакции
+ * и завершаются после нее при любом исходе. Новости изменяемых комментариев для этих записей читаются
+ * до транзакции, а в транзакции строки комментариев блокируются; если комментарий за это время перенесли
+ * в другую новость, транзакция откатывается и изменение повторяется.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCommentServiceImpl implements ReactiveCommentService {
+
+    /**
+     * Шаг последовательности {@code comment_seq}: значение последовательности резервирует блок из стольких id,
+     * как и у генератора id сущности {@code Comment}.
+     */
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    /**
+     * Наибольшее количество повторов изменения, если комментарий перенесли в другую новость во время изменения.
+     */
+    private static final int MOVED_RETRIES = 3;
+
+    private static final String COLUMNS = "c.id, c.time, c.text, c.username, c.news_id";
+    private static final String KEYSET_ORDER = " order by c.time desc, c.id desc";
+    private static final String TEXT_CONDITIONS = """
+             where to_tsvector('simple', c.text) @@ websearch_to_tsquery('simple', :query)
+              and (cast(:username as text) is null or c.username like concat('%', cast(:username as text), '%'))
+              and c.time >= coalesce(cast(:from as timestamp), '-infinity')
+              and c.time < coalesce(cast(:to as timestamp), 'infinity')
+            """;
+
+    private static final String SELECT_BY_ID = "select " + COLUMNS + " from comment c where c.id = :id";
+    private static final String SELECT_ARCHIVED_BY_ID = "select " + COLUMNS + " from comment_archive c where c.id = :id";
+    private static final String SELECT_BY_IDS = "select " + COLUMNS + " from comment c where c.id = any(:ids)";
+    private static final String SELECT_BY_NEWS_ID = "select " + COLUMNS + " from comment c where c.news_id = :newsId"
+            + KEYSET_ORDER + " limit :limit offset :offset";
+    private static final String COUNT_BY_NEWS_ID = "select count(*) from comment c where c.news_id = :newsId";
+    private static final String SELECT_TOP_BY_NEWS_IDS = """
+            select t.id, t.time, t.text, t.username, t.news_id
+            from (
+                select c.id, c.time, c.text, c.username, c.news_id,
+                       row_number() over (partition by c.news_id order by c.time desc, c.id desc) as position
+                from comment c
+                where c.news_id = any(:newsIds)
+            ) t
+            where t.position <= :limit
+            order by t.news_id, t.position
+            """;
+    private static final String COUNT_BY_NEWS_IDS = """
+            select c.news_id, count(*) as count
+            from comment c
+            where c.news_id = any(:newsIds)
+            group by c.news_id
+            """;
+    private static final String SELECT_KEYSET = "select " + COLUMNS + " from comment c where c.news_id = :newsId"
+            + KEYSET_ORDER + " limit :limit";
+    private static final String SELECT_KEYSET_AFTER = "select " + COLUMNS + " from comment c where c.news_id = :newsId"
+            + " and (c.time < :time or (c.time = :time and c.id < :id))" + KEYSET_ORDER + " limit :limit";
+    private static final String EXPORT_BY_NEWS_ID = "select " + COLUMNS + " from comment c where c.news_id = :newsId"
+            + KEYSET_ORDER;
+    private static final String SEARCH_BY_TEXT = "select " + COLUMNS + " from comment c" + TEXT_CONDITIONS
+            + " order by ts_rank(to_tsvector('simple', c.text), websearch_to_tsquery('simple', :query)) desc, c.id desc"
+            + " limit :limit offset :offset";
+    private static final String COUNT_BY_TEXT = "select count(*) from comment c" + TEXT_CONDITIONS;
+    private static final String SELECT_NEWS_IDS_BY_IDS = "select c.id, c.news_id from comment c where c.id = any(:ids)";
+    private static final String SELECT_NEWS_ID_FOR_UPDATE = "select c.news_id from comment c where c.id = :id for update";
+    private static final String INSERT = """
+            insert into comment (id, time, text, username, news_id)
+            select e.id, :time, e.text, e.username, e.news_id
+            from unnest(cast(:ids as bigint[]), cast(:texts as text[]), cast(:usernames as text[]), cast(:newsIds as bigint[]))
+                as e(id, text, username, news_id)
+            """;
+    private static final String UPDATE = """
+            update comment c set time = :time, text = :text, username = :username, news_id = :newsId
+            where c.id = :id
+            returning c.id, c.time, c.text, c.username, c.news_id
+            """;
+    private static final String NEXT_ID_BLOCKS = "select nextval('comment_seq') from generate_series(1, :count)";
+    private static final String DELETE_BY_IDS = "delete from comment c where c.id = any(:ids) returning c.id, c.news_id";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ReactiveRedisCommentCache redisCommentCache;
+    private final NearCommentCache nearCommentCache;
+    private final ReactiveRedisCommentCountCache commentCountCache;
+    private final ReactiveCommentOutbox commentOutbox;
+
+    private final AtomicReference<IdBlock> idBlock = new AtomicReference<>(new IdBlock(1, 0));
+
+    /**
+     * Возвращает информацию о комментарии по заданному id.
+     * Комментарий ищется в локальном кэше, затем в Redis, затем в оперативной таблице и в архиве;
+     * загруженный из базы комментарий записывается в оба кэша.
+     *
+     * @param id комментария
+     * @return информация о комментарии или ошибка {@link EntityNotFoundException}, если комментарий не найден
+     */
+    @Override
+    public Mono<CommentDto> findById(Long id) {
+        log.debug("ReactiveCommentService: find comment by id: {}", id);
+        return Mono.defer(() -> {
+            var epoch = nearCommentCache.epoch();
+            var local = nearCommentCache.get(id);
+            if (local != null) {
+                return Mono.just(local);
+            }
+            return redisCommentCache.getComment(id).flatMap(lookup -> {
+                if (lookup.value() != null) {
+                    nearCommentCache.put(id, lookup.value(), epoch);
+                    return Mono.just(lookup.value());
+                }
+                return selectOne(SELECT_BY_ID, id)
+                        .switchIfEmpty(Mono.defer(() -> selectOne(SELECT_ARCHIVED_BY_ID, id)))
+                        .switchIfEmpty(Mono.error(EntityNotFoundException::new))
+                        .flatMap(comment -> redisCommentCache.fillComment(lookup, comment)
+                                .doOnSuccess(ignored -> nearCommentCache.put(id, comment, epoch))
+                                .thenReturn(comment));
+            });
+        });
+    }
+
+    /**
+     * Возвращает комментарии по списку id одним запросом.
+     * Комментарии возвращаются в порядке переданных id без повторов, отсутствующие id пропускаются.
+     *
+     * @param ids идентификаторы комментариев
+     * @return найденные комментарии
+     */
+    @Override
+    public Flux<CommentDto> findAllById(List<Long> ids) {
+        log.debug("ReactiveCommentService: find comments by ids: {}", ids.size());
+        var distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(SELECT_BY_IDS)
+                .bind("ids", distinctIds.toArray(Long[]::new))
+                .map(ReactiveCommentServiceImpl::toDto)
+                .all()
+                .collectMap(CommentDto::getId)
+                .flatMapIterable(comments -> distinctIds.stream().map(comments::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Ищет комментарии по идентификатору новости с учетом пагинации.
+     * Страница и общее количество комментариев из {@link ReactiveRedisCommentCountCache} запрашиваются параллельно.
+     *
+     * @param param объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param id    идентификатор новости, для которой нужно найти комментарии
+     * @return экземпляр {@link PageContentDto}, содержащий пагинированный список объектов {@link CommentDto}
+     * и информацию о пагинации
+     */
+    @Override
+    public Mono<PageContentDto<CommentDto>> findByNewsId(PageParamDto param, Long id) {
+        log.debug("ReactiveCommentService: find comment by news id: {}", id);
+        var pageable = PageUtils.page(param);
+        var content = databaseClient.sql(SELECT_BY_NEWS_ID)
+                .bind("newsId", id)
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveCommentServiceImpl::toDto)
+                .all()
+                .collectList();
+        var totalElements = commentCountCache.get(id, count(databaseClient.sql(COUNT_BY_NEWS_ID).bind("newsId", id)));
+        return Mono.zip(content, totalElements).map(page -> new PageContentDto<>(
+                new PageDto(param.pageNumber(), param.pageSize(), totalPages(page.getT2(), param.pageSize()), page.getT2()),
+                page.getT1()
+        ));
+    }
+
+    /**
+     * Возвращает первые комментарии и общее количество комментариев для каждой из новостей.
+     * Количество подсчитывается только для новостей, у которых комментариев не меньше {@code limit}.
+     *
+     * @param newsIds идентификаторы новостей
+     * @param limit   количество первых комментариев каждой новости
+     * @return комментарии новостей в порядке переданных идентификаторов, без повторов
+     */
+    @Override
+    public Flux<NewsCommentsDto> findTopByNewsIds(List<Long> newsIds, int limit) {
+        log.debug("ReactiveCommentService: find top comments by news ids: {}", newsIds.size());
+        var distinctIds = newsIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(SELECT_TOP_BY_NEWS_IDS)
+                .bind("newsIds", distinctIds.toArray(Long[]::new))
+                .bind("limit", limit)
+                .map(ReactiveCommentServiceImpl::toDto)
+                .all()
+                .collect(Collectors.groupingBy(CommentDto::getNewsId))
+                .flatMapMany(comments -> {
+                    var fullIds = distinctIds.stream()
+                            .filter(id -> comments.getOrDefault(id, List.of()).size() >= limit)
+                            .toArray(Long[]::new);
+                    var counts = fullIds.length == 0 ? Mono.just(Map.<Long, Long>of()) : databaseClient.sql(COUNT_BY_NEWS_IDS)
+                            .bind("newsIds", fullIds)
+                            .map(row -> Map.entry(row.get("news_id", Long.class), row.get("count", Long.class)))
+                            .all()
+                            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+                    return counts.flatMapIterable(totals -> distinctIds.stream().map(id -> {
+                        var content = comments.getOrDefault(id, List.of());
+                        return new NewsCommentsDto(id, totals.getOrDefault(id, (long) content.size()), content);
+                    }).toList());
+                });
+    }
+
+    /**
+     * Ищет комментарии по идентификатору новости без подсчета общего количества.
+     *
+     * @param param объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param id    идентификатор новости, для которой нужно найти комментарии
+     * @return экземпляр {@link SliceContentDto}, содержащий список объектов {@link CommentDto}
+     * и признак наличия следующей страницы
+     */
+    @Override
+    public Mono<SliceContentDto<CommentDto>> findSliceByNewsId(PageParamDto param, Long id) {
+        log.debug("ReactiveCommentService: find comment slice by news id: {}", id);
+        var pageable = PageUtils.page(param);
+        return slice(param, databaseClient.sql(SELECT_BY_NEWS_ID)
+                .bind("newsId", id)
+                .bind("limit", pageable.getPageSize() + 1)
+                .bind("offset", pageable.getOffset()));
+    }
+
+    /**
+     * Ищет комментарии по идентификатору новости с курсорной (keyset) пагинацией.
+     * Страницы упорядочены по (time desc, id desc), запрос на подсчет общего количества не выполняется.
+     *
+     * @param id       идентификатор новости, для которой нужно найти комментарии
+     * @param cursor   токен курсора, полученный с предыдущей страницы, или {@code null} для первой страницы
+     * @param pageSize размер страницы
+     * @return экземпляр {@link CursorPageDto} или ошибка {@link ru.clevertec.news.exception.InvalidCursorException},
+     * если токен курсора некорректен
+     */
+    @Override
+    public Mono<CursorPageDto<CommentDto>> findByNewsIdWithCursor(Long id, String cursor, int pageSize) {
+        log.debug("ReactiveCommentService: find comment by news id with cursor: {}", id);
+        return Mono.defer(() -> {
+            GenericExecuteSpec spec;
+            if (cursor == null || cursor.isEmpty()) {
+                spec = databaseClient.sql(SELECT_KEYSET);
+            } else {
+                var position = CursorUtils.decode(cursor);
+                spec = databaseClient.sql(SELECT_KEYSET_AFTER).bind("time", position.time()).bind("id", position.id());
+            }
+            return spec.bind("newsId", id)
+                    .bind("limit", pageSize + 1)
+                    .map(ReactiveCommentServiceImpl::toDto)
+                    .all()
+                    .collectList();
+        }).map(comments -> {
+            if (comments.size() <= pageSize) {
+                return new CursorPageDto<>(comments, null);
+            }
+            var content = comments.subList(0, pageSize);
+            var last = content.get(pageSize - 1);
+            return new CursorPageDto<>(content, CursorUtils.encode(last.getTime(), last.getId()));
+        });
+    }
+
+    /**
+     * Возвращает все комментарии новости по мере чтения из базы, упорядоченными по (time desc, id desc).
+     * Строки запрашиваются порциями по {@link ru.clevertec.news.constant.Constant#EXPORT_FETCH_SIZE}
+     * с учетом спроса подписчика, поэтому потребление памяти не зависит от количества комментариев.
+     *
+     * @param id идентификатор новости
+     * @return комментарии новости
+     */
+    @Override
+    public Flux<CommentDto> exportByNewsId(Long id) {
+        log.debug("ReactiveCommentService: export comments by news id: {}", id);
+        return databaseClient.sql(EXPORT_BY_NEWS_ID)
+                .bind("newsId", id)
+                .filter(statement -> statement.fetchSize(Integer.parseInt(EXPORT_FETCH_SIZE)))
+                .map(ReactiveCommentServiceImpl::toDto)
+                .all();
+    }
+
+    /**
+     * Ищет все комментарии с учетом пагинации и фильтрации.
+     * Как и {@link org.springframework.data.support.PageableExecutionUtils}, не выполняет запрос на подсчет,
+     * если общее количество следует из размера неполной страницы.
+     *
+     * @param param  объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param filter объект, содержащий условия фильтрации комментариев
+     * @return экземпляр {@link PageContentDto}, содержащий пагинированный список объектов {@link CommentDto}
+     * и информацию о пагинации
+     */
+    @Override
+    public Mono<PageContentDto<CommentDto>> findAll(PageParamDto param, CommentFilterDto filter) {
+        log.debug("ReactiveCommentService: find all comment");
+        var pageable = PageUtils.page(param);
+        Mono<Long> count;
+        GenericExecuteSpec spec;
+        if (isFullTextSearch(filter)) {
+            spec = bindText(databaseClient.sql(SEARCH_BY_TEXT), filter);
+            count = count(bindText(databaseClient.sql(COUNT_BY_TEXT), filter));
+        } else {
+            var where = where(filter);
+            spec = bind(databaseClient.sql("select " + COLUMNS + " from comment c" + where.sql()
+                    + " order by c.id desc limit :limit offset :offset"), where.params());
+            count = count(bind(databaseClient.sql("select count(*) from comment c" + where.sql()), where.params()));
+        }
+        return spec.bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveCommentServiceImpl::toDto)
+                .all()
+                .collectList()
+                .flatMap(content -> total(pageable, content, count).map(totalElements -> new PageContentDto<>(
+                        new PageDto(param.pageNumber(), param.pageSize(), totalPages(totalElements, param.pageSize()), totalElements),
+                        content
+                )));
+    }
+
+    /**
+     * Ищет все комментарии с учетом фильтрации без подсчета общего количества.
+     *
+     * @param param  объект, содержащий параметры пагинации (номер страницы и размер страницы)
+     * @param filter объект, содержащий условия фильтрации комментариев
+     * @return экземпляр {@link SliceContentDto}, содержащий список объектов {@link CommentDto}
+     * и признак наличия следующей страницы
+     */
+    @Override
+    public Mono<SliceContentDto<CommentDto>> findSlice(PageParamDto param, CommentFilterDto filter) {
+        log.debug("ReactiveCommentService: find comment slice");
+        var pageable = PageUtils.page(param);
+        GenericExecuteSpec spec;
+        if (isFullTextSearch(filter)) {
+            spec = bindText(databaseClient.sql(SEARCH_BY_TEXT), filter);
+        } else {
+            var where = where(filter);
+            spec = bind(databaseClient.sql("select " + COLUMNS + " from comment c" + where.sql()
+                    + " order by c.id desc limit :limit offset :offset"), where.params());
+        }
+        return slice(param, spec.bind("limit", pageable.getPageSize() + 1).bind("offset", pageable.getOffset()));
+    }
+
+    /**
+     * Создает новый комментарий на основе данных из DTO.
+     *
+     * @param dto данные для создания комментария
+     * @return созданный комментарий
+     */
+    @Override
+    public Mono<CommentDto> create(CommentCreateDto dto) {
+        log.debug("ReactiveCommentService: create comment for news: {}", dto.getNewsId());
+        return insert(List.of(dto)).map(comments -> comments.get(0));
+    }
+
+    /**
+     * Создает комментарии пакетом одним запросом вставки.
+     * Счетчики комментариев обновляются один раз на каждую новость.
+     *
+     * @param dtos данные для создания комментариев
+     * @return созданные комментарии
+     */
+    @Override
+    public Flux<CommentDto> createAll(List<CommentCreateDto> dtos) {
+        log.debug("ReactiveCommentService: create comments: {}", dtos.size());
+        if (dtos.isEmpty()) {
+            return Flux.empty();
+        }
+        return insert(dtos).flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Обновляет информацию о комментарии на основе данных из DTO.
+     * Прежняя новость комментария читается в транзакции с блокировкой строки: по ней записываются событие
+     * и изменения количества комментариев новостей.
+     *
+     * @param dto данные для обновления комментария
+     * @return обновленный комментарий или ошибка {@link EntityNotFoundException}, если комментарий не найден
+     */
+    @Override
+    public Mono<CommentDto> update(CommentUpdateDto dto) {
+        log.debug("ReactiveCommentService: update comment: {}", dto.getId());
+        var ids = List.of(dto.getId());
+        return retryMoved(() -> selectNewsIds(ids)
+                .flatMap(comments -> {
+                    if (comments.isEmpty()) {
+                        return Mono.error(new EntityNotFoundException());
+                    }
+                    var newsIds = newsIds(Stream.of(comments.get(0).newsId(), dto.getNewsId()));
+                    var oldNewsId = new AtomicReference<Long>();
+                    var updated = new AtomicReference<CommentDto>();
+                    var update = transactionalOperator.transactional(databaseClient.sql(SELECT_NEWS_ID_FOR_UPDATE)
+                                    .bind("id", dto.getId())
+                                    .map(ReactiveCommentServiceImpl::toNewsId)
+                                    .one()
+                                    .switchIfEmpty(Mono.error(EntityNotFoundException::new))
+                                    .doOnNext(oldNewsId::set)
+                                    .flatMap(newsId -> checkNotMoved(newsIds, Stream.of(newsId)))
+                                    .then(bindUpdate(databaseClient.sql(UPDATE), dto).map(ReactiveCommentServiceImpl::toDto).one())
+                                    .flatMap(comment -> commentOutbox.updated(comment, oldNewsId.get()).thenReturn(comment)))
+                            .doOnNext(updated::set);
+                    return write(ids, newsIds, update,
+                            () -> Arrays.asList(updated.get()),
+                            () -> updated.get() == null || Objects.equals(oldNewsId.get(), updated.get().getNewsId())
+                                    ? Map.of()
+                                    : Map.of(oldNewsId.get(), -1L, updated.get().getNewsId(), 1L));
+                }));
+    }
+
+    /**
+     * Удаляет комментарий по заданному id.
+     *
+     * @param id комментария
+     */
+    @Override
+    public Mono<Void> delete(Long id) {
+        log.debug("ReactiveCommentService: delete comment by id: {}", id);
+        return deleteByIds(List.of(id));
+    }
+
+    /**
+     * Удаляет комментарии по списку id одним запросом.
+     *
+     * @param ids идентификаторы комментариев
+     */
+    @Override
+    public Mono<Void> deleteAll(List<Long> ids) {
+        log.debug("ReactiveCommentService: delete comments: {}", ids.size());
+        var distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return deleteByIds(distinctIds);
+    }
+
+    /**
+     * Вставляет комментарии одним запросом в транзакции вместе с событиями создания, после фиксации записывает
+     * комментарии в Redis. Страницы и счетчики новостей инвалидируются до транзакции и обновляются после нее.
+     *
+     * @param dtos данные для создания комментариев
+     * @return созданные комментарии
+     */
+    private Mono<List<CommentDto>> insert(List<CommentCreateDto> dtos) {
+        var newsIds = newsIds(dtos.stream().map(CommentCreateDto::getNewsId));
+        var time = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        var deltas = new AtomicReference<Map<Long, Long>>(Map.of());
+        var insert = reserveIds(dtos.size())
+                .map(ids -> IntStream.range(0, dtos.size())
+                        .mapToObj(i -> new CommentDto(ids.get(i), time, dtos.get(i).getText(), dtos.get(i).getUsername(),
+                                dtos.get(i).getNewsId()))
+                        .toList())
+                .flatMap(comments -> transactionalOperator.transactional(databaseClient.sql(INSERT)
+                        .bind("time", time)
+                        .bind("ids", comments.stream().map(CommentDto::getId).toArray(Long[]::new))
+                        .bind("texts", comments.stream().map(CommentDto::getText).toArray(String[]::new))
+                        .bind("usernames", comments.stream().map(CommentDto::getUsername).toArray(String[]::new))
+                        .bind("newsIds", comments.stream().map(CommentDto::getNewsId).toArray(Long[]::new))
+                        .then()
+                        .then(commentOutbox.created(comments))
+                        .thenReturn(comments)))
+                .doOnNext(comments -> deltas.set(counts(comments.stream().map(CommentDto::getNewsId))))
+                .flatMap(comments -> redisCommentCache.putNewComments(comments).thenReturn(comments));
+        Function<WriteToken, Mono<Void>> end = token -> commentCountCache.end(newsIds, deltas.get())
+                .then(redisCommentCache.endNewsWrite(newsIds, token));
+        return Mono.usingWhen(commentCountCache.begin(newsIds).then(redisCommentCache.beginNewsWrite(newsIds)),
+                token -> insert,
+                end,
+                (token, e) -> end.apply(token),
+                end);
+    }
+
+    /**
+     * Удаляет комментарии одним запросом в транзакции вместе с событиями удаления.
+     * Комментарии, страницы и счетчики их новостей инвалидируются до транзакции и обновляются после нее.
+     *
+     * @param ids идентификаторы комментариев без повторов
+     */
+    private Mono<Void> deleteByIds(List<Long> ids) {
+        return retryMoved(() -> selectNewsIds(ids).flatMap(comments -> {
+            var newsIds = newsIds(comments.stream().map(CommentNewsIdDto::newsId));
+            var deltas = new AtomicReference<Map<Long, Long>>(Map.of());
+            var delete = transactionalOperator.transactional(databaseClient.sql(DELETE_BY_IDS)
+                            .bind("ids", ids.toArray(Long[]::new))
+                            .map(ReactiveCommentServiceImpl::toNewsIdDto)
+                            .all()
+                            .collectList()
+                            .flatMap(deleted -> checkNotMoved(newsIds, deleted.stream().map(CommentNewsIdDto::newsId))
+                                    .then(commentOutbox.deleted(deleted))
+                                    .thenReturn(deleted)))
+                    .doOnNext(deleted -> deltas.set(counts(deleted.stream().map(CommentNewsIdDto::newsId)).entrySet()
+                            .stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, count -> -count.getValue()))))
+                    .then();
+            return write(ids, newsIds, delete, () -> ids.stream().map(id -> (CommentDto) null).toList(), deltas::get);
+        }));
+    }
+
+    /**
+     * Выполняет изменение комментариев между началом и завершением записи в кэш. Записи завершаются при любом
+     * исходе изменения, в том числе при отмене подписки, после чего комментарии удаляются из локального кэша.
+     * Удаление выполняется до сигнала завершения, чтобы чтение сразу после изменения не получило прежнюю версию.
+     *
+     * @param ids     идентификаторы изменяемых комментариев
+     * @param newsIds идентификаторы новостей изменяемых комментариев
+     * @param change  изменение
+     * @param values  новые значения комментариев для кэша в порядке {@code ids}, вычисляются после изменения
+     * @param deltas  изменения количества комментариев по новостям, вычисляются после изменения
+     *                и пусты, если изменение не было зафиксировано
+     * @return результат изменения
+     */
+    private <T> Mono<T> write(List<Long> ids, List<Long> newsIds, Mono<T> change,
+                              Supplier<List<CommentDto>> values, Supplier<Map<Long, Long>> deltas) {
+        Function<List<WriteToken>, Mono<Void>> end = tokens -> redisCommentCache.endCommentWrite(ids, tokens.get(0), values.get())
+                .then(commentCountCache.end(newsIds, deltas.get()))
+                .then(redisCommentCache.endNewsWrite(newsIds, tokens.get(1)))
+                .doOnTerminate(() -> nearCommentCache.invalidate(ids))
+                .doOnCancel(() -> nearCommentCache.invalidate(ids));
+        return Mono.usingWhen(commentCountCache.begin(newsIds)
+                        .then(Mono.zip(redisCommentCache.beginCommentWrite(ids), redisCommentCache.beginNewsWrite(newsIds)))
+                        .map(tokens -> List.of(tokens.getT1(), tokens.getT2())),
+                tokens -> change,
+                end,
+                (tokens, e) -> end.apply(tokens),
+                end);
+    }
+
+    /**
+     * Повторяет изменение, если его транзакция откатилась из-за переноса комментария в другую новость.
+     */
+    private static <T> Mono<T> retryMoved(Supplier<Mono<T>> change) {
+        return Mono.defer(change)
+                .retryWhen(Retry.max(MOVED_RETRIES)
+                        .filter(CommentMovedException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Проверяет, что новости заблокированных в транзакции комментариев входят в новости, записи кэша которых
+     * начаты до транзакции. Иначе изменение количества и страниц другой новости не было бы учтено.
+     */
+    private static Mono<Void> checkNotMoved(List<Long> newsIds, Stream<Long> lockedNewsIds) {
+        return lockedNewsIds.allMatch(newsIds::contains) ? Mono.empty() : Mono.error(new CommentMovedException());
+    }
+
+    private Mono<List<CommentNewsIdDto>> selectNewsIds(List<Long> ids) {
+        return databaseClient.sql(SELECT_NEWS_IDS_BY_IDS)
+                .bind("ids", ids.toArray(Long[]::new))
+                .map(ReactiveCommentServiceImpl::toNewsIdDto)
+                .all()
+                .collectList();
+    }
+
+    private Mono<CommentDto> selectOne(String sql, Long id) {
+        return databaseClient.sql(sql).bind("id", id).map(ReactiveCommentServiceImpl::toDto).one();
+    }
+
+    private Mono<SliceContentDto<CommentDto>> slice(PageParamDto param, GenericExecuteSpec spec) {
+        return spec.map(ReactiveCommentServiceImpl::toDto)
+                .all()
+                .collectList()
+                .map(content -> {
+                    var hasNext = content.size() > param.pageSize();
+                    return new SliceContentDto<>(param.pageNumber(), param.pageSize(), hasNext,
+                            hasNext ? content.subList(0, param.pageSize()) : content);
+                });
+    }
+
+    /**
+     * Резервирует id для новых комментариев. Id берутся из текущего блока, а недостающие — из новых блоков,
+     * которые резервируются одним запросом значений последовательности {@code comment_seq} без блокировки потока;
+     * остаток последнего блока становится текущим. Одновременные запросы не получают одинаковых id: id текущего
+     * блока выдаются атомарным счетчиком, а новый блок публикуется только после выдачи его первых id.
+     * Остаток блока, замененного одновременным запросом, не используется.
+     *
+     * @param count количество id
+     * @return id комментариев
+     */
+    private Mono<List<Long>> reserveIds(int count) {
+        return Mono.defer(() -> {
+            var ids = new ArrayList<Long>(count);
+            var block = idBlock.get();
+            while (ids.size() < count) {
+                var id = block.next().getAndIncrement();
+                if (id > block.max()) {
+                    break;
+                }
+                ids.add(id);
+            }
+            if (ids.size() == count) {
+                return Mono.just(ids);
+            }
+            var blocks = (count - ids.size() + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+            return databaseClient.sql(NEXT_ID_BLOCKS)
+                    .bind("count", blocks)
+                    .map(row -> row.get(0, Long.class))
+                    .all()
+                    .collectList()
+                    .map(values -> {
+                        for (var value : values) {
+                            var first = Math.max(1, value - SEQUENCE_INCREMENT + 1);
+                            var missing = count - ids.size();
+                            LongStream.rangeClosed(first, Math.min(value, first + missing - 1)).forEach(ids::add);
+                            if (first + missing <= value) {
+                                idBlock.set(new IdBlock(first + missing, value));
+                            }
+                        }
+                        return ids;
+                    });
+        });
+    }
+
+    /**
+     * Блок id, зарезервированный значением последовательности {@code comment_seq}.
+     *
+     * @param next следующий свободный id блока
+     * @param max  наибольший id блока
+     */
+    private record IdBlock(AtomicLong next, long max) {
+
+        IdBlock(long next, long max) {
+            this(new AtomicLong(next), max);
+        }
+    }
+
+    /**
+     * Условия фильтрации в режиме {@link SearchMode#LIKE}.
+     *
+     * @param sql    условие {@code where} или пустая строка
+     * @param params значения параметров условия
+     */
+    private record Where(String sql, Map<String, Object> params) {
+    }
+
+    private static Where where(CommentFilterDto filter) {
+        var conditions = new ArrayList<String>();
+        var params = new LinkedHashMap<String, Object>();
+        if (StringUtils.isNotEmpty(filter.username())) {
+            conditions.add("c.username like :username");
+            params.put("username", "%" + filter.username() + "%");
+        }
+        if (StringUtils.isNotEmpty(filter.text())) {
+            conditions.add("c.text like :text");
+            params.put("text", "%" + filter.text() + "%");
+        }
+        if (filter.from() != null) {
+            conditions.add("c.time >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("c.time < :to");
+            params.put("to", filter.to());
+        }
+        return new Where(conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions), params);
+    }
+
+    private static GenericExecuteSpec bind(GenericExecuteSpec spec, Map<String, Object> params) {
+        for (var param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+
+    private static GenericExecuteSpec bindText(GenericExecuteSpec spec, CommentFilterDto filter) {
+        spec = spec.bind("query", filter.text());
+        spec = bindNullable(spec, "username", StringUtils.defaultIfEmpty(filter.username(), null), String.class);
+        spec = bindNullable(spec, "from", filter.from(), LocalDateTime.class);
+        return bindNullable(spec, "to", filter.to(), LocalDateTime.class);
+    }
+
+    private static GenericExecuteSpec bindUpdate(GenericExecuteSpec spec, CommentUpdateDto dto) {
+        spec = spec.bind("id", dto.getId());
+        spec = bindNullable(spec, "time", dto.getTime(), LocalDateTime.class);
+        spec = bindNullable(spec, "text", dto.getText(), String.class);
+        spec = bindNullable(spec, "username", dto.getUsername(), String.class);
+        return bindNullable(spec, "newsId", dto.getNewsId(), Long.class);
+    }
+
+    private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+
+    private static boolean isFullTextSearch(CommentFilterDto filter) {
+        return filter.mode() == SearchMode.FULL_TEXT && StringUtils.isNotEmpty(filter.text());
+    }
+
+    private static Mono<Long> count(GenericExecuteSpec spec) {
+        return spec.map(row -> row.get(0, Long.class)).one();
+    }
+
+    /**
+     * Возвращает общее количество элементов, выполняя подсчет, только если оно не следует из размера страницы.
+     */
+    private static Mono<Long> total(Pageable pageable, List<CommentDto> content, Mono<Long> count) {
+        var known = content.isEmpty() ? pageable.getOffset() == 0 : content.size() < pageable.getPageSize();
+        return known ? Mono.just(pageable.getOffset() + content.size()) : count;
+    }
+
+    private static int totalPages(long totalElements, int pageSize) {
+        return (int) Math.ceil((double) totalElements / pageSize);
+    }
+
+    private static List<Long> newsIds(Stream<Long> newsIds) {
+        return newsIds.filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static Map<Long, Long> counts(Stream<Long> newsIds) {
+        return newsIds.collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()));
+    }
+
+    private static CommentDto toDto(Readable row) {
+        return new CommentDto(row.get("id", Long.class), row.get("time", LocalDateTime.class),
+                row.get("text", String.class), row.get("username", String.class), row.get("news_id", Long.class));
+    }
+
+    private static Long toNewsId(Readable row) {
+        return row.get("news_id", Long.class);
+    }
+
+    private static CommentNewsIdDto toNewsIdDto(Readable row) {
+        return new CommentNewsIdDto(row.get("id", Long.class), row.get("news_id", Long.class));
+    }
+
+    /**
+     * Комментарий перенесли в другую новость между чтением его новости и блокировкой строки.
+     */
+    private static final class CommentMovedException extends RuntimeException {
+
+        private CommentMovedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.clevertec.news.service.outbox;
+
+import ru.clevertec.news.model.dto.CommentEventDto;
+
+import java.util.List;
+
+/**
+ * Получатель событий изменений комментариев.
+ */
+public interface CommentEventSink {
+
+    /**
+     * Публикует пакет событий. Исключение означает, что пакет не опубликован и будет отправлен повторно,
+     * поэтому получатели событий должны быть готовы к повторам.
+     *
+     * @param events события в порядке изменений
+     */
+    void publish(List<CommentEventDto> events);
+}
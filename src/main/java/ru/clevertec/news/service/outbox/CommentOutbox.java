@@ -0,0 +1,78 @@
+package ru.clevertec.news.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.entity.CommentOutboxEvent;
+import ru.clevertec.news.model.enums.CommentEventType;
+import ru.clevertec.news.repository.CommentOutboxRepository;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Запись событий изменений комментариев в таблицу {@code comment_outbox}.
+ * <p>
+ * Методы выполняются только внутри транзакции изменения комментариев: событие фиксируется вместе с изменением
+ * или не фиксируется вовсе. Публикацию выполняет {@link CommentOutboxRelay}.
+ * <p>
+ * Id события выдается последовательностью при его записи, поэтому строку изменяемого или удаляемого комментария
+ * нужно заблокировать до вызова: иначе события параллельных изменений одного комментария могут получить id
+ * не в порядке фиксации транзакций.
+ */
+@Component
+@AllArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class CommentOutbox {
+
+    private final CommentOutboxRepository commentOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Записывает события создания комментариев.
+     *
+     * @param comments созданные комментарии
+     */
+    public void created(Collection<CommentDto> comments) {
+        commentOutboxRepository.saveAll(comments.stream().map(comment -> event(CommentEventType.CREATED, comment)).toList());
+    }
+
+    /**
+     * Записывает событие изменения комментария.
+     *
+     * @param comment        комментарий после изменения
+     * @param previousNewsId идентификатор новости комментария до изменения
+     */
+    public void updated(CommentDto comment, Long previousNewsId) {
+        var event = event(CommentEventType.UPDATED, comment);
+        event.setPreviousNewsId(Objects.equals(previousNewsId, comment.getNewsId()) ? null : previousNewsId);
+        commentOutboxRepository.save(event);
+    }
+
+    /**
+     * Записывает события удаления комментариев.
+     *
+     * @param comments идентификаторы удаленных комментариев и их новостей
+     */
+    public void deleted(List<CommentNewsIdDto> comments) {
+        commentOutboxRepository.saveAll(comments.stream()
+                .map(comment -> new CommentOutboxEvent(null, comment.id(), comment.newsId(), null, CommentEventType.DELETED, null, null))
+                .toList());
+    }
+
+    private CommentOutboxEvent event(CommentEventType type, CommentDto comment) {
+        try {
+            return new CommentOutboxEvent(null, comment.getId(), comment.getNewsId(), null, type,
+                    objectMapper.writeValueAsString(comment), null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package ru.clevertec.news.service.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.clevertec.news.model.dto.CommentEventDto;
+import ru.clevertec.news.repository.CommentOutboxRepository;
+
+/**
+ * Публикует события из таблицы {@code comment_outbox}.
+ * <p>
+ * Раз в {@code outbox.relay.interval} события читаются пакетами по {@code outbox.relay.batch-size} в порядке
+ * записи, передаются {@link CommentEventSink} и удаляются в той же транзакции. Пакеты публикует только один
+ * экземпляр сервиса одновременно (advisory-блокировка), поэтому порядок событий сохраняется. Если транзакция
+ * не зафиксирована после публикации, пакет будет опубликован повторно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "outbox.relay.enabled", matchIfMissing = true)
+public class CommentOutboxRelay {
+
+    private final CommentOutboxRepository commentOutboxRepository;
+    private final CommentEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public CommentOutboxRelay(CommentOutboxRepository commentOutboxRepository,
+                              CommentEventSink sink,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${outbox.relay.batch-size:500}") int batchSize) {
+        this.commentOutboxRepository = commentOutboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Публикует все накопленные события. Ошибки журналируются, события остаются в таблице до следующего запуска.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT0.5S}")
+    public void relay() {
+        try {
+            while (relayBatch() == batchSize) {
+                log.debug("CommentOutboxRelay: batch of {} events published", batchSize);
+            }
+        } catch (RuntimeException e) {
+            log.warn("CommentOutboxRelay: publication failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Публикует один пакет событий.
+     *
+     * @return количество опубликованных событий
+     */
+    int relayBatch() {
+        var published = transactionTemplate.execute(status -> {
+            if (!commentOutboxRepository.tryLockRelay()) {
+                return 0;
+            }
+            var events = commentOutboxRepository.findOldest(Limit.of(batchSize));
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events);
+            commentOutboxRepository.deleteAllByIdInBatch(events.stream().map(CommentEventDto::id).toList());
+            return events.size();
+        });
+        return published == null ? 0 : published;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.clevertec.news.service.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.model.dto.CommentEventDto;
+import ru.clevertec.news.service.feed.CommentFeedHub;
+
+import java.util.List;
+
+/**
+ * Журналирует события изменений комментариев в профиле {@code dev}, где Redis не используется,
+ * и передает их в ленту {@link CommentFeedHub} единственного экземпляра.
+ */
+@Slf4j
+@Component
+@Profile("dev")
+@AllArgsConstructor
+public class LoggingCommentEventSink implements CommentEventSink {
+
+    private final CommentFeedHub commentFeedHub;
+
+    @Override
+    public void publish(List<CommentEventDto> events) {
+        events.forEach(event -> log.debug("CommentEventSink: {} comment {}", event.type(), event.commentId()));
+        commentFeedHub.publish(events);
+    }
+}
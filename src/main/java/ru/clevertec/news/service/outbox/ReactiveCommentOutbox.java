@@ -0,0 +1,103 @@
+package ru.clevertec.news.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.enums.CommentEventType;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Реактивный вариант {@link CommentOutbox} для профиля {@code reactive}.
+ * <p>
+ * События всех комментариев записываются одним запросом. Результат нужно подписывать внутри транзакции
+ * изменения комментариев ({@link org.springframework.transaction.reactive.TransactionalOperator}).
+ */
+@Component
+@Profile("reactive")
+@AllArgsConstructor
+public class ReactiveCommentOutbox {
+
+    private static final String INSERT = """
+            insert into comment_outbox (id, comment_id, news_id, previous_news_id, type, payload, time)
+            select nextval('comment_outbox_seq'), e.comment_id, e.news_id, e.previous_news_id, :type, e.payload, :time
+            from unnest(cast(:commentIds as bigint[]), cast(:newsIds as bigint[]), cast(:previousNewsIds as bigint[]),
+                        cast(:payloads as text[]))
+                as e(comment_id, news_id, previous_news_id, payload)
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Записывает события создания комментариев.
+     *
+     * @param comments созданные комментарии
+     */
+    public Mono<Void> created(Collection<CommentDto> comments) {
+        return insert(CommentEventType.CREATED,
+                comments.stream().map(CommentDto::getId).toArray(Long[]::new),
+                comments.stream().map(CommentDto::getNewsId).toArray(Long[]::new),
+                new Long[comments.size()],
+                comments.stream().map(this::write).toArray(String[]::new));
+    }
+
+    /**
+     * Записывает событие изменения комментария.
+     *
+     * @param comment        комментарий после изменения
+     * @param previousNewsId идентификатор новости комментария до изменения
+     */
+    public Mono<Void> updated(CommentDto comment, Long previousNewsId) {
+        return insert(CommentEventType.UPDATED, new Long[]{comment.getId()}, new Long[]{comment.getNewsId()},
+                new Long[]{Objects.equals(previousNewsId, comment.getNewsId()) ? null : previousNewsId},
+                new String[]{write(comment)});
+    }
+
+    /**
+     * Записывает события удаления комментариев.
+     *
+     * @param comments идентификаторы удаленных комментариев и их новостей
+     */
+    public Mono<Void> deleted(List<CommentNewsIdDto> comments) {
+        return insert(CommentEventType.DELETED,
+                comments.stream().map(CommentNewsIdDto::id).toArray(Long[]::new),
+                comments.stream().map(CommentNewsIdDto::newsId).toArray(Long[]::new),
+                new Long[comments.size()],
+                new String[comments.size()]);
+    }
+
+    private Mono<Void> insert(CommentEventType type, Long[] commentIds, Long[] newsIds, Long[] previousNewsIds,
+                              String[] payloads) {
+        if (commentIds.length == 0) {
+            return Mono.empty();
+        }
+        return databaseClient.sql(INSERT)
+                .bind("type", type.name())
+                .bind("time", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                .bind("commentIds", commentIds)
+                .bind("newsIds", newsIds)
+                .bind("previousNewsIds", previousNewsIds)
+                .bind("payloads", payloads)
+                .then();
+    }
+
+    private String write(CommentDto comment) {
+        try {
+            return objectMapper.writeValueAsString(comment);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ru.clevertec.news.service.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamReadRequest;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.model.dto.CommentEventDto;
+import ru.clevertec.news.model.enums.CommentEventType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Публикует события изменений комментариев в Redis Stream {@code outbox.stream.key}
+ * (по умолчанию {@code comments:events}) одним конвейером на пакет. Длина потока приблизительно
+ * ограничивается {@code outbox.stream.max-length} последними событиями.
+ */
+@Component
+@Profile("!dev")
+public class RedisStreamCommentEventSink implements CommentEventSink {
+
+    public static final String FIELD_EVENT_ID = "eventId";
+    public static final String FIELD_TYPE = "type";
+    public static final String FIELD_COMMENT_ID = "commentId";
+    public static final String FIELD_NEWS_ID = "newsId";
+    public static final String FIELD_PREVIOUS_NEWS_ID = "previousNewsId";
+    public static final String FIELD_TIME = "time";
+    public static final String FIELD_PAYLOAD = "payload";
+
+    /**
+     * Пауза перед повторным чтением потока после ошибки, чтобы недоступность Redis не превращалась в цикл ошибок.
+     */
+    public static final Duration ERROR_BACKOFF = Duration.ofSeconds(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final byte[] key;
+    private final long maxLength;
+
+    public RedisStreamCommentEventSink(StringRedisTemplate redisTemplate,
+                                       @Value("${outbox.stream.key:comments:events}") String key,
+                                       @Value("${outbox.stream.max-length:100000}") long maxLength) {
+        this.redisTemplate = redisTemplate;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void publish(List<CommentEventDto> events) {
+        var options = RedisStreamCommands.XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (var event : events) {
+                connection.streamCommands().xAdd(StreamRecords.newRecord().in(key).ofBytes(fields(event)), options);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Возвращает позицию последнего события в потоке, с которой читатель получит только новые события.
+     * {@link ReadOffset#latest()} не подходит: контейнер читает с {@code $} при каждом опросе и теряет события,
+     * добавленные между опросами.
+     *
+     * @param redisTemplate клиент Redis
+     * @param streamKey     ключ потока
+     * @return позиция последнего события или начало потока, если он пуст
+     */
+    public static ReadOffset lastOffset(StringRedisTemplate redisTemplate, String streamKey) {
+        var last = redisTemplate.opsForStream().reverseRange(streamKey, Range.unbounded(), Limit.limit().count(1));
+        return last == null || last.isEmpty() ? ReadOffset.from("0-0") : ReadOffset.from(last.get(0).getId());
+    }
+
+    /**
+     * Возвращает запрос чтения потока с последнего события, подписка по которому не отменяется при ошибках.
+     * По умолчанию контейнер отменяет подписку при первой ошибке чтения или обработки события, и экземпляр
+     * перестает получать события до перезапуска. Здесь ошибка передается {@code errorHandler}, после чего
+     * чтение через {@link #ERROR_BACKOFF} продолжается с последнего полученного события.
+     *
+     * @param redisTemplate клиент Redis
+     * @param streamKey     ключ потока
+     * @param errorHandler  обработчик ошибок чтения и обработки событий
+     * @return запрос чтения для {@link org.springframework.data.redis.stream.StreamMessageListenerContainer#register}
+     */
+    public static StreamReadRequest<String> readRequest(StringRedisTemplate redisTemplate, String streamKey,
+                                                        Consumer<Throwable> errorHandler) {
+        return StreamReadRequest.builder(StreamOffset.create(streamKey, lastOffset(redisTemplate, streamKey)))
+                .cancelOnError(error -> false)
+                .errorHandler(error -> {
+                    errorHandler.accept(error);
+                    try {
+                        Thread.sleep(ERROR_BACKOFF.toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Восстанавливает событие из полей записи потока.
+     *
+     * @param fields поля записи
+     * @return событие изменения комментария
+     * @throws IllegalArgumentException если поля записи некорректны
+     */
+    public static CommentEventDto event(Map<String, String> fields) {
+        var newsId = fields.get(FIELD_NEWS_ID);
+        var previousNewsId = fields.get(FIELD_PREVIOUS_NEWS_ID);
+        var time = fields.get(FIELD_TIME);
+        return new CommentEventDto(
+                Long.valueOf(fields.get(FIELD_EVENT_ID)),
+                CommentEventType.valueOf(fields.get(FIELD_TYPE)),
+                Long.valueOf(fields.get(FIELD_COMMENT_ID)),
+                newsId == null ? null : Long.valueOf(newsId),
+                previousNewsId == null ? null : Long.valueOf(previousNewsId),
+                time == null ? null : LocalDateTime.parse(time),
+                fields.get(FIELD_PAYLOAD)
+        );
+    }
+
+    private static Map<byte[], byte[]> fields(CommentEventDto event) {
+        var fields = new LinkedHashMap<byte[], byte[]>();
+        put(fields, FIELD_EVENT_ID, event.id());
+        put(fields, FIELD_TYPE, event.type());
+        put(fields, FIELD_COMMENT_ID, event.commentId());
+        put(fields, FIELD_NEWS_ID, event.newsId());
+        put(fields, FIELD_PREVIOUS_NEWS_ID, event.previousNewsId());
+        put(fields, FIELD_TIME, event.time());
+        put(fields, FIELD_PAYLOAD, event.payload());
+        return fields;
+    }
+
+    private static void put(Map<byte[], byte[]> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name.getBytes(StandardCharsets.UTF_8), value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package ru.clevertec.news.service.proxy;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.cache.concurrent.SingleFlight;
+import ru.clevertec.news.datasource.PrimaryReadContext;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.model.event.CommentsArchivedEvent;
+import ru.clevertec.news.model.event.CommentsFlushedEvent;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+
+/**
+ * Объединение параллельных промахов кэша при чтении комментариев.
+ * <p>
+ * Параллельные вызовы {@code findById} с одним id и {@code findByNewsId} с одной страницей новости
+ * выполняют одну загрузку из базы и получают ее результат. Аспект выполняется сразу после аспекта кэширования
+ * и снаружи транзакции сервиса, поэтому ожидающие вызовы не занимают соединения с базой.
+ * После изменения комментариев выполняющиеся загрузки отсоединяются, и следующие чтения загружают данные заново.
+ * Загрузки с основной базы и с реплики объединяются раздельно, поэтому вызов, которому нужны только что записанные
+ * данные, не получает результат загрузки с отстающей реплики.
+ * <p>
+ * Метрики: {@code comments.coalescing.loads} — выполненные загрузки,
+ * {@code comments.coalescing.collapsed} — вызовы, получившие результат чужой загрузки.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CommentLoadCoalescer implements MeterBinder {
+
+    private static final String OPERATION = "operation";
+
+    private final SingleFlight<CommentKey, Object> comments = new SingleFlight<>();
+    private final SingleFlight<NewsPageKey, Object> newsPages = new SingleFlight<>();
+
+    /**
+     * Ключ загрузки комментария.
+     *
+     * @param primary загрузка выполняется на основной базе
+     */
+    private record CommentKey(Long id, boolean primary) {
+    }
+
+    /**
+     * Ключ загрузки страницы комментариев новости.
+     *
+     * @param primary загрузка выполняется на основной базе
+     */
+    private record NewsPageKey(Long newsId, int pageNumber, int pageSize, boolean primary) {
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findById(..)))")
+    public void getMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findByNewsId(..)))")
+    public void getByNewsIdMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.create(..)))")
+    public void createMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.createAll(..)))")
+    public void createAllMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.update(..)))")
+    public void updateMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.delete(..)))")
+    public void deleteMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.deleteAll(..)))")
+    public void deleteAllMethod() {
+
+    }
+
+    /**
+     * Загружает комментарий по id, объединяя параллельные вызовы с тем же id.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return объект CommentDto
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getMethod()")
+    public Object doGet(ProceedingJoinPoint pjp) throws Throwable {
+        var id = (Long) pjp.getArgs()[0];
+        return load(comments, new CommentKey(id, PrimaryReadContext.isEnabled()), pjp);
+    }
+
+    /**
+     * Загружает страницу комментариев новости, объединяя параллельные вызовы с той же страницей.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return страница комментариев
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getByNewsIdMethod()")
+    public Object doGetByNewsId(ProceedingJoinPoint pjp) throws Throwable {
+        var param = (PageParamDto) pjp.getArgs()[0];
+        var newsId = (Long) pjp.getArgs()[1];
+        return load(newsPages, new NewsPageKey(newsId, param.pageNumber(), param.pageSize(), PrimaryReadContext.isEnabled()), pjp);
+    }
+
+    /**
+     * Отсоединяет загрузки страниц после создания комментариев.
+     */
+    @After("createMethod() || createAllMethod()")
+    public void afterCreate() {
+        newsPages.forgetAll();
+    }
+
+    /**
+     * Отсоединяет загрузки страниц после записи в базу комментариев из очереди отложенной записи
+     * и после переноса комментариев в архив.
+     */
+    @EventListener({CommentsFlushedEvent.class, CommentsArchivedEvent.class})
+    public void afterFlush() {
+        newsPages.forgetAll();
+    }
+
+    /**
+     * Отсоединяет загрузки комментария и страниц после его обновления.
+     *
+     * @param dto данные для обновления комментария
+     */
+    @After("updateMethod() && args(dto)")
+    public void afterUpdate(CommentUpdateDto dto) {
+        forget(List.of(dto.getId()));
+    }
+
+    /**
+     * Отсоединяет загрузки комментария и страниц после его удаления.
+     *
+     * @param id идентификатор комментария
+     */
+    @After("deleteMethod() && args(id)")
+    public void afterDelete(Long id) {
+        forget(List.of(id));
+    }
+
+    /**
+     * Отсоединяет загрузки комментариев и страниц после их пакетного удаления.
+     *
+     * @param ids идентификаторы комментариев
+     */
+    @After("deleteAllMethod() && args(ids)")
+    public void afterDeleteAll(List<Long> ids) {
+        forget(ids);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "findById", comments);
+        bind(registry, "findByNewsId", newsPages);
+    }
+
+    private void bind(MeterRegistry registry, String operation, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("comments.coalescing.loads", singleFlight, SingleFlight::loads)
+                .description("Loads executed by the coalescing layer")
+                .tag(OPERATION, operation)
+                .register(registry);
+        FunctionCounter.builder("comments.coalescing.collapsed", singleFlight, SingleFlight::collapsed)
+                .description("Calls that received the result of another in-flight load")
+                .tag(OPERATION, operation)
+                .register(registry);
+    }
+
+    private void forget(List<Long> ids) {
+        ids.forEach(id -> {
+            comments.forget(new CommentKey(id, false));
+            comments.forget(new CommentKey(id, true));
+        });
+        newsPages.forgetAll();
+    }
+
+    private static <K> Object load(SingleFlight<K, Object> singleFlight, K key, ProceedingJoinPoint pjp) throws Throwable {
+        try {
+            return singleFlight.load(key, k -> proceed(pjp));
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+
+    private static Object proceed(ProceedingJoinPoint pjp) {
+        try {
+            return pjp.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
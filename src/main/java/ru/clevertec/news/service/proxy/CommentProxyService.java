@@ -6,15 +6,25 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import ru.clevertec.news.cache.Cache;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import ru.clevertec.news.cache.concurrent.LoadingCache;
+import ru.clevertec.news.datasource.PrimaryReadContext;
 import ru.clevertec.news.dto.CommentDto;
 
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
 @Slf4j
 @Aspect
 @AllArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class CommentProxyService {
 
-    private final Cache<Long, CommentDto> cache;
+    private final LoadingCache<Long, CommentDto> cache;
 
     @Override
     public int hashCode() {
@@ -26,6 +36,11 @@ public class CommentProxyService {
 
     }
 
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findAllById(..)))")
+    public void getAllMethod() {
+
+    }
+
     @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.create(..)))")
     public void createMethod() {
 
@@ -41,10 +56,21 @@ public class CommentProxyService {
 
     }
 
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.createAll(..)))")
+    public void createAllMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.deleteAll(..)))")
+    public void deleteAllMethod() {
+
+    }
+
     /**
      * Возвращает объект CommentDto по указанному идентификатору.
      * Если объект есть в кэше, метод возвращает его из кэша.
      * В противном случае, вызывает метод из оригинального сервиса и кэширует результат.
+     * Параллельные промахи по одному идентификатору выполняют один вызов оригинального метода.
      *
      * @param pjp прокси-объект для вызова оригинального метода
      * @return объект CommentDto
@@ -54,12 +80,54 @@ public class CommentProxyService {
     public Object doGet(ProceedingJoinPoint pjp) throws Throwable {
         log.debug("Proxy comments aop: get method");
         var id = (Long) pjp.getArgs()[0];
-        if (cache.get(id) == null) {
-            var commentDto = (CommentDto) pjp.proceed();
-            cache.put(id, commentDto);
-            return commentDto;
-        } else {
-            return cache.get(id);
+        try {
+            return cache.computeIfAbsent(id, key -> proceed(pjp));
+        } catch (UndeclaredThrowableException e) {
+            throw e.getUndeclaredThrowable();
+        }
+    }
+
+    /**
+     * Возвращает объекты CommentDto по списку идентификаторов.
+     * Найденные в кэше объекты возвращаются из кэша, остальные загружаются одним вызовом оригинального метода
+     * и кэшируются, если их еще нет в кэше и из кэша ничего не удалялось с начала загрузки.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return объекты CommentDto в порядке переданных идентификаторов
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doGetAll(ProceedingJoinPoint pjp) throws Throwable {
+        log.debug("Proxy comments aop: batch get method");
+        var ids = ((List<Long>) pjp.getArgs()[0]).stream().filter(Objects::nonNull).distinct().toList();
+        var found = new HashMap<Long, CommentDto>(ids.size() * 2);
+        var misses = new ArrayList<Long>();
+        for (var id : ids) {
+            var commentDto = cache.get(id);
+            if (commentDto != null) {
+                found.put(id, commentDto);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            var epoch = cache.epoch();
+            for (var commentDto : (List<CommentDto>) proceedOnPrimary(pjp, new Object[]{misses})) {
+                cache.fill(commentDto.getId(), commentDto, epoch);
+                found.put(commentDto.getId(), commentDto);
+            }
+        }
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    private static CommentDto proceed(ProceedingJoinPoint pjp) {
+        try {
+            return (CommentDto) proceedOnPrimary(pjp, pjp.getArgs());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
         }
     }
 
@@ -111,4 +179,54 @@ public class CommentProxyService {
         cache.remove(id);
         return id;
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняет пакетное создание объектов с кэшированием результата.
+     * После выполнения метода, все созданные объекты добавляются в кэш.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return список созданных объектов
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("createAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doCreateAll(ProceedingJoinPoint pjp) throws Throwable {
+        log.debug("Proxy comments aop: batch post method");
+        var commentDtos = (List<CommentDto>) pjp.proceed();
+        commentDtos.forEach(commentDto -> cache.put(commentDto.getId(), commentDto));
+        return commentDtos;
+    }
+
+    /**
+     * Выполняет пакетное удаление объектов с удалением их из кэша.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return результат оригинального метода
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("deleteAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doDeleteAll(ProceedingJoinPoint pjp) throws Throwable {
+        log.debug("Proxy comments aop: batch delete method");
+        var ids = (List<Long>) pjp.getArgs()[0];
+        var result = pjp.proceed();
+        ids.forEach(cache::remove);
+        return result;
+    }
+
+    /**
+     * Выполняет загрузку при промахе на основной базе с восстановлением прежнего признака чтения:
+     * у записей кэша нет времени жизни, и комментарий с отстающей реплики оставался бы в нем до изменения.
+     */
+    private static Object proceedOnPrimary(ProceedingJoinPoint pjp, Object[] args) throws Throwable {
+        var enabled = PrimaryReadContext.isEnabled();
+        PrimaryReadContext.enable();
+        try {
+            return pjp.proceed(args);
+        } finally {
+            if (!enabled) {
+                PrimaryReadContext.clear();
+            }
+        }
+    }
+}
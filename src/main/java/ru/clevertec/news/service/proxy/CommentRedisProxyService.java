@@ -0,0 +1,380 @@
+package ru.clevertec.news.service.proxy;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.datasource.PrimaryReadContext;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.page.PageContentDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.model.dto.NewsCommentCountDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.model.event.CommentsArchivedEvent;
+import ru.clevertec.news.model.event.CommentsFlushedEvent;
+import ru.clevertec.news.repository.CommentRepository;
+import ru.clevertec.news.service.cache.NearCommentCache;
+import ru.clevertec.news.service.cache.RedisCommentCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Прокси кэширования комментариев в Redis для всех профилей, кроме dev.
+ * <p>
+ * Аспект выполняется снаружи транзакции сервиса ({@link Ordered#HIGHEST_PRECEDENCE}), поэтому запись
+ * в кэш после изменения происходит только после фиксации транзакции, а инвалидация — до ее начала.
+ * Перед Redis для {@code findById} используется локальный кэш {@link NearCommentCache}.
+ */
+@Slf4j
+@Aspect
+@Component
+@Profile("!dev")
+@ConditionalOnProperty(value = "cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+@AllArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CommentRedisProxyService {
+
+    private final RedisCommentCache cache;
+    private final NearCommentCache nearCache;
+    private final CommentRepository commentRepository;
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findById(..)))")
+    public void getMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findAllById(..)))")
+    public void getAllMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findByNewsId(..)))")
+    public void getByNewsIdMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.create(..)))")
+    public void createMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findTopByNewsIds(..)))")
+    public void getTopByNewsIdsMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.createAll(..)))")
+    public void createAllMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.update(..)))")
+    public void updateMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.delete(..)))")
+    public void deleteMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.deleteAll(..)))")
+    public void deleteAllMethod() {
+
+    }
+
+    /**
+     * Возвращает комментарий из локального кэша или Redis, а при промахе загружает его и заполняет оба уровня кэша.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return объект CommentDto
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getMethod()")
+    public Object doGet(ProceedingJoinPoint pjp) throws Throwable {
+        var id = (Long) pjp.getArgs()[0];
+        var epoch = nearCache.epoch();
+        var local = nearCache.get(id);
+        if (local != null) {
+            return local;
+        }
+        var lookup = cache.getComment(id);
+        if (lookup.isHit()) {
+            nearCache.put(id, lookup.value(), epoch);
+            return lookup.value();
+        }
+        var commentDto = (CommentDto) proceedOnPrimary(pjp, pjp.getArgs());
+        cache.fillComment(lookup, commentDto);
+        nearCache.put(id, commentDto, epoch);
+        return commentDto;
+    }
+
+    /**
+     * Возвращает комментарии по списку id: сначала из локального кэша, затем одной командой MGET из Redis,
+     * а промахи загружает одним запросом к базе и записывает в оба уровня кэша одним пакетом.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return найденные комментарии в порядке переданных id
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doGetAll(ProceedingJoinPoint pjp) throws Throwable {
+        var ids = ((List<Long>) pjp.getArgs()[0]).stream().filter(Objects::nonNull).distinct().toList();
+        var epoch = nearCache.epoch();
+        var found = new HashMap<Long, CommentDto>(ids.size() * 2);
+        var remote = new ArrayList<Long>();
+        for (var id : ids) {
+            var local = nearCache.get(id);
+            if (local != null) {
+                found.put(id, local);
+            } else {
+                remote.add(id);
+            }
+        }
+        if (!remote.isEmpty()) {
+            var lookups = cache.getComments(remote);
+            var misses = new ArrayList<Long>();
+            lookups.forEach((id, lookup) -> {
+                if (lookup.isHit()) {
+                    found.put(id, lookup.value());
+                    nearCache.put(id, lookup.value(), epoch);
+                } else {
+                    misses.add(id);
+                }
+            });
+            if (!misses.isEmpty()) {
+                var loaded = (List<CommentDto>) proceedOnPrimary(pjp, new Object[]{misses});
+                cache.fillComments(lookups, loaded);
+                for (var commentDto : loaded) {
+                    found.put(commentDto.getId(), commentDto);
+                    nearCache.put(commentDto.getId(), commentDto, epoch);
+                }
+            }
+        }
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Возвращает страницу комментариев новости из кэша, а при промахе загружает ее и заполняет кэш.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return страница комментариев
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getByNewsIdMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doGetByNewsId(ProceedingJoinPoint pjp) throws Throwable {
+        var param = (PageParamDto) pjp.getArgs()[0];
+        var newsId = (Long) pjp.getArgs()[1];
+        var lookup = cache.getNewsPage(newsId, param);
+        if (lookup.isHit()) {
+            return lookup.value();
+        }
+        var page = (PageContentDto<CommentDto>) proceedOnPrimary(pjp, pjp.getArgs());
+        cache.fillNewsPage(newsId, param, lookup, page.content(), page.page().totalPages(), page.page().totalElements());
+        return page;
+    }
+
+    /**
+     * Возвращает первые комментарии новостей из кэша, а промахи загружает одним вызовом оригинального метода
+     * и записывает в кэш одним пакетом.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return первые комментарии новостей в порядке переданных идентификаторов
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getTopByNewsIdsMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doGetTopByNewsIds(ProceedingJoinPoint pjp) throws Throwable {
+        var newsIds = ((List<Long>) pjp.getArgs()[0]).stream().filter(Objects::nonNull).distinct().toList();
+        var limit = (int) pjp.getArgs()[1];
+        if (newsIds.isEmpty()) {
+            return List.of();
+        }
+        var lookups = cache.getNewsTop(newsIds, limit);
+        var found = new HashMap<Long, NewsCommentsDto>(newsIds.size() * 2);
+        var misses = new ArrayList<Long>();
+        lookups.forEach((newsId, lookup) -> {
+            if (lookup.isHit()) {
+                found.put(newsId, lookup.value());
+            } else {
+                misses.add(newsId);
+            }
+        });
+        if (!misses.isEmpty()) {
+            var loaded = (List<NewsCommentsDto>) proceedOnPrimary(pjp, new Object[]{misses, limit});
+            cache.fillNewsTop(lookups, loaded, limit);
+            loaded.forEach(top -> found.put(top.newsId(), top));
+        }
+        return newsIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Создает комментарий, инвалидируя страницы его новости, и записывает его в кэш после фиксации.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return созданный комментарий
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("createMethod()")
+    public Object doCreate(ProceedingJoinPoint pjp) throws Throwable {
+        var dto = (CommentCreateDto) pjp.getArgs()[0];
+        var newsIds = newsIds(Stream.of(dto.getNewsId()));
+        var newsToken = cache.beginNewsWrite(newsIds);
+        try {
+            var commentDto = (CommentDto) pjp.proceed();
+            cache.putNewComments(List.of(commentDto));
+            return commentDto;
+        } finally {
+            cache.endNewsWrite(newsIds, newsToken);
+        }
+    }
+
+    /**
+     * Создает комментарии пакетом, инвалидируя страницы их новостей один раз на пакет.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return список созданных комментариев
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("createAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doCreateAll(ProceedingJoinPoint pjp) throws Throwable {
+        var dtos = (List<CommentCreateDto>) pjp.getArgs()[0];
+        var newsIds = newsIds(dtos.stream().map(CommentCreateDto::getNewsId));
+        var newsToken = cache.beginNewsWrite(newsIds);
+        try {
+            var commentDtos = (List<CommentDto>) pjp.proceed();
+            cache.putNewComments(commentDtos);
+            return commentDtos;
+        } finally {
+            cache.endNewsWrite(newsIds, newsToken);
+        }
+    }
+
+    /**
+     * Обновляет комментарий: инвалидирует его и страницы затронутых новостей до транзакции
+     * и записывает новое значение в кэш после ее фиксации.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return обновленный комментарий
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("updateMethod()")
+    public Object doUpdate(ProceedingJoinPoint pjp) throws Throwable {
+        var dto = (CommentUpdateDto) pjp.getArgs()[0];
+        var ids = List.of(dto.getId());
+        var newsIds = newsIds(Stream.concat(commentRepository.findNewsIdById(dto.getId()).stream(), Stream.of(dto.getNewsId())));
+        var token = cache.beginCommentWrite(ids);
+        var newsToken = cache.beginNewsWrite(newsIds);
+        CommentDto commentDto = null;
+        try {
+            commentDto = (CommentDto) pjp.proceed();
+            return commentDto;
+        } finally {
+            cache.endCommentWrite(ids, token, Collections.singletonList(commentDto));
+            cache.endNewsWrite(newsIds, newsToken);
+            nearCache.invalidate(ids);
+        }
+    }
+
+    /**
+     * Удаляет комментарий, инвалидируя его и страницы его новости.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return результат оригинального метода
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("deleteMethod()")
+    public Object doDelete(ProceedingJoinPoint pjp) throws Throwable {
+        var id = (Long) pjp.getArgs()[0];
+        return invalidate(pjp, List.of(id), newsIds(commentRepository.findNewsIdById(id).stream()));
+    }
+
+    /**
+     * Удаляет комментарии пакетом, инвалидируя их и страницы их новостей один раз на пакет.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return результат оригинального метода
+     * @throws Throwable если возникла ошибка при выполнении оригинального метода
+     */
+    @Around("deleteAllMethod()")
+    @SuppressWarnings("unchecked")
+    public Object doDeleteAll(ProceedingJoinPoint pjp) throws Throwable {
+        var ids = (List<Long>) pjp.getArgs()[0];
+        var newsIds = newsIds(commentRepository.countByNewsIdForIds(ids).stream().map(NewsCommentCountDto::newsId));
+        return invalidate(pjp, ids, newsIds);
+    }
+
+    /**
+     * Инвалидирует страницы новостей после записи в базу комментариев из очереди отложенной записи:
+     * страницы, загруженные до записи, не содержат этих комментариев.
+     *
+     * @param event событие записи пакета комментариев
+     */
+    @EventListener
+    public void onCommentsFlushed(CommentsFlushedEvent event) {
+        var newsIds = newsIds(event.newsIds().stream());
+        cache.endNewsWrite(newsIds, cache.beginNewsWrite(newsIds));
+    }
+
+    /**
+     * Инвалидирует страницы и первые комментарии новостей, комментарии которых перенесены в архив.
+     *
+     * @param event событие переноса комментариев в архив
+     */
+    @EventListener
+    public void onCommentsArchived(CommentsArchivedEvent event) {
+        var newsIds = newsIds(event.newsIds().stream());
+        cache.endNewsWrite(newsIds, cache.beginNewsWrite(newsIds));
+    }
+
+    /**
+     * Загружает значения для заполнения кэша с основной базы: значение, прочитанное с отстающей реплики,
+     * осталось бы в кэше до следующего изменения или истечения времени жизни.
+     */
+    private static Object proceedOnPrimary(ProceedingJoinPoint pjp, Object[] args) throws Throwable {
+        var enabled = PrimaryReadContext.isEnabled();
+        PrimaryReadContext.enable();
+        try {
+            return pjp.proceed(args);
+        } finally {
+            if (!enabled) {
+                PrimaryReadContext.clear();
+            }
+        }
+    }
+
+    private Object invalidate(ProceedingJoinPoint pjp, List<Long> ids, List<Long> newsIds) throws Throwable {
+        var token = cache.beginCommentWrite(ids);
+        var newsToken = cache.beginNewsWrite(newsIds);
+        try {
+            return pjp.proceed();
+        } finally {
+            cache.endCommentWrite(ids, token, Arrays.asList(new CommentDto[ids.size()]));
+            cache.endNewsWrite(newsIds, newsToken);
+            nearCache.invalidate(ids);
+        }
+    }
+
+    private List<Long> newsIds(Stream<Long> newsIds) {
+        return newsIds.filter(Objects::nonNull).distinct().toList();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.clevertec.news.service.proxy;
+
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.service.writebehind.CommentWriteBehindQueue;
+
+import java.util.List;
+
+/**
+ * Отложенная запись создаваемых комментариев.
+ * <p>
+ * Включается свойством {@code write-behind.enabled=true}. Создание комментария принимает его в
+ * {@link CommentWriteBehindQueue} вместо вставки в базу; аспекты кэширования выполняются снаружи и записывают
+ * созданный комментарий в кэш, а чтение по id, не найденное в кэше, проверяет очередь до обращения к базе.
+ * Перед изменением и удалением комментариев, еще не записанных в базу, очередь записывается синхронно.
+ */
+@Aspect
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(value = "write-behind.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class CommentWriteBehindProxy {
+
+    private final CommentWriteBehindQueue queue;
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.findById(..)))")
+    public void getMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.create(..)))")
+    public void createMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.update(..)))")
+    public void updateMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.delete(..)))")
+    public void deleteMethod() {
+
+    }
+
+    @Pointcut("execution(* ru.clevertec.news.service.impl.CommentServiceImpl.deleteAll(..)))")
+    public void deleteAllMethod() {
+
+    }
+
+    /**
+     * Возвращает комментарий из очереди, если он еще не записан в базу.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return объект CommentDto
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("getMethod()")
+    public Object doGet(ProceedingJoinPoint pjp) throws Throwable {
+        var id = (Long) pjp.getArgs()[0];
+        var pending = queue.find(id);
+        return pending.isPresent() ? pending.get() : pjp.proceed();
+    }
+
+    /**
+     * Принимает комментарий в очередь отложенной записи без вызова оригинального метода.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return созданный комментарий
+     */
+    @Around("createMethod()")
+    public Object doCreate(ProceedingJoinPoint pjp) {
+        var dto = (CommentCreateDto) pjp.getArgs()[0];
+        return queue.offer(dto);
+    }
+
+    /**
+     * Записывает очередь в базу, если обновляемый комментарий еще не записан.
+     *
+     * @param dto данные для обновления комментария
+     */
+    @Before("updateMethod() && args(dto)")
+    public void beforeUpdate(CommentUpdateDto dto) {
+        flushIfPending(List.of(dto.getId()));
+    }
+
+    /**
+     * Записывает очередь в базу, если удаляемый комментарий еще не записан.
+     *
+     * @param id идентификатор комментария
+     */
+    @Before("deleteMethod() && args(id)")
+    public void beforeDelete(Long id) {
+        flushIfPending(List.of(id));
+    }
+
+    /**
+     * Записывает очередь в базу, если хотя бы один из удаляемых комментариев еще не записан.
+     *
+     * @param ids идентификаторы комментариев
+     */
+    @Before("deleteAllMethod() && args(ids)")
+    public void beforeDeleteAll(List<Long> ids) {
+        flushIfPending(ids);
+    }
+
+    private void flushIfPending(List<Long> ids) {
+        if (queue.containsAny(ids)) {
+            queue.flush();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.clevertec.news.service.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.clevertec.news.model.enums.RequestLogMode;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Журналирование запросов к контроллеру комментариев.
+ * <p>
+ * Режим задается свойством {@code logging.requests.mode} ({@link RequestLogMode}), доля журналируемых запросов
+ * в режиме {@code sampled} — свойством {@code logging.requests.sample-rate}. Сообщения параметризованы:
+ * имя метода и время выполнения пишутся на уровне INFO, аргументы — только при включенном уровне DEBUG,
+ * поэтому строки собираются лишь для запросов, которые действительно попадут в журнал.
+ * В режиме {@code off} аспект не создается, и контроллер вызывается без прокси.
+ */
+@Slf4j
+@Aspect
+@Component
+@ConditionalOnExpression("!'${logging.requests.mode:full}'.equalsIgnoreCase('off')")
+public class RequestLoggingAspect {
+
+    private final RequestLogMode mode;
+    private final double sampleRate;
+
+    public RequestLoggingAspect(@Value("${logging.requests.mode:full}") RequestLogMode mode,
+                                @Value("${logging.requests.sample-rate:0.01}") double sampleRate) {
+        this.mode = mode;
+        this.sampleRate = sampleRate;
+    }
+
+    @Pointcut("within(ru.clevertec.news.controller.CommentController)")
+    public void controllerMethod() {
+
+    }
+
+    /**
+     * Выполняет метод контроллера и журналирует его вызов в соответствии с режимом.
+     *
+     * @param pjp прокси-объект для вызова оригинального метода
+     * @return результат оригинального метода
+     * @throws Throwable при возникновении исключения при выполнении оригинального метода
+     */
+    @Around("controllerMethod()")
+    public Object doLog(ProceedingJoinPoint pjp) throws Throwable {
+        if (!shouldLog()) {
+            return pjp.proceed();
+        }
+        var start = System.nanoTime();
+        var failed = true;
+        try {
+            var result = pjp.proceed();
+            failed = false;
+            return result;
+        } finally {
+            var micros = (System.nanoTime() - start) / 1_000;
+            if (log.isDebugEnabled()) {
+                log.debug("CommentController: {} args: {}, failed: {}, {} us",
+                        pjp.getSignature().getName(), Arrays.toString(pjp.getArgs()), failed, micros);
+            } else {
+                log.info("CommentController: {} failed: {}, {} us", pjp.getSignature().getName(), failed, micros);
+            }
+        }
+    }
+
+    private boolean shouldLog() {
+        return switch (mode) {
+            case OFF -> false;
+            case FULL -> log.isInfoEnabled();
+            case SAMPLED -> log.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package ru.clevertec.news.service.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ru.clevertec.news.dto.CommentDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Журнал комментариев, принятых в очередь отложенной записи, но еще не записанных в базу.
+ * <p>
+ * Комментарии дописываются в конец текущего файла-сегмента по одному JSON-объекту на строку, вызов
+ * {@link #append(CommentDto)} возвращает управление после сброса записи на диск. Параллельные вызовы
+ * объединяются в один {@code fsync}. Сегмент удаляется, когда все его комментарии записаны в базу
+ * ({@link #release(long, int)}); сегменты, оставшиеся после остановки приложения, читаются при запуске
+ * ({@link #recover()}).
+ */
+@Slf4j
+public class CommentWriteAheadLog implements Closeable {
+
+    private static final String PREFIX = "comments-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ObjectMapper objectMapper;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    /**
+     * Количество комментариев сегмента, еще не записанных в базу.
+     */
+    private final Map<Long, Integer> unflushed = new HashMap<>();
+
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    private long written;
+    private long synced;
+
+    /**
+     * Запись журнала.
+     *
+     * @param segment номер сегмента, в котором хранится комментарий
+     * @param comment комментарий
+     */
+    public record Entry(long segment, CommentDto comment) {
+    }
+
+    public CommentWriteAheadLog(Path directory, long segmentSize, ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.objectMapper = objectMapper;
+        this.segment = segments().stream().mapToLong(this::segmentOf).max().orElse(0);
+        open(segment + 1);
+    }
+
+    /**
+     * Читает комментарии из сегментов, оставшихся от предыдущего запуска.
+     * Неполная последняя строка, записанная до сбоя, пропускается.
+     *
+     * @return записи журнала в порядке записи
+     * @throws IOException при ошибке чтения
+     */
+    public List<Entry> recover() throws IOException {
+        var entries = new ArrayList<Entry>();
+        for (var path : segments()) {
+            var number = segmentOf(path);
+            if (number == segment) {
+                continue;
+            }
+            var count = 0;
+            for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                try {
+                    entries.add(new Entry(number, objectMapper.readValue(line, CommentDto.class)));
+                    count++;
+                } catch (JsonProcessingException e) {
+                    log.warn("CommentWriteAheadLog: skip damaged record in {}", path.getFileName());
+                }
+            }
+            synchronized (appendLock) {
+                unflushed.put(number, count);
+            }
+            if (count == 0) {
+                release(number, 0);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Дописывает комментарий в журнал и дожидается его сброса на диск.
+     *
+     * @param comment комментарий
+     * @return номер сегмента, в который записан комментарий
+     * @throws IOException при ошибке записи
+     */
+    public long append(CommentDto comment) throws IOException {
+        var line = ByteBuffer.wrap((objectMapper.writeValueAsString(comment) + "\n").getBytes(StandardCharsets.UTF_8));
+        long position;
+        long number;
+        synchronized (appendLock) {
+            if (segmentBytes >= segmentSize) {
+                rotate();
+            }
+            var length = line.remaining();
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            segmentBytes += length;
+            written += length;
+            position = written;
+            number = segment;
+            unflushed.merge(number, 1, Integer::sum);
+        }
+        sync(position);
+        return number;
+    }
+
+    /**
+     * Отмечает комментарии сегмента записанными в базу и удаляет сегмент, если в нем не осталось незаписанных.
+     *
+     * @param number номер сегмента
+     * @param count  количество записанных комментариев сегмента
+     * @throws IOException при ошибке удаления сегмента
+     */
+    public void release(long number, int count) throws IOException {
+        synchronized (appendLock) {
+            var left = unflushed.merge(number, -count, Integer::sum);
+            if (left > 0) {
+                return;
+            }
+            unflushed.remove(number);
+            if (number == segment) {
+                rotate();
+            }
+            Files.deleteIfExists(path(number));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Сбрасывает на диск журнал до заданной позиции. Если другой поток уже сбросил ее, возвращается сразу.
+     */
+    private void sync(long position) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            FileChannel current;
+            long target;
+            synchronized (appendLock) {
+                current = channel;
+                target = written;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // сегмент закрыт при переходе к следующему, перед закрытием он сброшен на диск
+            }
+            synced = target;
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент, сбросив его на диск, и начинает следующий. Вызывается под {@code appendLock}.
+     */
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        open(segment + 1);
+    }
+
+    private void open(long number) throws IOException {
+        channel = FileChannel.open(path(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segment = number;
+        segmentBytes = 0;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        var name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted((first, second) -> Long.compare(segmentOf(first), segmentOf(second)))
+                    .toList();
+        }
+    }
+
+    private Path path(long number) {
+        return directory.resolve(PREFIX + String.format("%019d", number) + SUFFIX);
+    }
+
+    private long segmentOf(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,367 @@
+package ru.clevertec.news.service.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.clevertec.news.converter.CommentConverter;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.exception.InvalidCommentException;
+import ru.clevertec.news.exception.WriteQueueFullException;
+import ru.clevertec.news.model.event.CommentsFlushedEvent;
+import ru.clevertec.news.service.cache.CommentCountCache;
+import ru.clevertec.news.service.outbox.CommentOutbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Очередь отложенной записи создаваемых комментариев.
+ * <p>
+ * Принятый комментарий получает id из последовательности {@code comment_seq}, записывается в
+ * {@link CommentWriteAheadLog} и становится доступен для чтения по id, после чего вызывающий получает ответ,
+ * не дожидаясь вставки в базу. Фоновая задача раз в {@code write-behind.flush-interval} вставляет накопленные
+ * комментарии пакетами по {@code write-behind.batch-size} в отдельной транзакции вместе с их событиями
+ * в {@link CommentOutbox}. Вставка идемпотентна, поэтому
+ * комментарии, прочитанные из журнала после сбоя, могут быть вставлены повторно без дублей.
+ * Закэшированное количество комментариев новости изменяется в той же транзакции и только на число
+ * действительно вставленных комментариев: до вставки принятые комментарии в нем не учитываются.
+ * Комментарии без новости или с превышающими размер столбцов полями не принимаются, а комментарии, которые
+ * все же не удалось вставить, переносятся в таблицу {@code comment_dead_letter} и не блокируют очередь.
+ * <p>
+ * Очередь ограничена {@code write-behind.capacity} комментариями: при заполнении прием ждет освобождения места
+ * не дольше {@code write-behind.offer-timeout}, после чего выбрасывается {@link WriteQueueFullException}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "write-behind.enabled", havingValue = "true")
+public class CommentWriteBehindQueue implements MeterBinder, Closeable {
+
+    /**
+     * Шаг последовательности {@code comment_seq}: значение последовательности резервирует блок из стольких id,
+     * как и у генератора id сущности {@code Comment}.
+     */
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    /**
+     * Наибольшая длина имени пользователя и текста комментария в таблице {@code comment}.
+     */
+    private static final int COLUMN_LENGTH = 255;
+
+    private static final String INSERT = """
+            insert into comment (id, news_id, time, username, text)
+            select * from unnest(?::bigint[], ?::bigint[], ?::timestamp[], ?::varchar[], ?::varchar[])
+            on conflict do nothing
+            returning id
+            """;
+
+    private static final String INSERT_DEAD_LETTER = """
+            insert into comment_dead_letter (id, news_id, time, username, text, error)
+            values (?, ?, ?, ?, ?, ?)
+            on conflict (id) do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CommentConverter commentConverter;
+    private final CommentOutbox commentOutbox;
+    private final CommentCountCache commentCountCache;
+    private final CommentWriteAheadLog writeAheadLog;
+    private final int batchSize;
+    private final Duration offerTimeout;
+
+    private final Semaphore capacity;
+    private final LinkedBlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, CommentDto> pending = new ConcurrentHashMap<>();
+    private final List<Queued> inflight = new ArrayList<>();
+
+    private long nextId;
+    private long maxId = -1;
+
+    /**
+     * Комментарий в очереди.
+     *
+     * @param segment   номер сегмента журнала
+     * @param comment   комментарий
+     * @param recovered прочитан ли комментарий из журнала при запуске (не занимает место в очереди)
+     */
+    private record Queued(long segment, CommentDto comment, boolean recovered) {
+    }
+
+    public CommentWriteBehindQueue(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   CommentConverter commentConverter,
+                                   CommentOutbox commentOutbox,
+                                   CommentCountCache commentCountCache,
+                                   ObjectMapper objectMapper,
+                                   @Value("${write-behind.path:data/write-behind}") Path path,
+                                   @Value("${write-behind.segment-size:16777216}") long segmentSize,
+                                   @Value("${write-behind.capacity:10000}") int capacity,
+                                   @Value("${write-behind.batch-size:500}") int batchSize,
+                                   @Value("${write-behind.offer-timeout:PT1S}") Duration offerTimeout) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.commentConverter = commentConverter;
+        this.commentOutbox = commentOutbox;
+        this.commentCountCache = commentCountCache;
+        this.writeAheadLog = new CommentWriteAheadLog(path, segmentSize, objectMapper);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.capacity = new Semaphore(capacity);
+        for (var entry : writeAheadLog.recover()) {
+            queue.add(new Queued(entry.segment(), entry.comment(), true));
+            pending.put(entry.comment().getId(), entry.comment());
+        }
+    }
+
+    /**
+     * Принимает комментарий в очередь.
+     *
+     * @param dto данные для создания комментария
+     * @return созданный комментарий с присвоенными id и временем создания
+     * @throws InvalidCommentException если комментарий не может быть записан в таблицу {@code comment}
+     * @throws WriteQueueFullException если очередь не освободилась за {@code write-behind.offer-timeout}
+     */
+    public CommentDto offer(CommentCreateDto dto) {
+        var violation = violation(dto.getNewsId(), dto.getUsername(), dto.getText());
+        if (violation != null) {
+            throw new InvalidCommentException(violation);
+        }
+        try {
+            if (!capacity.tryAcquire(offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new WriteQueueFullException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteQueueFullException();
+        }
+        try {
+            var comment = commentConverter.convert(dto);
+            comment.setId(nextId());
+            comment.setTime(LocalDateTime.now());
+            var commentDto = commentConverter.convert(comment);
+            var segment = writeAheadLog.append(commentDto);
+            pending.put(commentDto.getId(), commentDto);
+            queue.add(new Queued(segment, commentDto, false));
+            return commentDto;
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает комментарий, принятый в очередь и еще не записанный в базу.
+     *
+     * @param id идентификатор комментария
+     * @return комментарий или пустой {@link Optional}
+     */
+    public Optional<CommentDto> find(Long id) {
+        return Optional.ofNullable(id).map(pending::get);
+    }
+
+    /**
+     * @param ids идентификаторы комментариев
+     * @return {@code true}, если хотя бы один из комментариев еще не записан в базу
+     */
+    public boolean containsAny(Collection<Long> ids) {
+        return ids.stream().anyMatch(id -> id != null && pending.containsKey(id));
+    }
+
+    /**
+     * Записывает в базу все комментарии очереди. Комментарии, которые не могут быть вставлены в таблицу
+     * {@code comment}, переносятся в таблицу {@code comment_dead_letter}. При других ошибках записи пакет остается
+     * в очереди и повторяется при следующем вызове.
+     *
+     * @return количество записанных комментариев
+     */
+    @Scheduled(fixedDelayString = "${write-behind.flush-interval:PT0.2S}")
+    public synchronized int flush() {
+        var flushed = 0;
+        while (true) {
+            if (inflight.isEmpty() && queue.drainTo(inflight, batchSize) == 0) {
+                return flushed;
+            }
+            try {
+                write(inflight);
+            } catch (DataAccessException e) {
+                log.warn("CommentWriteBehindQueue: flush of {} comments failed: {}", inflight.size(), e.getMessage());
+                return flushed;
+            }
+            complete(inflight);
+            flushed += inflight.size();
+            inflight.clear();
+        }
+    }
+
+    /**
+     * Записывает оставшиеся комментарии при остановке приложения. Незаписанные остаются в журнале.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        writeAheadLog.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("comments.write-behind.pending", pending, Map::size)
+                .description("Comments accepted but not yet written to the database")
+                .register(registry);
+    }
+
+    /**
+     * Вставляет пакет. Комментарии, не прошедшие проверку, переносятся в {@code comment_dead_letter} сразу;
+     * если пакет нарушает ограничения таблицы, комментарии вставляются по одному и туда переносятся
+     * только не вставленные.
+     */
+    private void write(List<Queued> batch) {
+        var valid = new ArrayList<Queued>(batch.size());
+        for (var queued : batch) {
+            var comment = queued.comment();
+            var violation = violation(comment.getNewsId(), comment.getUsername(), comment.getText());
+            if (violation == null) {
+                valid.add(queued);
+            } else {
+                deadLetter(comment, violation);
+            }
+        }
+        try {
+            insert(valid);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("CommentWriteBehindQueue: batch of {} comments was rejected, inserting one by one: {}",
+                    valid.size(), e.getMessage());
+            for (var queued : valid) {
+                try {
+                    insert(List.of(queued));
+                } catch (DataIntegrityViolationException rowException) {
+                    deadLetter(queued.comment(), rowException.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Вставляет комментарии вместе с событиями их создания и изменением количества комментариев новостей.
+     * Событие и количество учитывают только действительно вставленные комментарии: повторно вставляемые
+     * после сбоя уже учтены.
+     */
+    private void insert(List<Queued> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            var inserted = new HashSet<>(jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(INSERT);
+                var comments = batch.stream().map(Queued::comment).toList();
+                statement.setArray(1, connection.createArrayOf("bigint", comments.stream().map(CommentDto::getId).toArray()));
+                statement.setArray(2, connection.createArrayOf("bigint", comments.stream().map(CommentDto::getNewsId).toArray()));
+                statement.setArray(3, connection.createArrayOf("timestamp",
+                        comments.stream().map(comment -> Timestamp.valueOf(comment.getTime())).toArray()));
+                statement.setArray(4, connection.createArrayOf("varchar", comments.stream().map(CommentDto::getUsername).toArray()));
+                statement.setArray(5, connection.createArrayOf("varchar", comments.stream().map(CommentDto::getText).toArray()));
+                return statement;
+            }, (resultSet, rowNum) -> resultSet.getLong(1)));
+            var comments = batch.stream()
+                    .map(Queued::comment)
+                    .filter(comment -> inserted.contains(comment.getId()))
+                    .toList();
+            commentOutbox.created(comments);
+            comments.stream()
+                    .collect(Collectors.groupingBy(CommentDto::getNewsId, Collectors.counting()))
+                    .forEach(commentCountCache::add);
+        });
+    }
+
+    /**
+     * Сохраняет невставляемый комментарий в {@code comment_dead_letter}.
+     */
+    private void deadLetter(CommentDto comment, String error) {
+        log.error("CommentWriteBehindQueue: comment {} moved to comment_dead_letter: {}", comment.getId(), error);
+        jdbcTemplate.update(INSERT_DEAD_LETTER, comment.getId(), comment.getNewsId(),
+                comment.getTime() == null ? null : Timestamp.valueOf(comment.getTime()),
+                comment.getUsername(), comment.getText(), error);
+    }
+
+    /**
+     * Проверяет, что комментарий может быть вставлен в таблицу {@code comment}.
+     *
+     * @return описание нарушения или {@code null}
+     */
+    static String violation(Long newsId, String username, String text) {
+        if (newsId == null) {
+            return "newsId must not be null";
+        }
+        if (username == null || username.length() > COLUMN_LENGTH) {
+            return "username must not be null and must be at most " + COLUMN_LENGTH + " characters long";
+        }
+        if (text == null || text.length() > COLUMN_LENGTH) {
+            return "text must not be null and must be at most " + COLUMN_LENGTH + " characters long";
+        }
+        return null;
+    }
+
+    private void complete(List<Queued> batch) {
+        batch.forEach(queued -> pending.remove(queued.comment().getId()));
+        capacity.release((int) batch.stream().filter(queued -> !queued.recovered()).count());
+        var bySegment = batch.stream().collect(Collectors.groupingBy(Queued::segment, Collectors.counting()));
+        bySegment.forEach((segment, count) -> {
+            try {
+                writeAheadLog.release(segment, count.intValue());
+            } catch (IOException e) {
+                log.warn("CommentWriteBehindQueue: segment {} was not deleted: {}", segment, e.getMessage());
+            }
+        });
+        var newsIds = batch.stream().map(queued -> queued.comment().getNewsId()).filter(Objects::nonNull).distinct().toList();
+        eventPublisher.publishEvent(new CommentsFlushedEvent(newsIds));
+    }
+
+    /**
+     * Выдает следующий id из зарезервированного блока, резервируя новый блок при исчерпании.
+     */
+    private synchronized long nextId() {
+        if (nextId > maxId) {
+            var value = jdbcTemplate.queryForObject("select nextval('comment_seq')", Long.class);
+            maxId = value;
+            nextId = Math.max(1, value - SEQUENCE_INCREMENT + 1);
+        }
+        return nextId++;
+    }
+}
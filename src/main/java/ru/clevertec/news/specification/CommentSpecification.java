@@ -6,6 +6,8 @@ import org.springframework.data.jpa.domain.Specification;
 import ru.clevertec.news.model.dto.CommentFilterDto;
 import ru.clevertec.news.model.entity.Comment;
 
+import java.time.LocalDateTime;
+
 /**
  * Утилитный класс для создания спецификаций фильтрации комментариев.
  */
@@ -26,6 +28,12 @@ public class CommentSpecification {
         if (filter.text() != null && StringUtils.isNotEmpty(filter.text())) {
             spec = spec.and(findByText(filter.text()));
         }
+        if (filter.from() != null) {
+            spec = spec.and(findFrom(filter.from()));
+        }
+        if (filter.to() != null) {
+            spec = spec.and(findBefore(filter.to()));
+        }
         return spec;
     }
 
@@ -52,4 +60,29 @@ public class CommentSpecification {
             return criteriaBuilder.like(channel.get("text"), "%" + fragment + "%");
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает спецификацию для фильтрации комментариев, созданных не раньше заданного времени.
+     * Условие на время создания позволяет базе исключить из запроса секции таблицы вне интервала.
+     *
+     * @param from начало интервала включительно
+     * @return спецификация для поиска комментариев
+     */
+    private static Specification<Comment> findFrom(LocalDateTime from) {
+        return (channel, criteriaQuery, criteriaBuilder) -> {
+            return criteriaBuilder.greaterThanOrEqualTo(channel.get(Comment.Fields.time), from);
+        };
+    }
+
+    /**
+     * Создает спецификацию для фильтрации комментариев, созданных раньше заданного времени.
+     *
+     * @param to конец интервала не включительно
+     * @return спецификация для поиска комментариев
+     */
+    private static Specification<Comment> findBefore(LocalDateTime to) {
+        return (channel, criteriaQuery, criteriaBuilder) -> {
+            return criteriaBuilder.lessThan(channel.get(Comment.Fields.time), to);
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package ru.clevertec.news.util;
+
+import lombok.experimental.UtilityClass;
+import ru.clevertec.news.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Утилитный класс для кодирования и декодирования курсора keyset-пагинации.
+ * Курсор хранит позицию последнего прочитанного комментария в виде пары (time, id).
+ */
+@UtilityClass
+public class CursorUtils {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Позиция комментария в порядке сортировки (time desc, id desc).
+     *
+     * @param time время создания комментария
+     * @param id   идентификатор комментария
+     */
+    public record Position(LocalDateTime time, Long id) {
+    }
+
+    /**
+     * Кодирует позицию комментария в непрозрачный токен.
+     *
+     * @param time время создания комментария
+     * @param id   идентификатор комментария
+     * @return токен курсора
+     */
+    public static String encode(LocalDateTime time, Long id) {
+        var raw = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует токен курсора в позицию комментария.
+     *
+     * @param cursor токен курсора
+     * @return позиция комментария
+     * @throws InvalidCursorException если токен не может быть декодирован
+     */
+    public static Position decode(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new InvalidCursorException();
+            }
+            return new Position(LocalDateTime.parse(raw.substring(0, index)), Long.valueOf(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
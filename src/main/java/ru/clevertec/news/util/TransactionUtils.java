@@ -0,0 +1,33 @@
+package ru.clevertec.news.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Утилитный класс для работы с текущей транзакцией.
+ */
+@UtilityClass
+public class TransactionUtils {
+
+    /**
+     * Выполняет действие после завершения текущей транзакции с любым исходом.
+     * Если транзакция отсутствует, действие выполняется немедленно как после фиксации.
+     *
+     * @param action действие, получающее признак фиксации транзакции
+     */
+    public static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+}
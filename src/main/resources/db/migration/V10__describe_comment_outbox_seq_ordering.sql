@@ -0,0 +1,7 @@
+-- Уточнение к V8: шаг 1 сам по себе не упорядочивает события. Значение последовательности выдается при записи
+-- события, а строка комментария без явной блокировки блокируется только при его изменении, поэтому
+-- параллельные изменения одного комментария могли получить id не в порядке фиксации. Сервис блокирует строку
+-- комментария до записи события, и только вместе с этим id событий одного комментария возрастают в порядке
+-- фиксации транзакций. V8 не изменяется, чтобы не менять контрольную сумму примененной миграции.
+comment on sequence comment_outbox_seq is
+    'Ids of comment_outbox events. Events of one comment are ordered by commit only because the comment row is locked before the event is written.';
@@ -0,0 +1,10 @@
+create sequence if not exists comment_seq start with 1 increment by 50;
+
+create table if not exists comment
+(
+    id       bigint default nextval('comment_seq') not null primary key,
+    news_id  bigint                                not null,
+    time     timestamp(6),
+    username varchar(255)                          not null,
+    text     varchar(255)                          not null
+);
@@ -0,0 +1,5 @@
+create extension if not exists pg_trgm;
+
+create index if not exists comment_text_tsv_idx on comment using gin (to_tsvector('simple', text));
+create index if not exists comment_text_trgm_idx on comment using gin (text gin_trgm_ops);
+create index if not exists comment_username_trgm_idx on comment using gin (username gin_trgm_ops);
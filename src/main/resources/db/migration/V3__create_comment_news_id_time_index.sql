@@ -0,0 +1,4 @@
+-- Чтение комментариев новости упорядочено по (time desc, id desc): страницы, курсорная пагинация,
+-- выгрузка и первые комментарии новостей читаются диапазоном индекса без сортировки,
+-- количество комментариев новости подсчитывается только по индексу.
+create index if not exists comment_news_id_time_id_idx on comment (news_id, time desc, id desc);
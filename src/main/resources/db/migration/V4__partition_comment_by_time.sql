@@ -0,0 +1,97 @@
+-- Таблица комментариев секционируется по месяцам по времени создания. Комментарии вне созданных секций
+-- попадают в секцию по умолчанию. Секции старше срока хранения переносятся в таблицу comment_archive.
+
+create table comment_archive
+(
+    id       bigint       not null primary key,
+    news_id  bigint       not null,
+    time     timestamp(6) not null,
+    username varchar(255) not null,
+    text     varchar(255) not null
+) with (fillfactor = 100);
+
+alter table comment rename to comment_unpartitioned;
+
+create table comment
+(
+    id       bigint default nextval('comment_seq') not null,
+    news_id  bigint                                not null,
+    time     timestamp(6) default now()            not null,
+    username varchar(255)                          not null,
+    text     varchar(255)                          not null,
+    primary key (id, time)
+) partition by range (time);
+
+create table comment_default partition of comment default;
+
+-- Создает месячные секции с from_month по to_month включительно. Комментарии из диапазона новой секции,
+-- уже попавшие в секцию по умолчанию, переносятся в нее.
+create or replace function create_comment_partitions(from_month timestamp, to_month timestamp) returns integer as
+$$
+declare
+    month_start timestamp := date_trunc('month', from_month);
+    month_end   timestamp;
+    name        text;
+    created     integer   := 0;
+begin
+    perform pg_advisory_xact_lock(hashtext('comment_partitions'));
+    while month_start <= date_trunc('month', to_month)
+        loop
+            month_end := month_start + interval '1 month';
+            name := 'comment_p' || to_char(month_start, 'YYYY_MM');
+            if to_regclass(name) is null then
+                execute format('create table %I (like comment including defaults including constraints)', name);
+                execute format('with moved as (delete from comment_default where time >= %L and time < %L returning *) '
+                                   || 'insert into %I select * from moved', month_start, month_end, name);
+                execute format('alter table comment attach partition %I for values from (%L) to (%L)',
+                               name, month_start, month_end);
+                created := created + 1;
+            end if;
+            month_start := month_end;
+        end loop;
+    return created;
+end;
+$$ language plpgsql;
+
+-- Переносит в comment_archive месячные секции, которые целиком старше before, и удаляет их.
+create or replace function archive_comment_partitions(before timestamp) returns integer as
+$$
+declare
+    partition record;
+    archived  integer := 0;
+begin
+    perform pg_advisory_xact_lock(hashtext('comment_partitions'));
+    for partition in
+        select c.relname as name
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+        where i.inhparent = 'comment'::regclass
+          and c.relname ~ '^comment_p[0-9]{4}_[0-9]{2}$'
+        order by c.relname
+        loop
+            if to_timestamp(substring(partition.name from 10), 'YYYY_MM')::timestamp + interval '1 month' <= before then
+                execute format('alter table comment detach partition %I', partition.name);
+                execute format('insert into comment_archive (id, news_id, time, username, text) '
+                                   || 'select id, news_id, time, username, text from %I on conflict (id) do nothing',
+                               partition.name);
+                execute format('drop table %I', partition.name);
+                archived := archived + 1;
+            end if;
+        end loop;
+    return archived;
+end;
+$$ language plpgsql;
+
+select create_comment_partitions(coalesce((select min(time) from comment_unpartitioned), now()::timestamp),
+                                 now()::timestamp + interval '3 months');
+
+insert into comment (id, news_id, time, username, text)
+select id, news_id, coalesce(time, now()), username, text
+from comment_unpartitioned;
+
+drop table comment_unpartitioned;
+
+create index comment_news_id_time_id_idx on comment (news_id, time desc, id desc);
+create index comment_text_tsv_idx on comment using gin (to_tsvector('simple', text));
+create index comment_text_trgm_idx on comment using gin (text gin_trgm_ops);
+create index comment_username_trgm_idx on comment using gin (username gin_trgm_ops);
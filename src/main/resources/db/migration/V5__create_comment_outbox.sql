@@ -0,0 +1,13 @@
+-- События изменений комментариев для других сервисов. Строки добавляются в транзакции изменения комментария
+-- и удаляются после публикации.
+create sequence if not exists comment_outbox_seq start with 1 increment by 50;
+
+create table if not exists comment_outbox
+(
+    id         bigint       not null primary key,
+    comment_id bigint       not null,
+    news_id    bigint,
+    type       varchar(16)  not null,
+    payload    text,
+    time       timestamp(6) not null
+);
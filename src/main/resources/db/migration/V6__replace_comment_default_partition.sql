@@ -0,0 +1,49 @@
+-- Пока у таблицы есть секция по умолчанию, секции нельзя отсоединять без блокировки всей таблицы
+-- (detach partition ... concurrently), поэтому comment_default заменяется двумя граничными секциями:
+-- comment_history для комментариев до первой месячной секции и comment_future для комментариев после последней.
+-- Недостающие месячные секции между первой и последней создаются, строки из comment_default распределяются
+-- по секциям заново. Обслуживание секций выполняет CommentArchiveJob, функции из V4 больше не используются.
+
+alter table comment detach partition comment_default;
+
+do
+$$
+declare
+    first_month timestamp;
+    last_month  timestamp;
+    month_start timestamp;
+    name        text;
+begin
+    select min(to_timestamp(substring(c.relname from 10), 'YYYY_MM')::timestamp),
+           max(to_timestamp(substring(c.relname from 10), 'YYYY_MM')::timestamp)
+    into first_month, last_month
+    from pg_inherits i
+             join pg_class c on c.oid = i.inhrelid
+    where i.inhparent = 'comment'::regclass
+      and c.relname ~ '^comment_p[0-9]{4}_[0-9]{2}$';
+    first_month := coalesce(first_month, date_trunc('month', now()::timestamp));
+    last_month := coalesce(last_month, first_month);
+    month_start := first_month;
+    while month_start <= last_month
+        loop
+            name := 'comment_p' || to_char(month_start, 'YYYY_MM');
+            if to_regclass(name) is null then
+                execute format('create table %I partition of comment for values from (%L) to (%L)',
+                               name, month_start, month_start + interval '1 month');
+            end if;
+            month_start := month_start + interval '1 month';
+        end loop;
+    execute format('create table comment_history partition of comment for values from (minvalue) to (%L)', first_month);
+    execute format('create table comment_future partition of comment for values from (%L) to (maxvalue)',
+                   last_month + interval '1 month');
+end;
+$$;
+
+insert into comment
+select *
+from comment_default;
+
+drop table comment_default;
+
+drop function create_comment_partitions(timestamp, timestamp);
+drop function archive_comment_partitions(timestamp);
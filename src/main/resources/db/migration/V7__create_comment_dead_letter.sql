@@ -0,0 +1,12 @@
+-- Комментарии из очереди отложенной записи, которые не удалось вставить в таблицу comment, с описанием ошибки.
+-- Столбцы не ограничены, чтобы сохранить комментарий в том виде, в котором он был принят.
+create table if not exists comment_dead_letter
+(
+    id        bigint       not null primary key,
+    news_id   bigint,
+    time      timestamp(6),
+    username  text,
+    text      text,
+    error     text         not null,
+    failed_at timestamp(6) not null default now()
+);
@@ -0,0 +1,5 @@
+-- Ретранслятор публикует события в порядке id. При выделении идентификаторов блоками по 50 каждый экземпляр
+-- сервиса берет свой блок, и более позднее изменение комментария могло получить меньший id и уйти в поток
+-- раньше предыдущего. С шагом 1 id выдается при вставке события, поэтому изменения одного комментария,
+-- сериализованные блокировкой строки, получают возрастающие id.
+alter sequence comment_outbox_seq increment by 1;
@@ -0,0 +1,3 @@
+-- Новость комментария до изменения, если изменение перенесло комментарий в другую новость. Нужна, чтобы
+-- событие получили и подписчики прежней новости.
+alter table comment_outbox add column previous_news_id bigint;
@@ -0,0 +1,3 @@
+select setval('comment_seq', greatest((select last_value from comment_seq),
+                                      (select coalesce(max(id), 0) from comment),
+                                      (select coalesce(max(id), 0) from comment_archive)));
@@ -0,0 +1,152 @@
+package ru.clevertec.news.cache.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    void lruShouldEvictLeastRecentlyUsed() {
+        var cache = new ConcurrentCacheLru<Long, String>(1);
+        cache.capacity(2);
+
+        cache.put(1L, "1");
+        cache.put(2L, "2");
+        cache.get(1L);
+        cache.put(3L, "3");
+
+        assertEquals("1", cache.get(1L));
+        assertNull(cache.get(2L));
+        assertEquals("3", cache.get(3L));
+    }
+
+    @Test
+    void lfuShouldEvictLeastFrequentlyUsed() {
+        var cache = new ConcurrentCacheLfu<Long, String>(1);
+        cache.capacity(2);
+
+        cache.put(1L, "1");
+        cache.put(2L, "2");
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(2L);
+        cache.put(3L, "3");
+
+        assertNull(cache.get(1L));
+        assertEquals("2", cache.get(2L));
+        assertEquals("3", cache.get(3L));
+    }
+
+    @Test
+    void smallCapacityShouldNotBeExceededByStripes() {
+        var cache = new ConcurrentCacheLru<Long, Long>();
+        cache.capacity(10);
+
+        for (long key = 0; key < 1000; key++) {
+            cache.put(key, key);
+        }
+
+        assertEquals(10, cache.size());
+    }
+
+    @Test
+    void computeIfAbsentShouldLoadOnceUnderContention() throws Exception {
+        var cache = new ConcurrentCacheLru<Long, String>();
+        cache.capacity(100);
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(16);
+        try {
+            var futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.computeIfAbsent(1L, key -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return "value";
+                    });
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                assertEquals("value", future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void computeIfAbsentShouldPropagateLoaderException() {
+        var cache = new ConcurrentCacheLfu<Long, String>();
+        cache.capacity(10);
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent(1L, key -> {
+            throw new IllegalStateException();
+        }));
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void concurrentAccessShouldKeepCachesConsistent() throws Exception {
+        assertConsistentUnderLoad(new ConcurrentCacheLru<>());
+        assertConsistentUnderLoad(new ConcurrentCacheLfu<>());
+    }
+
+    private void assertConsistentUnderLoad(AbstractStripedCache<Long, Long> cache) throws Exception {
+        var capacity = 256;
+        cache.capacity(capacity);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 50_000; i++) {
+                        var key = (long) random.nextInt(1024);
+                        switch (random.nextInt(4)) {
+                            case 0 -> cache.put(key, key);
+                            case 1 -> cache.remove(key);
+                            case 2 -> cache.computeIfAbsent(key, k -> k);
+                            default -> {
+                                var value = cache.get(key);
+                                assertTrue(value == null || value.equals(key));
+                            }
+                        }
+                    }
+                }));
+            }
+            for (var future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= capacity + ConcurrentCacheLru.DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
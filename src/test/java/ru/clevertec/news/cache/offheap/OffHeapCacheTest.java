@@ -0,0 +1,101 @@
+package ru.clevertec.news.cache.offheap;
+
+import org.junit.jupiter.api.Test;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.service.cache.CommentDtoCodec;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OffHeapCacheTest {
+
+    @Test
+    void getShouldReturnEqualComment() {
+        var cache = new OffHeapCache<>(1024, new CommentDtoCodec());
+        cache.capacity(10);
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+
+        cache.put(comment.getId(), comment);
+
+        assertEquals(comment, cache.get(comment.getId()));
+    }
+
+    @Test
+    void getShouldReturnCommentWithNullFields() {
+        var cache = new OffHeapCache<>(1024, new CommentDtoCodec());
+        cache.capacity(10);
+        var comment = new CommentDto(1L, null, "текст", null, null);
+
+        cache.put(1L, comment);
+
+        assertEquals(comment, cache.get(1L));
+    }
+
+    @Test
+    void putShouldSkipValueLargerThanEntrySize() {
+        var cache = new OffHeapCache<>(1, 64, new CommentDtoCodec());
+        cache.capacity(10);
+        var comment = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        comment.setText("a".repeat(100));
+
+        cache.put(1L, comment);
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putShouldEvictWhenCapacityReached() {
+        var cache = new OffHeapCache<>(1, 16, new LongCodec());
+        cache.capacity(100);
+
+        for (long key = 0; key < 1000; key++) {
+            cache.put(key, key);
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(999L, cache.get(999L));
+    }
+
+    @Test
+    void operationsShouldMatchHashMapWithoutEviction() {
+        var cache = new OffHeapCache<>(1, 16, new LongCodec());
+        cache.capacity(512);
+        var expected = new HashMap<Long, Long>();
+        var random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            var key = (long) random.nextInt(512);
+            if (random.nextBoolean()) {
+                cache.put(key, (long) i);
+                expected.put(key, (long) i);
+            } else {
+                cache.remove(key);
+                expected.remove(key);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size());
+        for (long key = 0; key < 512; key++) {
+            assertEquals(expected.get(key), cache.get(key));
+        }
+    }
+
+    private static class LongCodec implements ValueCodec<Long> {
+
+        @Override
+        public void encode(Long value, ByteBuffer target) {
+            target.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer source) {
+            return source.getLong();
+        }
+    }
+}
@@ -9,14 +9,24 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import ru.clevertec.news.config.PostgresSqlContainerInitializer;
+import ru.clevertec.news.dto.CommentDto;
 import ru.clevertec.news.dto.page.PageParamDto;
 import ru.clevertec.news.exception.EntityNotFoundException;
 import ru.clevertec.news.model.dto.CommentFilterDto;
 import ru.clevertec.news.service.CommentService;
 import ru.clevertec.news.util.CommentTestBuilder;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ru.clevertec.news.constant.Constant.LIMIT;
 import static ru.clevertec.news.constant.Constant.OFFSET;
@@ -78,6 +88,56 @@ public class CommentControllerTest extends PostgresSqlContainerInitializer {
                 .andExpect(content().json(objectMapper.writeValueAsString(expected)));
     }
 
+    @Test
+    public void getByNewsIdWithCursorShouldReturnStatus400WhenPageSizeIsOutOfRange() throws Exception {
+        var id = 1L;
+
+        mockMvc.perform(get("/api/comments/newsId/" + id + "/cursor?pageSize=0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+        mockMvc.perform(get("/api/comments/newsId/" + id + "/cursor?pageSize=101"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+    }
+
+    @Test
+    public void getAllByIdShouldReturnStatus400WhenTooManyIds() throws Exception {
+        var ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/comments/batch?ids=" + ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+    }
+
+    @Test
+    public void getTopByNewsIdsShouldReturnStatus400WhenLimitIsOutOfRange() throws Exception {
+        mockMvc.perform(get("/api/comments/newsId/top?ids=1,2&limit=0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+        mockMvc.perform(get("/api/comments/newsId/top?ids=1,2&limit=21"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+    }
+
+    @Test
+    public void exportByNewsIdShouldStreamCommentsAsNdjsonAndStatus200() throws Exception {
+        var newsId = 1L;
+        var mvcResult = mockMvc.perform(get("/api/comments/newsId/" + newsId + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        var lines = body.lines().toList();
+        assertFalse(lines.isEmpty());
+        for (var line : lines) {
+            assertEquals(newsId, objectMapper.readValue(line, CommentDto.class).getNewsId());
+        }
+    }
+
     @Test
     public void createShouldReturnCreatedCommentAndStatus201() throws Exception {
         var commentCreateDto = CommentTestBuilder.builder().build().buildCommentCreateDto();
@@ -119,4 +179,49 @@ public class CommentControllerTest extends PostgresSqlContainerInitializer {
         mockMvc.perform(delete("/api/comments/" + id))
                 .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void createAllShouldReturnCreatedCommentsAndStatus201() throws Exception {
+        var commentCreateDtos = List.of(
+                CommentTestBuilder.builder().build().buildCommentCreateDto(),
+                CommentTestBuilder.builder().withText("Second").build().buildCommentCreateDto()
+        );
+
+        mockMvc.perform(post("/api/comments/batch")
+                        .content(objectMapper.writeValueAsString(commentCreateDtos))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    public void createAllShouldReturnStatus400WhenBatchIsTooLarge() throws Exception {
+        var commentCreateDtos = Collections.nCopies(1001, CommentTestBuilder.builder().build().buildCommentCreateDto());
+
+        mockMvc.perform(post("/api/comments/batch")
+                        .content(objectMapper.writeValueAsString(commentCreateDtos))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+    }
+
+    @Test
+    public void deleteAllShouldReturnStatus204() throws Exception {
+        var ids = List.of(3L, 4L);
+
+        mockMvc.perform(delete("/api/comments/batch")
+                        .content(objectMapper.writeValueAsString(ids))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void deleteAllShouldReturnStatus400WhenBatchIsTooLarge() throws Exception {
+        var ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        mockMvc.perform(delete("/api/comments/batch")
+                        .content(objectMapper.writeValueAsString(ids))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value(400));
+    }
+}
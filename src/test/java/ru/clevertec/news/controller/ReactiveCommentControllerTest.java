@@ -0,0 +1,127 @@
+package ru.clevertec.news.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.exception.EntityNotFoundException;
+import ru.clevertec.news.exception.InvalidCursorException;
+import ru.clevertec.news.service.ReactiveCommentService;
+import ru.clevertec.news.service.feed.CommentFeedHub;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveCommentControllerTest {
+
+    @Mock
+    private ReactiveCommentService commentService;
+
+    @Mock
+    private CommentFeedHub commentFeedHub;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new ReactiveCommentController(commentService, commentFeedHub))
+                .controllerAdvice(new ReactiveCommentExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void getByIdShouldReturnExpectedCommentDtoAndStatus200() {
+        var expected = CommentTestBuilder.builder().build().buildCommentDto();
+        when(commentService.findById(expected.getId())).thenReturn(Mono.just(expected));
+
+        webTestClient.get().uri("/api/comments/{id}", expected.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CommentDto.class).isEqualTo(expected);
+    }
+
+    @Test
+    void getByIdShouldReturnStatus404WhenNotFound() {
+        when(commentService.findById(20L)).thenReturn(Mono.error(new EntityNotFoundException()));
+
+        webTestClient.get().uri("/api/comments/{id}", 20L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.errorCode").isEqualTo(404);
+    }
+
+    @Test
+    void getByNewsIdShouldReturnStatus400WhenPageSizeIsOutOfRange() {
+        webTestClient.get().uri("/api/comments/newsId/{id}?pageSize={pageSize}", 1L, 0)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo(400)
+                .jsonPath("$.errorMessage").value(message -> assertThat((String) message).contains("pageSize"));
+
+        verifyNoInteractions(commentService);
+    }
+
+    @Test
+    void getByNewsIdWithCursorShouldReturnStatus400WhenCursorIsInvalid() {
+        when(commentService.findByNewsIdWithCursor(1L, "zzz", 15)).thenReturn(Mono.error(new InvalidCursorException()));
+
+        webTestClient.get().uri("/api/comments/newsId/{id}/cursor?cursor={cursor}", 1L, "zzz")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo(400)
+                .jsonPath("$.errorMessage").isEqualTo("Invalid cursor!");
+    }
+
+    @Test
+    void deleteAllShouldReturnStatus400WhenBatchIsTooLarge() {
+        webTestClient.method(HttpMethod.DELETE).uri("/api/comments/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LongStream.rangeClosed(1, 1001).boxed().toList())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.errorCode").isEqualTo(400);
+
+        verifyNoInteractions(commentService);
+    }
+
+    @Test
+    void exportByNewsIdShouldStreamCommentsAsNdjson() {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        when(commentService.exportByNewsId(1L)).thenReturn(Flux.just(first, second));
+
+        webTestClient.get().uri("/api/comments/newsId/{id}/export", 1L)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(CommentDto.class).isEqualTo(List.of(first, second));
+    }
+
+    @Test
+    void deleteShouldReturnStatus204() {
+        when(commentService.delete(1L)).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/api/comments/{id}", 1L)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(commentService).delete(1L);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.clevertec.news.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource first;
+
+    @Mock
+    private HikariDataSource second;
+
+    @AfterEach
+    void tearDown() {
+        PrimaryReadContext.clear();
+    }
+
+    @Test
+    void getConnectionShouldAlternateBetweenReplicas() throws SQLException {
+        var firstConnection = mock(Connection.class);
+        var secondConnection = mock(Connection.class);
+        var dataSource = new ReplicaDataSource(primary, List.of(first, second));
+
+        when(first.getConnection()).thenReturn(firstConnection);
+        when(second.getConnection()).thenReturn(secondConnection);
+
+        assertSame(firstConnection, dataSource.getConnection());
+        assertSame(secondConnection, dataSource.getConnection());
+        assertSame(firstConnection, dataSource.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnectionShouldFallBackToPrimaryWhenReplicasAreUnavailable() throws SQLException {
+        var connection = mock(Connection.class);
+        var dataSource = new ReplicaDataSource(primary, List.of(first, second));
+
+        when(first.getConnection()).thenThrow(new SQLException("unavailable"));
+        when(second.getConnection()).thenThrow(new SQLException("unavailable"));
+        when(primary.getConnection()).thenReturn(connection);
+
+        assertSame(connection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnectionShouldUsePrimaryAfterRecentWrite() throws SQLException {
+        var connection = mock(Connection.class);
+        var dataSource = new ReplicaDataSource(primary, List.of(first, second));
+
+        when(primary.getConnection()).thenReturn(connection);
+        PrimaryReadContext.enable();
+
+        assertSame(connection, dataSource.getConnection());
+        verifyNoInteractions(first, second);
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import ru.clevertec.news.config.PostgresSqlContainerInitializer;
 
+import java.util.List;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 @DataJpaTest
@@ -19,16 +21,40 @@ public class CommentRepositoryTest extends PostgresSqlContainerInitializer {
     private CommentRepository commentRepository;
 
     @Test
-    void findByNewsIdShouldReturnExpectedPageComment() {
+    void findKeysetByNewsIdAfterShouldReturnCommentsAfterPosition() {
         var newsId = 1L;
         var pageable = PageRequest.of(0, 10);
-        var actual = commentRepository.findByNewsId(pageable, newsId);
+        var first = commentRepository.findKeysetByNewsId(newsId, pageable);
+
+        assertThat(first.isEmpty()).isFalse();
 
-        assertThat(actual).isNotNull();
-        assertThat(actual.getTotalElements()).isGreaterThan(0);
+        var last = first.get(0);
+        var actual = commentRepository.findKeysetByNewsIdAfter(newsId, last.getTime(), last.getId(), pageable);
 
-        actual.getContent().forEach(comment -> {
+        actual.forEach(comment -> {
             assertThat(comment.getNewsId()).isEqualTo(newsId);
+            assertThat(comment.getId()).isNotEqualTo(last.getId());
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void findTopByNewsIdsShouldReturnAtMostLimitNewestCommentsPerNews() {
+        var newsIds = List.of(1L, 2L);
+        var limit = 2;
+        var actual = commentRepository.findTopByNewsIds(newsIds, limit);
+
+        for (var newsId : newsIds) {
+            var expected = commentRepository.findKeysetByNewsId(newsId, PageRequest.of(0, limit));
+            assertThat(actual.stream().filter(comment -> comment.getNewsId().equals(newsId)).toList()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void searchByTextShouldReturnCommentsContainingWord() {
+        var word = "inspired";
+        var actual = commentRepository.searchByText(word, null, null, null, 10, 0);
+
+        actual.forEach(comment -> assertThat(comment.getText().toLowerCase()).contains(word));
+        assertThat(commentRepository.countByText(word, null, null, null)).isGreaterThanOrEqualTo(actual.size());
+    }
+}
@@ -7,17 +7,38 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import ru.clevertec.news.converter.CommentConverter;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.page.PageParamDto;
 import ru.clevertec.news.exception.EntityNotFoundException;
+import ru.clevertec.news.exception.InvalidCursorException;
+import ru.clevertec.news.model.dto.CommentFilterDto;
+import ru.clevertec.news.model.dto.CommentNewsIdDto;
+import ru.clevertec.news.model.dto.NewsCommentCountDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
 import ru.clevertec.news.model.entity.Comment;
+import ru.clevertec.news.model.enums.SearchMode;
+import ru.clevertec.news.repository.ArchivedCommentRepository;
 import ru.clevertec.news.repository.CommentRepository;
+import ru.clevertec.news.service.cache.CommentCountCache;
 import ru.clevertec.news.service.impl.CommentServiceImpl;
+import ru.clevertec.news.service.outbox.CommentOutbox;
 import ru.clevertec.news.util.CommentTestBuilder;
+import ru.clevertec.news.util.CursorUtils;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,9 +47,18 @@ public class CommentServiceTest {
     @Mock
     private CommentRepository commentRepository;
 
+    @Mock
+    private ArchivedCommentRepository archivedCommentRepository;
+
     @Mock
     private CommentConverter commentConverter;
 
+    @Mock
+    private CommentCountCache commentCountCache;
+
+    @Mock
+    private CommentOutbox commentOutbox;
+
     @InjectMocks
     private CommentServiceImpl commentService;
 
@@ -42,8 +72,7 @@ public class CommentServiceTest {
         var commentDto = CommentTestBuilder.builder().build().buildCommentDto();
         var id = expected.getId();
 
-        when(commentRepository.findById(id)).thenReturn(Optional.of(expected));
-        when(commentConverter.convert(expected)).thenReturn(commentDto);
+        when(commentRepository.findDtoById(id)).thenReturn(Optional.of(commentDto));
 
         var actual = commentService.findById(id);
 
@@ -55,12 +84,164 @@ public class CommentServiceTest {
                 .hasFieldOrPropertyWithValue(Comment.Fields.time, expected.getTime());
     }
 
+    @Test
+    void findByIdShouldReturnArchivedCommentWhenMissingInCommentTable() {
+        var expected = CommentTestBuilder.builder().build().buildCommentDto();
+        var id = expected.getId();
+
+        when(commentRepository.findDtoById(id)).thenReturn(Optional.empty());
+        when(archivedCommentRepository.findDtoById(id)).thenReturn(Optional.of(expected));
+
+        var actual = commentService.findById(id);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void findAllByIdShouldReturnCommentsInRequestedOrderWithoutDuplicates() {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+
+        when(commentRepository.findDtoAllById(List.of(2L, 3L, 1L))).thenReturn(List.of(first, second));
+
+        var actual = commentService.findAllById(List.of(2L, 3L, 2L, 1L));
+
+        assertEquals(List.of(second, first), actual);
+    }
+
     @Test
     void findByIdShouldThrowEntityNotFoundExceptionWhenCommentNotFound() {
         var exception = assertThrows(Exception.class, () -> commentService.findById(null));
         assertEquals(exception.getClass(), EntityNotFoundException.class);
     }
 
+    @Test
+    void findByNewsIdShouldTakeTotalElementsFromCountCache() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var newsId = comment.getNewsId();
+        var param = new PageParamDto(1, 2);
+
+        when(commentRepository.findSliceByNewsId(any(), eq(newsId))).thenReturn(new SliceImpl<>(List.of(comment)));
+        when(commentCountCache.get(eq(newsId), any())).thenReturn(5L);
+
+        var actual = commentService.findByNewsId(param, newsId);
+
+        assertThat(actual)
+                .hasFieldOrPropertyWithValue("page.totalElements", 5L)
+                .hasFieldOrPropertyWithValue("page.totalPages", 3);
+        verify(commentRepository, never()).countByNewsId(any());
+    }
+
+    @Test
+    void findTopByNewsIdsShouldCountOnlyNewsWithFullTop() {
+        var first = CommentTestBuilder.builder().withId(1L).withNewsId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).withNewsId(1L).build().buildCommentDto();
+        var third = CommentTestBuilder.builder().withId(3L).withNewsId(2L).build().buildCommentDto();
+
+        when(commentRepository.findTopByNewsIds(List.of(1L, 2L, 3L), 2)).thenReturn(List.of(first, second, third));
+        when(commentRepository.countByNewsIds(List.of(1L))).thenReturn(List.of(new NewsCommentCountDto(1L, 7L)));
+
+        var actual = commentService.findTopByNewsIds(List.of(1L, 2L, 3L), 2);
+
+        assertEquals(List.of(
+                new NewsCommentsDto(1L, 7L, List.of(first, second)),
+                new NewsCommentsDto(2L, 1L, List.of(third)),
+                new NewsCommentsDto(3L, 0L, List.of())
+        ), actual);
+    }
+
+    @Test
+    void findSliceByNewsIdShouldNotQueryCount() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var newsId = comment.getNewsId();
+
+        when(commentRepository.findSliceByNewsId(any(), eq(newsId))).thenReturn(new SliceImpl<>(List.of(comment)));
+
+        var actual = commentService.findSliceByNewsId(new PageParamDto(1, 2), newsId);
+
+        assertFalse(actual.hasNext());
+        verifyNoInteractions(commentCountCache);
+        verify(commentRepository, never()).countByNewsId(any());
+    }
+
+    @Test
+    void findAllShouldUseFullTextSearchWhenModeIsFullText() {
+        var comment = CommentTestBuilder.builder().build().buildComment();
+        var filter = new CommentFilterDto(null, comment.getText(), SearchMode.FULL_TEXT);
+
+        when(commentRepository.searchByText(comment.getText(), null, null, null, 2, 0)).thenReturn(List.of(comment));
+        when(commentRepository.countByText(comment.getText(), null, null, null)).thenReturn(1L);
+
+        var actual = commentService.findAll(new PageParamDto(1, 2), filter);
+
+        assertThat(actual).hasFieldOrPropertyWithValue("page.totalElements", 1L);
+        verify(commentRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verify(commentRepository, never()).findPage(any(), any());
+    }
+
+    @Test
+    void findAllShouldReturnProjectedCommentsWithoutConversion() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var filter = new CommentFilterDto(comment.getUsername(), null, SearchMode.LIKE);
+
+        when(commentRepository.findPage(any(), any())).thenReturn(new PageImpl<>(List.of(comment)));
+
+        var actual = commentService.findAll(new PageParamDto(1, 2), filter);
+
+        assertEquals(List.of(comment), actual.content());
+        verifyNoInteractions(commentConverter);
+    }
+
+    @Test
+    void findByNewsIdWithCursorShouldReturnNextCursorWhenMoreCommentsExist() {
+        var first = CommentTestBuilder.builder().withId(3L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        var newsId = first.getNewsId();
+
+        when(commentRepository.findKeysetByNewsId(eq(newsId), any())).thenReturn(List.of(first, second));
+
+        var actual = commentService.findByNewsIdWithCursor(newsId, null, 1);
+
+        assertEquals(1, actual.content().size());
+        assertEquals(new CursorUtils.Position(first.getTime(), first.getId()), CursorUtils.decode(actual.nextCursor()));
+    }
+
+    @Test
+    void findByNewsIdWithCursorShouldContinueFromCursorPosition() {
+        var last = CommentTestBuilder.builder().withId(3L).build().buildCommentDto();
+        var next = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        var newsId = last.getNewsId();
+        var cursor = CursorUtils.encode(last.getTime(), last.getId());
+
+        when(commentRepository.findKeysetByNewsIdAfter(eq(newsId), eq(last.getTime()), eq(last.getId()), any())).thenReturn(List.of(next));
+
+        var actual = commentService.findByNewsIdWithCursor(newsId, cursor, 1);
+
+        assertNull(actual.nextCursor());
+        verify(commentRepository, never()).findKeysetByNewsId(any(), any());
+    }
+
+    @Test
+    void findByNewsIdWithCursorShouldThrowInvalidCursorExceptionWhenCursorMalformed() {
+        assertThrows(InvalidCursorException.class, () -> commentService.findByNewsIdWithCursor(1L, "not-a-cursor", 1));
+    }
+
+    @Test
+    void exportByNewsIdShouldPassStreamedCommentsToConsumerAndCloseStream() {
+        var first = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var newsId = first.getNewsId();
+        var closed = new AtomicBoolean();
+        var exported = new ArrayList<CommentDto>();
+
+        when(commentRepository.streamByNewsId(newsId)).thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+
+        commentService.exportByNewsId(newsId, exported::add);
+
+        assertEquals(List.of(first, second), exported);
+        assertTrue(closed.get());
+    }
+
     @Test
     void createShouldInvokeRepositoryWithoutCommentId() {
         var commentToSave = CommentTestBuilder.builder().withId(null).build().buildComment();
@@ -69,6 +250,7 @@ public class CommentServiceTest {
 
         doReturn(expected).when(commentRepository).save(commentToSave);
         when(commentConverter.convert(dto)).thenReturn(commentToSave);
+        when(commentConverter.convert(expected)).thenReturn(CommentTestBuilder.builder().build().buildCommentDto());
 
         commentService.create(dto);
 
@@ -76,6 +258,38 @@ public class CommentServiceTest {
         assertThat(argumentCaptor.getValue()).hasFieldOrPropertyWithValue(Comment.Fields.id, null);
     }
 
+    @Test
+    void createShouldIncrementCommentCount() {
+        var comment = CommentTestBuilder.builder().build().buildComment();
+        var dto = CommentTestBuilder.builder().build().buildCommentCreateDto();
+
+        var commentDto = CommentTestBuilder.builder().build().buildCommentDto();
+
+        when(commentConverter.convert(dto)).thenReturn(comment);
+        when(commentRepository.save(comment)).thenReturn(comment);
+        when(commentConverter.convert(comment)).thenReturn(commentDto);
+
+        commentService.create(dto);
+
+        verify(commentCountCache).add(comment.getNewsId(), 1);
+        verify(commentOutbox).created(List.of(commentDto));
+    }
+
+    @Test
+    void createAllShouldPersistInBatchAndIncrementCountOncePerNews() {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildComment();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildComment();
+        var dtos = List.of(CommentTestBuilder.builder().build().buildCommentCreateDto(), CommentTestBuilder.builder().build().buildCommentCreateDto());
+
+        when(commentConverter.convertToEntityList(dtos)).thenReturn(List.of(first, second));
+        when(commentRepository.persistAll(List.of(first, second))).thenReturn(List.of(first, second));
+
+        commentService.createAll(dtos);
+
+        verify(commentRepository, never()).save(any());
+        verify(commentCountCache).add(first.getNewsId(), 2L);
+    }
+
     @Test
     void updateShouldCallsMergeAndSaveWhenCommentFound() {
         var id = CommentTestBuilder.builder().build().getId();
@@ -83,17 +297,18 @@ public class CommentServiceTest {
         var comment = CommentTestBuilder.builder().build().buildComment();
         var commentDto = CommentTestBuilder.builder().build().buildCommentDto();
 
-        when(commentRepository.findById(id)).thenReturn(Optional.of(comment));
+        when(commentRepository.findForUpdateById(id)).thenReturn(Optional.of(comment));
         when(commentConverter.merge(comment, dto)).thenReturn(comment);
         when(commentRepository.save(comment)).thenReturn(comment);
         when(commentConverter.convert(comment)).thenReturn(commentDto);
 
         commentService.update(dto);
 
-        verify(commentRepository, times(1)).findById(id);
+        verify(commentRepository, times(1)).findForUpdateById(id);
         verify(commentConverter, times(1)).merge(argumentCaptor.capture(), eq(dto));
         assertSame(comment, argumentCaptor.getValue());
         verify(commentRepository, times(1)).save(comment);
+        verify(commentOutbox).updated(commentDto, comment.getNewsId());
     }
 
     @Test
@@ -101,10 +316,10 @@ public class CommentServiceTest {
         var id = CommentTestBuilder.builder().build().getId();
         var dto = CommentTestBuilder.builder().build().buildCommentUpdateDto();
 
-        when(commentRepository.findById(id)).thenReturn(Optional.empty());
+        when(commentRepository.findForUpdateById(id)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> commentService.update(dto));
-        verify(commentRepository, times(1)).findById(id);
+        verify(commentRepository, times(1)).findForUpdateById(id);
     }
 
     @Test
@@ -115,4 +330,31 @@ public class CommentServiceTest {
 
         verify(commentRepository).deleteById(id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteShouldDecrementCommentCount() {
+        var comment = CommentTestBuilder.builder().build().buildComment();
+
+        when(commentRepository.findNewsIdForUpdateById(comment.getId())).thenReturn(Optional.of(comment.getNewsId()));
+
+        commentService.delete(comment.getId());
+
+        verify(commentCountCache).add(comment.getNewsId(), -1);
+        verify(commentRepository).deleteById(comment.getId());
+    }
+
+    @Test
+    void deleteAllShouldDeleteInBatchAndDecrementCounts() {
+        var ids = List.of(1L, 2L, 3L);
+        var comments = List.of(new CommentNewsIdDto(1L, 1L), new CommentNewsIdDto(2L, 1L), new CommentNewsIdDto(3L, 2L));
+
+        when(commentRepository.findNewsIdsForUpdateByIds(ids)).thenReturn(comments);
+
+        commentService.deleteAll(ids);
+
+        verify(commentRepository).deleteAllByIdInBatch(ids);
+        verify(commentOutbox).deleted(comments);
+        verify(commentCountCache).add(1L, -2L);
+        verify(commentCountCache).add(2L, -1L);
+    }
+}
@@ -0,0 +1,156 @@
+package ru.clevertec.news.service.archive;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.clevertec.news.model.event.CommentsArchivedEvent;
+import ru.clevertec.news.service.cache.CommentCountCache;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class CommentArchiveJobIntegrationTest {
+
+    private static final PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15.1-alpine");
+    private static final YearMonth CURRENT_MONTH = YearMonth.now();
+
+    private static DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private CommentCountCache commentCountCache;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeAll
+    static void startContainer() {
+        postgreSQLContainer.start();
+        dataSource = new DriverManagerDataSource(postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword());
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        postgreSQLContainer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop schema public cascade; create schema public");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        commentCountCache = mock(CommentCountCache.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+    }
+
+    @Test
+    void runShouldDetachAndArchiveMonthsOutsideRetention() {
+        insert(1L, 10L, CURRENT_MONTH.minusMonths(8));
+        insert(2L, 20L, CURRENT_MONTH);
+        insert(3L, 30L, CURRENT_MONTH.plusMonths(2));
+
+        job(CURRENT_MONTH.plusMonths(8)).run();
+
+        assertThat(partitions()).doesNotContain(name(CURRENT_MONTH), name(CURRENT_MONTH.plusMonths(1)))
+                .contains(name(CURRENT_MONTH.plusMonths(2)), name(CURRENT_MONTH.plusMonths(11)),
+                        CommentArchiveJob.HISTORY, CommentArchiveJob.FUTURE);
+        assertThat(tables()).doesNotContain(name(CURRENT_MONTH), name(CURRENT_MONTH.plusMonths(1)));
+        assertThat(jdbcTemplate.queryForList("select id from comment_archive order by id", Long.class)).containsExactly(1L, 2L);
+        assertThat(jdbcTemplate.queryForList("select id from comment", Long.class)).containsExactly(3L);
+        verify(commentCountCache).evict(List.of(10L, 20L));
+        verify(eventPublisher).publishEvent(new CommentsArchivedEvent(List.of(10L, 20L)));
+    }
+
+    @Test
+    void runShouldKeepTableWithoutGapsAfterArchiving() {
+        job(CURRENT_MONTH.plusMonths(8)).run();
+
+        insert(1L, 10L, CURRENT_MONTH.minusMonths(1));
+        insert(2L, 10L, CURRENT_MONTH.plusMonths(1));
+        insert(3L, 10L, CURRENT_MONTH.plusMonths(40));
+
+        assertThat(partitionOf(1L)).isEqualTo(CommentArchiveJob.HISTORY);
+        assertThat(partitionOf(2L)).isEqualTo(CommentArchiveJob.HISTORY);
+        assertThat(partitionOf(3L)).isEqualTo(CommentArchiveJob.FUTURE);
+        verify(commentCountCache, never()).evict(any());
+    }
+
+    @Test
+    void runShouldMoveFutureRowsIntoCreatedMonths() {
+        insert(1L, 10L, CURRENT_MONTH.plusMonths(5));
+
+        job(CURRENT_MONTH.plusMonths(2)).run();
+
+        assertThat(partitionOf(1L)).isEqualTo(name(CURRENT_MONTH.plusMonths(5)));
+    }
+
+    @Test
+    void runShouldFinishInterruptedArchiving() {
+        insert(1L, 10L, CURRENT_MONTH);
+        jdbcTemplate.execute("alter table comment detach partition " + name(CURRENT_MONTH));
+        jdbcTemplate.execute("alter table comment detach partition " + CommentArchiveJob.FUTURE);
+
+        job(CURRENT_MONTH).run();
+
+        assertThat(tables()).doesNotContain(name(CURRENT_MONTH));
+        assertThat(partitions()).contains(CommentArchiveJob.FUTURE);
+        assertThat(jdbcTemplate.queryForList("select id from comment_archive", Long.class)).containsExactly(1L);
+        verify(commentCountCache).evict(List.of(10L));
+
+        insert(2L, 10L, CURRENT_MONTH);
+
+        assertThat(partitionOf(2L)).isEqualTo(CommentArchiveJob.HISTORY);
+    }
+
+    @Test
+    void runShouldSkipWhenAnotherInstanceMaintainsPartitions() throws SQLException {
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("select pg_advisory_lock(hashtext('comment_partitions'))");
+
+            job(CURRENT_MONTH.plusMonths(8)).run();
+        }
+
+        assertThat(partitions()).contains(name(CURRENT_MONTH)).doesNotContain(name(CURRENT_MONTH.plusMonths(11)));
+    }
+
+    private CommentArchiveJob job(YearMonth month) {
+        var clock = Clock.fixed(month.atDay(15).atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        return new CommentArchiveJob(jdbcTemplate, commentCountCache, eventPublisher, clock, 3, 6);
+    }
+
+    private void insert(Long id, Long newsId, YearMonth month) {
+        jdbcTemplate.update("insert into comment (id, news_id, time, username, text) values (?, ?, ?, 'user', 'text')",
+                id, newsId, month.atDay(10).atTime(12, 0));
+    }
+
+    private String partitionOf(Long id) {
+        return jdbcTemplate.queryForObject("select tableoid::regclass::text from comment where id = ?", String.class, id);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("select inhrelid::regclass::text from pg_inherits where inhparent = 'comment'::regclass",
+                String.class);
+    }
+
+    private List<String> tables() {
+        return jdbcTemplate.queryForList("select tablename from pg_tables where schemaname = 'public'", String.class);
+    }
+
+    private static String name(YearMonth month) {
+        return "comment_p" + month.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+}
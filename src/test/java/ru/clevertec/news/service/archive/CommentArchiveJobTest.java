@@ -0,0 +1,46 @@
+package ru.clevertec.news.service.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.clevertec.news.service.cache.CommentCountCache;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentArchiveJobTest {
+
+    private static final Clock CLOCK = Clock.fixed(LocalDateTime.of(2024, 5, 17, 10, 30).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CommentCountCache commentCountCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void runShouldNotThrowWhenDatabaseFails() {
+        var job = new CommentArchiveJob(jdbcTemplate, commentCountCache, eventPublisher, CLOCK, 3, 6);
+
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenThrow(new DataAccessResourceFailureException("unavailable"));
+
+        assertDoesNotThrow(job::run);
+        verifyNoInteractions(commentCountCache, eventPublisher);
+    }
+}
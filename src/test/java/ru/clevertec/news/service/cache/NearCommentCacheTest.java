@@ -0,0 +1,112 @@
+package ru.clevertec.news.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import ru.clevertec.news.model.enums.CommentEventType;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.FIELD_COMMENT_ID;
+import static ru.clevertec.news.service.outbox.RedisStreamCommentEventSink.FIELD_TYPE;
+
+@ExtendWith(MockitoExtension.class)
+public class NearCommentCacheTest {
+
+    private static final String STREAM_KEY = "comments:events";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private StreamMessageListenerContainer<String, MapRecord<String, String, String>> listenerContainer;
+
+    private NearCommentCache nearCache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.reverseRange(eq(STREAM_KEY), any(), any())).thenReturn(List.of());
+        nearCache = new NearCommentCache(redisTemplate, listenerContainer, STREAM_KEY, "LRU", 10, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void getShouldReturnCommentPutInSameEpoch() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+
+        nearCache.put(comment.getId(), comment, nearCache.epoch());
+
+        assertEquals(comment, nearCache.get(comment.getId()));
+    }
+
+    @Test
+    void putShouldBeIgnoredWhenInvalidationHappenedDuringRead() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var epoch = nearCache.epoch();
+
+        nearCache.invalidate(List.of(comment.getId()));
+        nearCache.put(comment.getId(), comment, epoch);
+
+        assertNull(nearCache.get(comment.getId()));
+    }
+
+    @Test
+    void onMessageShouldRemoveUpdatedAndDeletedComments() {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        nearCache.put(first.getId(), first, nearCache.epoch());
+        nearCache.put(second.getId(), second, nearCache.epoch());
+
+        nearCache.onMessage(event(CommentEventType.UPDATED, first.getId()));
+        nearCache.onMessage(event(CommentEventType.DELETED, second.getId()));
+
+        assertNull(nearCache.get(first.getId()));
+        assertNull(nearCache.get(second.getId()));
+    }
+
+    @Test
+    void onMessageShouldKeepCacheOnCreatedComment() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var epoch = nearCache.epoch();
+        nearCache.put(comment.getId(), comment, epoch);
+
+        nearCache.onMessage(event(CommentEventType.CREATED, comment.getId()));
+
+        assertEquals(comment, nearCache.get(comment.getId()));
+        assertEquals(epoch, nearCache.epoch());
+    }
+
+    @Test
+    void getShouldReturnNullWhenEntryExpired() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        nearCache = new NearCommentCache(redisTemplate, listenerContainer, STREAM_KEY, "LRU", 10, Duration.ZERO.minusMillis(1));
+
+        nearCache.put(comment.getId(), comment, nearCache.epoch());
+
+        assertNull(nearCache.get(comment.getId()));
+    }
+
+    private static MapRecord<String, String, String> event(CommentEventType type, Long commentId) {
+        return StreamRecords.newRecord()
+                .in(STREAM_KEY)
+                .ofMap(Map.of(FIELD_TYPE, type.name(), FIELD_COMMENT_ID, String.valueOf(commentId)));
+    }
+}
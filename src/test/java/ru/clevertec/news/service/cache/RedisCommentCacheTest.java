@@ -0,0 +1,235 @@
+package ru.clevertec.news.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.model.dto.NewsCommentsDto;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RedisCommentCacheTest {
+
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private StringRedisTemplate redisTemplate;
+    private RedisCommentCache cache;
+
+    @BeforeAll
+    static void startContainer() {
+        redisContainer.start();
+        connectionFactory = new JedisConnectionFactory(
+                new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getFirstMappedPort())
+        );
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void stopContainer() {
+        connectionFactory.destroy();
+        redisContainer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        cache = new RedisCommentCache(redisTemplate, new ObjectMapper().findAndRegisterModules(),
+                Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void fillShouldBeRejectedWhenCommentChangedAfterLookup() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var ids = List.of(comment.getId());
+        var lookup = cache.getComment(comment.getId());
+
+        var token = cache.beginCommentWrite(ids);
+        cache.endCommentWrite(ids, token, Collections.singletonList(null));
+        cache.fillComment(lookup, comment);
+
+        assertFalse(cache.getComment(comment.getId()).isHit());
+    }
+
+    @Test
+    void fillCommentsShouldSkipCommentsChangedAfterLookup() {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        var lookups = cache.getComments(List.of(first.getId(), second.getId()));
+
+        var token = cache.beginCommentWrite(List.of(second.getId()));
+        cache.endCommentWrite(List.of(second.getId()), token, Collections.singletonList(null));
+        cache.fillComments(lookups, List.of(first, second));
+
+        var actual = cache.getComments(List.of(first.getId(), second.getId()));
+        assertEquals(first, actual.get(first.getId()).value());
+        assertFalse(actual.get(second.getId()).isHit());
+    }
+
+    @Test
+    void newsTopShouldBeInvalidatedWhenNewsCommentsChange() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var newsIds = List.of(comment.getNewsId());
+        var top = new NewsCommentsDto(comment.getNewsId(), 1L, List.of(comment));
+        cache.fillNewsTop(cache.getNewsTop(newsIds, 3), List.of(top), 3);
+
+        assertEquals(top, cache.getNewsTop(newsIds, 3).get(comment.getNewsId()).value());
+
+        cache.endNewsWrite(newsIds, cache.beginNewsWrite(newsIds));
+
+        assertFalse(cache.getNewsTop(newsIds, 3).get(comment.getNewsId()).isHit());
+    }
+
+    @Test
+    void fillShouldBeRejectedWhileWriteIsPending() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+
+        cache.beginCommentWrite(List.of(comment.getId()));
+        cache.fillComment(cache.getComment(comment.getId()), comment);
+
+        assertFalse(cache.getComment(comment.getId()).isHit());
+    }
+
+    @Test
+    void endCommentWriteShouldWriteThroughNewValue() {
+        var comment = CommentTestBuilder.builder().withText("Updated").build().buildCommentDto();
+        var ids = List.of(comment.getId());
+
+        var token = cache.beginCommentWrite(ids);
+        cache.endCommentWrite(ids, token, List.of(comment));
+
+        assertEquals(comment, cache.getComment(comment.getId()).value());
+    }
+
+    @Test
+    void putNewCommentsShouldNotOverwriteLaterInvalidation() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var ids = List.of(comment.getId());
+
+        var token = cache.beginCommentWrite(ids);
+        cache.endCommentWrite(ids, token, Collections.singletonList(null));
+        cache.putNewComments(List.of(comment));
+
+        assertFalse(cache.getComment(comment.getId()).isHit());
+    }
+
+    @Test
+    void newsPagesShouldBeInvalidatedWhenNewsCommentsChange() {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var newsIds = List.of(comment.getNewsId());
+        var param = new PageParamDto(1, 15);
+        var lookup = cache.getNewsPage(comment.getNewsId(), param);
+        cache.fillNewsPage(comment.getNewsId(), param, lookup, List.of(comment), 1, 1);
+
+        assertTrue(cache.getNewsPage(comment.getNewsId(), param).isHit());
+
+        cache.endNewsWrite(newsIds, cache.beginNewsWrite(newsIds));
+
+        assertFalse(cache.getNewsPage(comment.getNewsId(), param).isHit());
+    }
+
+    /**
+     * Моделирует базу данных одной строкой и проверяет, что чтение, начатое после фиксации версии,
+     * никогда не возвращает более старую версию ни из кэша, ни из базы.
+     */
+    @Test
+    void concurrentUpdatesAndReadsShouldNeverReturnStaleComment() throws Exception {
+        var id = 1L;
+        var ids = List.of(id);
+        var committed = new AtomicLong();
+        var database = new AtomicReference<>(version(id, 0));
+        var running = new AtomicBoolean(true);
+        var staleReads = new AtomicLong();
+        var reads = new AtomicLong();
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(12);
+        var tasks = new ArrayList<Callable<Void>>();
+
+        for (int w = 0; w < 4; w++) {
+            tasks.add(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    var token = cache.beginCommentWrite(ids);
+                    CommentDto written;
+                    synchronized (database) {
+                        written = version(id, committed.get() + 1);
+                        database.set(written);
+                        committed.incrementAndGet();
+                    }
+                    cache.endCommentWrite(ids, token, List.of(written));
+                }
+                return null;
+            });
+        }
+        for (int r = 0; r < 8; r++) {
+            tasks.add(() -> {
+                start.await();
+                while (running.get()) {
+                    var committedAtStart = committed.get();
+                    var lookup = cache.getComment(id);
+                    var value = lookup.value();
+                    if (!lookup.isHit()) {
+                        value = database.get();
+                        cache.fillComment(lookup, value);
+                    }
+                    if (Long.parseLong(value.getText()) < committedAtStart) {
+                        staleReads.incrementAndGet();
+                    }
+                    reads.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        var futures = tasks.stream().map(executor::submit).toList();
+        start.countDown();
+        for (int w = 0; w < 4; w++) {
+            futures.get(w).get();
+        }
+        running.set(false);
+        for (var future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(reads.get()).isGreaterThan(0L);
+        assertEquals(0, staleReads.get());
+        var cached = cache.getComment(id);
+        if (cached.isHit()) {
+            assertEquals(database.get(), cached.value());
+        }
+    }
+
+    private static CommentDto version(Long id, long version) {
+        return CommentTestBuilder.builder().withId(id).withText(String.valueOf(version)).build().buildCommentDto();
+    }
+}
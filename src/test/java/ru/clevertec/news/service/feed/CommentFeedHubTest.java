@@ -0,0 +1,100 @@
+package ru.clevertec.news.service.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.model.dto.CommentEventDto;
+import ru.clevertec.news.model.enums.CommentEventType;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommentFeedHubTest {
+
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofHours(1);
+    private static final int EVENTS = 10;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void subscribeShouldReceiveEventsOfItsNewsOnly() throws Exception {
+        var hub = new CommentFeedHub(objectMapper, 16, HEARTBEAT_INTERVAL);
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var newsId = comment.getNewsId();
+        var payload = objectMapper.writeValueAsString(comment);
+
+        StepVerifier.create(hub.subscribe(newsId))
+                .then(() -> {
+                    hub.publish(event(1L, CommentEventType.CREATED, comment.getId(), newsId + 1, null));
+                    hub.publish(event(2L, CommentEventType.UPDATED, comment.getId(), newsId, payload));
+                    hub.publish(event(3L, CommentEventType.DELETED, comment.getId(), newsId, null));
+                })
+                .assertNext(sse -> {
+                    assertEquals("2", sse.id());
+                    assertEquals("UPDATED", sse.event());
+                    assertEquals(comment, sse.data());
+                })
+                .assertNext(sse -> {
+                    assertEquals("DELETED", sse.event());
+                    assertEquals(new CommentDto(comment.getId(), null, null, null, newsId), sse.data());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void subscribeShouldReceiveUpdateThatMovesCommentToAnotherNews() throws Exception {
+        var hub = new CommentFeedHub(objectMapper, 16, HEARTBEAT_INTERVAL);
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var previousNewsId = comment.getNewsId() + 1;
+        var payload = objectMapper.writeValueAsString(comment);
+
+        StepVerifier.create(hub.subscribe(previousNewsId))
+                .then(() -> hub.publish(new CommentEventDto(1L, CommentEventType.UPDATED, comment.getId(),
+                        comment.getNewsId(), previousNewsId, LocalDateTime.now(), payload)))
+                .assertNext(sse -> {
+                    assertEquals("UPDATED", sse.event());
+                    assertEquals(comment, sse.data());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void publishShouldDisconnectSubscriberWhenBufferOverflows() {
+        var hub = new CommentFeedHub(objectMapper, 2, HEARTBEAT_INTERVAL);
+
+        StepVerifier.create(hub.subscribe(1L), 0)
+                .then(() -> {
+                    for (long id = 1; id <= EVENTS; id++) {
+                        hub.publish(event(id, CommentEventType.DELETED, id, 1L, null));
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .recordWith(ArrayList::new)
+                .thenConsumeWhile(sse -> true)
+                .consumeRecordedWith(received -> assertTrue(received.size() < EVENTS))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void subscribeShouldSendHeartbeatsWhileIdle() {
+        var hub = new CommentFeedHub(objectMapper, 16, Duration.ofMillis(50));
+
+        StepVerifier.create(hub.subscribe(1L).take(2))
+                .expectNextMatches(sse -> sse.comment() != null && sse.data() == null)
+                .expectNextMatches(sse -> sse.comment() != null && sse.data() == null)
+                .verifyComplete();
+    }
+
+    private static CommentEventDto event(Long id, CommentEventType type, Long commentId, Long newsId, String payload) {
+        return new CommentEventDto(id, type, commentId, newsId, null, LocalDateTime.now(), payload);
+    }
+}
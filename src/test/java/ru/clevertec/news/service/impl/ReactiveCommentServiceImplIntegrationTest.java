@@ -0,0 +1,243 @@
+package ru.clevertec.news.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.dto.page.PageParamDto;
+import ru.clevertec.news.dto.update.CommentUpdateDto;
+import ru.clevertec.news.exception.EntityNotFoundException;
+import ru.clevertec.news.service.cache.NearCommentCache;
+import ru.clevertec.news.service.cache.ReactiveRedisCommentCache;
+import ru.clevertec.news.service.cache.impl.ReactiveRedisCommentCountCache;
+import ru.clevertec.news.service.outbox.ReactiveCommentOutbox;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ReactiveCommentServiceImplIntegrationTest {
+
+    private static final PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:15.1-alpine");
+    private static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7.2-alpine").withExposedPorts(6379);
+    private static final Long NEWS_ID = 1L;
+    private static final Long OTHER_NEWS_ID = 2L;
+
+    private static DriverManagerDataSource dataSource;
+    private static ConnectionFactory connectionFactory;
+    private static JedisConnectionFactory jedisConnectionFactory;
+    private static LettuceConnectionFactory lettuceConnectionFactory;
+
+    private JdbcTemplate jdbcTemplate;
+    private ReactiveRedisCommentCache redisCommentCache;
+    private ReactiveCommentServiceImpl commentService;
+
+    @BeforeAll
+    static void startContainers() {
+        postgreSQLContainer.start();
+        redisContainer.start();
+        dataSource = new DriverManagerDataSource(postgreSQLContainer.getJdbcUrl(),
+                postgreSQLContainer.getUsername(), postgreSQLContainer.getPassword());
+        connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions
+                .parse(postgreSQLContainer.getJdbcUrl().replaceFirst("^jdbc:", "r2dbc:").replaceFirst("\\?.*$", ""))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, postgreSQLContainer.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgreSQLContainer.getPassword())
+                .build());
+        var redisConfiguration = new RedisStandaloneConfiguration(redisContainer.getHost(), redisContainer.getFirstMappedPort());
+        jedisConnectionFactory = new JedisConnectionFactory(redisConfiguration);
+        jedisConnectionFactory.afterPropertiesSet();
+        jedisConnectionFactory.start();
+        lettuceConnectionFactory = new LettuceConnectionFactory(redisConfiguration);
+        lettuceConnectionFactory.afterPropertiesSet();
+        lettuceConnectionFactory.start();
+    }
+
+    @AfterAll
+    static void stopContainers() {
+        lettuceConnectionFactory.destroy();
+        jedisConnectionFactory.destroy();
+        redisContainer.stop();
+        postgreSQLContainer.stop();
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop schema public cascade; create schema public");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        var redisTemplate = new StringRedisTemplate(jedisConnectionFactory);
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        var reactiveRedisTemplate = new ReactiveStringRedisTemplate(lettuceConnectionFactory);
+        var databaseClient = DatabaseClient.create(connectionFactory);
+        redisCommentCache = new ReactiveRedisCommentCache(reactiveRedisTemplate, objectMapper,
+                Duration.ofMinutes(10), Duration.ofMinutes(10), Duration.ofSeconds(30));
+        commentService = new ReactiveCommentServiceImpl(databaseClient,
+                TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory)),
+                redisCommentCache,
+                new NearCommentCache(redisTemplate, mock(StreamMessageListenerContainer.class), "comments:events",
+                        "LRU", 100, Duration.ofMinutes(1)),
+                new ReactiveRedisCommentCountCache(reactiveRedisTemplate, Duration.ofMinutes(10), Duration.ofSeconds(30)),
+                new ReactiveCommentOutbox(databaseClient, objectMapper));
+    }
+
+    @Test
+    void createShouldInsertCommentsWithDistinctIdsAndRecordCreatedEvents() {
+        var dtos = IntStream.range(0, 120).mapToObj(i -> new CommentCreateDto("text " + i, "user", NEWS_ID)).toList();
+
+        var created = commentService.createAll(dtos).collectList().block();
+        var single = Flux.range(0, 20)
+                .flatMap(i -> commentService.create(new CommentCreateDto("single " + i, "user", NEWS_ID)))
+                .collectList()
+                .block();
+
+        var ids = Stream.concat(created.stream(), single.stream()).map(CommentDto::getId).toList();
+        assertThat(ids).hasSize(140).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForList("select id from comment", Long.class)).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(jdbcTemplate.queryForList("select comment_id from comment_outbox where type = 'CREATED'", Long.class))
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(redisCommentCache.getComment(created.get(0).getId()).block().value()).isEqualTo(created.get(0));
+    }
+
+    @Test
+    void updateShouldReplaceCachedCommentMoveCountAndRecordUpdatedEvent() {
+        var comment = commentService.create(new CommentCreateDto("text", "user", NEWS_ID)).block();
+        assertThat(commentService.findById(comment.getId()).block()).isEqualTo(comment);
+        assertThat(total(NEWS_ID)).isEqualTo(1);
+        assertThat(total(OTHER_NEWS_ID)).isZero();
+
+        var updated = commentService.update(update(comment, "updated", OTHER_NEWS_ID)).block();
+
+        assertThat(updated.getText()).isEqualTo("updated");
+        assertThat(commentService.findById(comment.getId()).block()).isEqualTo(updated);
+        assertThat(redisCommentCache.getComment(comment.getId()).block().value()).isEqualTo(updated);
+        assertThat(total(NEWS_ID)).isZero();
+        assertThat(total(OTHER_NEWS_ID)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select type from comment_outbox where comment_id = ? order by id",
+                String.class, comment.getId())).containsExactly("CREATED", "UPDATED");
+        assertThat(jdbcTemplate.queryForObject("select previous_news_id from comment_outbox where type = 'UPDATED'",
+                Long.class)).isEqualTo(NEWS_ID);
+    }
+
+    @Test
+    void updateShouldRecordNewsIdLockedInTransactionWhenCommentIsMovedConcurrently() throws Exception {
+        var comment = commentService.create(new CommentCreateDto("text", "user", NEWS_ID)).block();
+        var movedNewsId = 3L;
+
+        CommentDto updated;
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement("select id from comment where id = ? for update")) {
+                statement.setLong(1, comment.getId());
+                statement.executeQuery().close();
+            }
+            var update = commentService.update(update(comment, "updated", OTHER_NEWS_ID)).toFuture();
+            Thread.sleep(500);
+            try (var statement = connection.prepareStatement("update comment set news_id = ? where id = ?")) {
+                statement.setLong(1, movedNewsId);
+                statement.setLong(2, comment.getId());
+                statement.executeUpdate();
+            }
+            connection.commit();
+            updated = update.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(updated.getNewsId()).isEqualTo(OTHER_NEWS_ID);
+        assertThat(total(OTHER_NEWS_ID)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select previous_news_id from comment_outbox where type = 'UPDATED'",
+                Long.class)).isEqualTo(movedNewsId);
+    }
+
+    @Test
+    void updateShouldKeepCachedCommentWhenTransactionFails() {
+        var comment = commentService.create(new CommentCreateDto("text", "user", NEWS_ID)).block();
+        assertThat(commentService.findById(comment.getId()).block()).isEqualTo(comment);
+
+        StepVerifier.create(commentService.update(update(comment, "x".repeat(256), NEWS_ID)))
+                .expectError()
+                .verify();
+
+        assertThat(commentService.findById(comment.getId()).block()).isEqualTo(comment);
+        assertThat(total(NEWS_ID)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("select type from comment_outbox where comment_id = ?",
+                String.class, comment.getId())).containsExactly("CREATED");
+    }
+
+    @Test
+    void deleteShouldRemoveCachedCommentsDecrementCountAndRecordDeletedEvents() {
+        var created = commentService.createAll(List.of(new CommentCreateDto("first", "user", NEWS_ID),
+                new CommentCreateDto("second", "user", NEWS_ID))).collectList().block();
+        var ids = created.stream().map(CommentDto::getId).toList();
+        assertThat(commentService.findById(ids.get(0)).block()).isEqualTo(created.get(0));
+        assertThat(total(NEWS_ID)).isEqualTo(2);
+
+        commentService.deleteAll(ids).block();
+
+        StepVerifier.create(commentService.findById(ids.get(0)))
+                .expectError(EntityNotFoundException.class)
+                .verify();
+        assertThat(redisCommentCache.getComment(ids.get(1)).block().isHit()).isFalse();
+        assertThat(total(NEWS_ID)).isZero();
+        assertThat(jdbcTemplate.queryForList("select comment_id from comment_outbox where type = 'DELETED'", Long.class))
+                .containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void updateShouldReturnEntityNotFoundWithoutEventWhenCommentIsMissing() {
+        var comment = commentService.create(new CommentCreateDto("text", "user", NEWS_ID)).block();
+        commentService.delete(comment.getId()).block();
+
+        StepVerifier.create(commentService.update(update(comment, "updated", NEWS_ID)))
+                .expectError(EntityNotFoundException.class)
+                .verify();
+
+        assertThat(jdbcTemplate.queryForList("select type from comment_outbox where comment_id = ? order by id",
+                String.class, comment.getId())).containsExactly("CREATED", "DELETED");
+    }
+
+    private long total(Long newsId) {
+        return commentService.findByNewsId(new PageParamDto(1, 10), newsId).block().page().totalElements();
+    }
+
+    private static CommentUpdateDto update(CommentDto comment, String text, Long newsId) {
+        var dto = new CommentUpdateDto(comment.getId());
+        dto.setTime(comment.getTime());
+        dto.setText(text);
+        dto.setUsername(comment.getUsername());
+        dto.setNewsId(newsId);
+        return dto;
+    }
+}
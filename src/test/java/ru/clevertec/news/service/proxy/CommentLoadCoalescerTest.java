@@ -0,0 +1,156 @@
+package ru.clevertec.news.service.proxy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.news.datasource.PrimaryReadContext;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommentLoadCoalescerTest {
+
+    private static final int CALLS = 16;
+
+    private CommentLoadCoalescer coalescer;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new CommentLoadCoalescer();
+        registry = new SimpleMeterRegistry();
+        coalescer.bindTo(registry);
+    }
+
+    @Test
+    void doGetShouldCollapseConcurrentLoadsOfSameId() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var release = new CountDownLatch(1);
+        var pjp = joinPoint(comment.getId());
+        when(pjp.proceed()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return comment;
+        });
+
+        var executor = Executors.newFixedThreadPool(CALLS);
+        try {
+            var futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < CALLS; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return coalescer.doGet(pjp);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            while (counter("comments.coalescing.collapsed") < CALLS - 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (var future : futures) {
+                assertEquals(comment, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(pjp, times(1)).proceed();
+        assertEquals(1, counter("comments.coalescing.loads"));
+        assertEquals(CALLS - 1, counter("comments.coalescing.collapsed"));
+    }
+
+    @Test
+    void afterDeleteShouldStartNewLoadForNextCall() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var pjp = joinPoint(comment.getId());
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(pjp.proceed()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return comment;
+        }).thenReturn(comment);
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var first = executor.submit(() -> {
+                try {
+                    return coalescer.doGet(pjp);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await(10, TimeUnit.SECONDS);
+            coalescer.afterDelete(comment.getId());
+
+            assertEquals(comment, coalescer.doGet(pjp));
+            release.countDown();
+            assertEquals(comment, first.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(pjp, times(2)).proceed();
+        assertEquals(0, counter("comments.coalescing.collapsed"));
+    }
+
+    @Test
+    void doGetShouldNotCollapsePrimaryReadIntoReplicaLoad() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var pjp = joinPoint(comment.getId());
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(pjp.proceed()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return comment;
+        }).thenReturn(comment);
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var replica = executor.submit(() -> {
+                try {
+                    return coalescer.doGet(pjp);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await(10, TimeUnit.SECONDS);
+            PrimaryReadContext.enable();
+            try {
+                assertEquals(comment, coalescer.doGet(pjp));
+            } finally {
+                PrimaryReadContext.clear();
+            }
+            release.countDown();
+            assertEquals(comment, replica.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(pjp, times(2)).proceed();
+        assertEquals(0, counter("comments.coalescing.collapsed"));
+    }
+
+    private ProceedingJoinPoint joinPoint(Long id) {
+        var pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{id});
+        return pjp;
+    }
+
+    private double counter(String name) {
+        return registry.get(name).tag("operation", "findById").functionCounter().count();
+    }
+}
@@ -0,0 +1,115 @@
+package ru.clevertec.news.service.proxy;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.clevertec.news.cache.concurrent.ConcurrentCacheLru;
+import ru.clevertec.news.datasource.PrimaryReadContext;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CommentProxyServiceTest {
+
+    private ConcurrentCacheLru<Long, CommentDto> cache;
+    private CommentProxyService proxyService;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ConcurrentCacheLru<>();
+        cache.capacity(100);
+        proxyService = new CommentProxyService(cache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        PrimaryReadContext.clear();
+    }
+
+    @Test
+    void doGetShouldLoadMissFromPrimaryAndRestoreReadContext() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var primary = new AtomicBoolean();
+        var pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{comment.getId()});
+        when(pjp.proceed(any(Object[].class))).thenAnswer(invocation -> {
+            primary.set(PrimaryReadContext.isEnabled());
+            return comment;
+        });
+
+        assertEquals(comment, proxyService.doGet(pjp));
+        assertTrue(primary.get());
+        assertFalse(PrimaryReadContext.isEnabled());
+    }
+
+    @Test
+    void doGetAllShouldKeepPrimaryReadContextOfRequest() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{List.of(comment.getId())});
+        when(pjp.proceed(any(Object[].class))).thenReturn(List.of(comment));
+        PrimaryReadContext.enable();
+
+        assertEquals(List.of(comment), proxyService.doGetAll(pjp));
+        assertTrue(PrimaryReadContext.isEnabled());
+    }
+
+    @Test
+    void doGetShouldNotCacheCommentDeletedDuringLoad() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var loading = new CountDownLatch(1);
+        var deleted = new CountDownLatch(1);
+        var getPjp = mock(ProceedingJoinPoint.class);
+        when(getPjp.getArgs()).thenReturn(new Object[]{comment.getId()});
+        when(getPjp.proceed(any(Object[].class))).thenAnswer(invocation -> {
+            loading.countDown();
+            assertTrue(deleted.await(5, TimeUnit.SECONDS));
+            return comment;
+        });
+        var deletePjp = mock(ProceedingJoinPoint.class);
+        when(deletePjp.getArgs()).thenReturn(new Object[]{comment.getId()});
+
+        var get = CompletableFuture.supplyAsync(() -> {
+            try {
+                return proxyService.doGet(getPjp);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        proxyService.doDelete(deletePjp);
+        deleted.countDown();
+
+        assertEquals(comment, get.get(5, TimeUnit.SECONDS));
+        assertNull(cache.get(comment.getId()));
+    }
+
+    @Test
+    void doGetAllShouldNotOverwriteCommentUpdatedDuringLoad() throws Throwable {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        var updated = CommentTestBuilder.builder().withText("updated").build().buildCommentDto();
+        var pjp = mock(ProceedingJoinPoint.class);
+        when(pjp.getArgs()).thenReturn(new Object[]{List.of(comment.getId())});
+        when(pjp.proceed(any(Object[].class))).thenAnswer(invocation -> {
+            cache.put(updated.getId(), updated);
+            return List.of(comment);
+        });
+
+        assertEquals(List.of(comment), proxyService.doGetAll(pjp));
+        assertEquals(updated, cache.get(comment.getId()));
+    }
+}
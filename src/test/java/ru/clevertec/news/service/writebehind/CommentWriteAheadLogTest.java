@@ -0,0 +1,52 @@
+package ru.clevertec.news.service.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CommentWriteAheadLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void recoverShouldReturnCommentsNotReleasedBeforeRestart() throws IOException {
+        var first = CommentTestBuilder.builder().withId(1L).build().buildCommentDto();
+        var second = CommentTestBuilder.builder().withId(2L).build().buildCommentDto();
+        try (var log = new CommentWriteAheadLog(directory, 1024, objectMapper)) {
+            log.append(first);
+            log.append(second);
+        }
+
+        try (var log = new CommentWriteAheadLog(directory, 1024, objectMapper)) {
+            var actual = log.recover().stream().map(CommentWriteAheadLog.Entry::comment).toList();
+
+            assertEquals(List.of(first, second), actual);
+        }
+    }
+
+    @Test
+    void releaseShouldDeleteSegmentWhenAllCommentsAreFlushed() throws IOException {
+        var comment = CommentTestBuilder.builder().build().buildCommentDto();
+        try (var log = new CommentWriteAheadLog(directory, 1024, objectMapper)) {
+            var segment = log.append(comment);
+            log.release(segment, 1);
+        }
+
+        try (var log = new CommentWriteAheadLog(directory, 1024, objectMapper); var files = Files.list(directory)) {
+            assertEquals(List.of(), log.recover());
+            assertEquals(1, files.count());
+        }
+    }
+}
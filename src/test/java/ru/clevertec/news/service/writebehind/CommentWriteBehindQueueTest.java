@@ -0,0 +1,177 @@
+package ru.clevertec.news.service.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.clevertec.news.converter.CommentConverter;
+import ru.clevertec.news.dto.CommentDto;
+import ru.clevertec.news.dto.create.CommentCreateDto;
+import ru.clevertec.news.exception.InvalidCommentException;
+import ru.clevertec.news.exception.WriteQueueFullException;
+import ru.clevertec.news.model.entity.Comment;
+import ru.clevertec.news.model.event.CommentsFlushedEvent;
+import ru.clevertec.news.service.cache.CommentCountCache;
+import ru.clevertec.news.service.cache.impl.LocalCommentCountCache;
+import ru.clevertec.news.service.outbox.CommentOutbox;
+import ru.clevertec.news.util.CommentTestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CommentWriteBehindQueueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CommentConverter commentConverter;
+
+    @Mock
+    private CommentOutbox commentOutbox;
+
+    @Mock
+    private CommentCountCache commentCountCache;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(100L);
+        lenient().when(commentConverter.convert(any(CommentCreateDto.class))).thenAnswer(invocation -> {
+            var dto = (CommentCreateDto) invocation.getArgument(0);
+            return new Comment(null, dto.getNewsId(), null, dto.getUsername(), dto.getText());
+        });
+        lenient().when(commentConverter.convert(any(Comment.class))).thenAnswer(invocation -> {
+            var comment = (Comment) invocation.getArgument(0);
+            return new CommentDto(comment.getId(), comment.getTime(), comment.getText(), comment.getUsername(), comment.getNewsId());
+        });
+    }
+
+    @Test
+    void offerShouldReturnCommentReadableUntilFlushed() throws IOException {
+        var queue = queue(10);
+        var dto = CommentTestBuilder.builder().build().buildCommentCreateDto();
+
+        var actual = queue.offer(dto);
+
+        assertEquals(51L, actual.getId());
+        assertEquals(Optional.of(actual), queue.find(actual.getId()));
+
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of(actual.getId()));
+
+        assertEquals(1, queue.flush());
+
+        verify(commentOutbox).created(List.of(actual));
+        verify(eventPublisher).publishEvent(new CommentsFlushedEvent(List.of(dto.getNewsId())));
+        assertEquals(Optional.empty(), queue.find(actual.getId()));
+    }
+
+    @Test
+    void offerShouldRejectCommentWhenQueueIsFull() throws IOException {
+        var queue = queue(1);
+        var dto = CommentTestBuilder.builder().build().buildCommentCreateDto();
+
+        queue.offer(dto);
+
+        assertThrows(WriteQueueFullException.class, () -> queue.offer(dto));
+    }
+
+    @Test
+    void offerShouldRejectCommentWithoutNewsId() throws IOException {
+        var queue = queue(10);
+        var dto = CommentTestBuilder.builder().withNewsId(null).build().buildCommentCreateDto();
+
+        assertThrows(InvalidCommentException.class, () -> queue.offer(dto));
+        assertEquals(0, queue.flush());
+    }
+
+    @Test
+    void offerShouldRejectTooLongText() throws IOException {
+        var queue = queue(10);
+        var dto = CommentTestBuilder.builder().withText("a".repeat(256)).build().buildCommentCreateDto();
+
+        assertThrows(InvalidCommentException.class, () -> queue.offer(dto));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushShouldMoveRejectedCommentToDeadLettersAndWriteEventsOnlyForInserted() throws IOException {
+        var queue = queue(10);
+        var first = queue.offer(CommentTestBuilder.builder().build().buildCommentCreateDto());
+        var second = queue.offer(CommentTestBuilder.builder().build().buildCommentCreateDto());
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenThrow(new DataIntegrityViolationException("batch"))
+                .thenReturn(List.of(first.getId()))
+                .thenThrow(new DataIntegrityViolationException("row"));
+
+        assertEquals(2, queue.flush());
+
+        verify(commentOutbox).created(List.of(first));
+        verify(jdbcTemplate).update(anyString(), eq(second.getId()), eq(second.getNewsId()), any(), eq(second.getUsername()),
+                eq(second.getText()), eq("row"));
+        verify(commentCountCache).add(first.getNewsId(), 1L);
+        verify(commentCountCache, never()).evict(any());
+        assertEquals(Optional.empty(), queue.find(first.getId()));
+        assertEquals(Optional.empty(), queue.find(second.getId()));
+        assertEquals(0, queue.flush());
+    }
+
+    @Test
+    void flushShouldAddOnlyInsertedCommentsToCachedCount() throws IOException {
+        var countCache = new LocalCommentCountCache();
+        var queue = queue(10, countCache);
+        var dto = CommentTestBuilder.builder().build().buildCommentCreateDto();
+        assertEquals(5, countCache.get(dto.getNewsId(), () -> 5));
+        var first = queue.offer(dto);
+        queue.offer(dto);
+
+        assertEquals(5, countCache.get(dto.getNewsId(), () -> 0));
+
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenReturn(List.of(first.getId()));
+
+        assertEquals(2, queue.flush());
+        assertEquals(6, countCache.get(dto.getNewsId(), () -> 0));
+    }
+
+    private CommentWriteBehindQueue queue(int capacity) throws IOException {
+        return queue(capacity, commentCountCache);
+    }
+
+    private CommentWriteBehindQueue queue(int capacity, CommentCountCache commentCountCache) throws IOException {
+        return new CommentWriteBehindQueue(jdbcTemplate, transactionManager, eventPublisher, commentConverter, commentOutbox,
+                commentCountCache,
+                new ObjectMapper().registerModule(new JavaTimeModule()), directory, 1024 * 1024, capacity, 100, Duration.ZERO);
+    }
+}